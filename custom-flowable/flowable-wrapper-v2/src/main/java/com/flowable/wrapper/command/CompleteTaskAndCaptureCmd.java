@@ -0,0 +1,105 @@
+package com.flowable.wrapper.command;
+
+import com.flowable.wrapper.entity.QueueTask;
+import lombok.Value;
+import org.flowable.common.engine.impl.interceptor.Command;
+import org.flowable.common.engine.impl.interceptor.CommandContext;
+import org.flowable.engine.impl.cmd.CompleteTaskCmd;
+import org.flowable.engine.impl.persistence.entity.ExecutionEntity;
+import org.flowable.engine.impl.util.CommandContextUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Completes a task and reports what the completion produced, in the same engine command:
+ * the queue tasks created while the process moved on, whether the process is still running and,
+ * when the task looped back, its two validation variables.
+ * Everything is read from the command's entity cache or the listener, so no follow-up queries are needed.
+ */
+public class CompleteTaskAndCaptureCmd implements Command<CompleteTaskAndCaptureCmd.Result> {
+    
+    /**
+     * Command context attribute holding the queue tasks projected during this command
+     */
+    public static final String CREATED_QUEUE_TASKS_ATTRIBUTE = CompleteTaskAndCaptureCmd.class.getName() + ".createdQueueTasks";
+    
+    private final String taskId;
+    private final String taskDefinitionKey;
+    private final String processInstanceId;
+    private final Map<String, Object> variables;
+    
+    public CompleteTaskAndCaptureCmd(String taskId, String taskDefinitionKey, String processInstanceId,
+                                     Map<String, Object> variables) {
+        this.taskId = taskId;
+        this.taskDefinitionKey = taskDefinitionKey;
+        this.processInstanceId = processInstanceId;
+        this.variables = variables;
+    }
+    
+    /**
+     * Register a queue task created during the current command, if a capturing command is running
+     */
+    public static void captureCreatedQueueTask(CommandContext commandContext, QueueTask queueTask) {
+        if (commandContext == null || queueTask == null) {
+            return;
+        }
+        
+        Object captured = commandContext.getAttribute(CREATED_QUEUE_TASKS_ATTRIBUTE);
+        if (captured instanceof List<?>) {
+            @SuppressWarnings("unchecked")
+            List<QueueTask> createdQueueTasks = (List<QueueTask>) captured;
+            createdQueueTasks.add(queueTask);
+        }
+    }
+    
+    @Override
+    public Result execute(CommandContext commandContext) {
+        List<QueueTask> createdQueueTasks = new ArrayList<>();
+        commandContext.addAttribute(CREATED_QUEUE_TASKS_ATTRIBUTE, createdQueueTasks);
+        try {
+            // Run as a nested command, so the agenda moves the process on before the capture is read;
+            // executed directly, the next tasks would only be created after this command returns
+            CommandContextUtil.getProcessEngineConfiguration(commandContext).getCommandExecutor()
+                    .execute(new CompleteTaskCmd(taskId, variables));
+        } finally {
+            commandContext.removeAttribute(CREATED_QUEUE_TASKS_ATTRIBUTE);
+        }
+        
+        // The process instance was loaded by the completion, so this is served from the entity cache
+        ExecutionEntity processInstance = CommandContextUtil.getExecutionEntityManager(commandContext).findById(processInstanceId);
+        boolean processActive = processInstance != null && !processInstance.isEnded() && !processInstance.isDeleted();
+        
+        QueueTask retryTask = createdQueueTasks.stream()
+                .filter(queueTask -> taskDefinitionKey.equals(queueTask.getTaskDefinitionKey()))
+                .findFirst()
+                .orElse(null);
+        
+        Object validationError = null;
+        Object attemptCount = null;
+        if (retryTask != null && processActive) {
+            // Fetch only the two validation variables instead of every process variable
+            Map<String, Object> validationVariables = processInstance.getVariables(
+                    List.of(taskDefinitionKey + "ValidationError", taskDefinitionKey + "AttemptCount"), false);
+            validationError = validationVariables.get(taskDefinitionKey + "ValidationError");
+            attemptCount = validationVariables.get(taskDefinitionKey + "AttemptCount");
+        }
+        
+        return new Result(createdQueueTasks, processActive, retryTask, validationError, attemptCount);
+    }
+    
+    @Value
+    public static class Result {
+        
+        List<QueueTask> createdQueueTasks;
+        
+        boolean processActive;
+        
+        QueueTask retryTask;
+        
+        Object validationError;
+        
+        Object attemptCount;
+    }
+}
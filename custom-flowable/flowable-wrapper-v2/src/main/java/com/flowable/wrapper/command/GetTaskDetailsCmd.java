@@ -0,0 +1,118 @@
+package com.flowable.wrapper.command;
+
+import com.flowable.wrapper.model.FormPropertyDescriptor;
+import com.flowable.wrapper.model.TaskDetailInclude;
+import com.flowable.wrapper.service.FormDescriptorCache;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.flowable.common.engine.impl.interceptor.Command;
+import org.flowable.common.engine.impl.interceptor.CommandContext;
+import org.flowable.engine.form.FormProperty;
+import org.flowable.engine.form.TaskFormData;
+import org.flowable.engine.impl.cmd.GetTaskFormCmd;
+import org.flowable.engine.impl.persistence.entity.ExecutionEntity;
+import org.flowable.engine.impl.util.CommandContextUtil;
+import org.flowable.task.service.impl.persistence.entity.TaskEntity;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads a task and the requested detail sections in a single engine command: task, task variables,
+ * form data and process variables share one command context, so the task, its execution and their
+ * variables are fetched once and served from the entity cache afterwards. Unrequested sections are not loaded.
+ * Form properties are built from the cached descriptors of the definition plus the current variable values;
+ * only properties with expressions or typed values go through the engine's form handler.
+ * Returns null if the task does not exist.
+ */
+@Slf4j
+public class GetTaskDetailsCmd implements Command<GetTaskDetailsCmd.Result> {
+    
+    private final String taskId;
+    private final String processInstanceId;
+    private final TaskDetailInclude include;
+    private final FormDescriptorCache formDescriptorCache;
+    
+    public GetTaskDetailsCmd(String taskId, String processInstanceId, TaskDetailInclude include,
+                             FormDescriptorCache formDescriptorCache) {
+        this.taskId = taskId;
+        this.processInstanceId = processInstanceId;
+        this.include = include;
+        this.formDescriptorCache = formDescriptorCache;
+    }
+    
+    @Override
+    public Result execute(CommandContext commandContext) {
+        TaskEntity task = CommandContextUtil.getTaskService(commandContext).getTask(taskId);
+        if (task == null) {
+            return null;
+        }
+        
+        Map<String, Object> taskVariables = include.isTaskVariables() ? task.getVariables() : null;
+        
+        Map<String, Object> formProperties = include.isForm() ? formProperties(commandContext, task) : null;
+        
+        Map<String, Object> processVariables = null;
+        if (include.isProcessVariables()) {
+            ExecutionEntity processInstance = CommandContextUtil.getExecutionEntityManager(commandContext).findById(processInstanceId);
+            if (processInstance != null) {
+                processVariables = include.getProcessVariableNames() != null
+                        ? processInstance.getVariables(include.getProcessVariableNames(), false)
+                        : processInstance.getVariables();
+            }
+        }
+        
+        return new Result(task.getFormKey(), task.getDescription(), task.getDueDate(), taskVariables, formProperties, processVariables);
+    }
+    
+    private Map<String, Object> formProperties(CommandContext commandContext, TaskEntity task) {
+        Map<String, Object> formProperties = new HashMap<>();
+        
+        List<FormPropertyDescriptor> descriptors = task.getProcessDefinitionId() != null
+                ? formDescriptorCache.get(task.getProcessDefinitionId(), task.getTaskDefinitionKey())
+                : null;
+        if (descriptors != null && descriptors.stream().allMatch(FormPropertyDescriptor::isResolvable)) {
+            ExecutionEntity execution = task.getExecutionId() != null
+                    ? CommandContextUtil.getExecutionEntityManager(commandContext).findById(task.getExecutionId())
+                    : null;
+            for (FormPropertyDescriptor descriptor : descriptors) {
+                Object value = execution != null ? execution.getVariable(descriptor.getVariable()) : null;
+                formProperties.put(descriptor.getId(), descriptor.toMap(value != null ? value.toString() : null));
+            }
+            return formProperties;
+        }
+        
+        try {
+            TaskFormData formData = new GetTaskFormCmd(taskId).execute(commandContext);
+            if (formData != null) {
+                for (FormProperty property : formData.getFormProperties()) {
+                    formProperties.put(property.getId(), FormPropertyDescriptor.toMap(property.getId(), property.getName(),
+                        property.getType() != null ? property.getType().getName() : "string",
+                        property.isRequired(), property.isReadable(), property.isWritable(), property.getValue()));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not retrieve form properties for task {}: {}", taskId, e.getMessage());
+        }
+        
+        return formProperties;
+    }
+    
+    @Value
+    public static class Result {
+        
+        String formKey;
+        
+        String description;
+        
+        Date dueDate;
+        
+        Map<String, Object> taskVariables;  // null when not requested
+        
+        Map<String, Object> formProperties;  // null when not requested
+        
+        Map<String, Object> processVariables;  // null when not requested
+    }
+}
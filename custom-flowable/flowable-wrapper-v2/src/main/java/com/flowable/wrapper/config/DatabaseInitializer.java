@@ -3,6 +3,7 @@ package com.flowable.wrapper.config;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
@@ -39,4 +40,16 @@ public class DatabaseInitializer {
             // Don't fail startup - tables might already exist
         }
     }
+    
+    /**
+     * Run schema.sql before Hibernate's ddl-auto update, so Hibernate never creates plain
+     * versions of tables that the script defines as partitioned
+     */
+    @Component
+    static class SchemaBeforeJpaPostProcessor extends EntityManagerFactoryDependsOnPostProcessor {
+        
+        SchemaBeforeJpaPostProcessor() {
+            super("databaseInitializer");
+        }
+    }
 }
\ No newline at end of file
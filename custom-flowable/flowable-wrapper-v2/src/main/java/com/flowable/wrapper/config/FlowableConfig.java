@@ -0,0 +1,71 @@
+package com.flowable.wrapper.config;
+
+import com.flowable.wrapper.history.WorkflowHistoryConfigurationSettings;
+import com.flowable.wrapper.history.WorkflowHistoryParseHandler;
+import com.flowable.wrapper.listener.ProcessInstanceCacheEventListener;
+import com.flowable.wrapper.listener.QueueTaskEventListener;
+import com.flowable.wrapper.scripting.CompilingGroovyScriptEngineFactory;
+import com.flowable.wrapper.scripting.ScriptTaskDelegates;
+import com.flowable.wrapper.scripting.ScriptTaskParseHandler;
+import com.flowable.wrapper.service.WorkflowRoutingCache;
+import org.flowable.common.engine.api.delegate.event.FlowableEventListener;
+import org.flowable.common.engine.impl.AbstractEngineConfiguration;
+import org.flowable.common.engine.impl.EngineConfigurator;
+import org.flowable.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.flowable.engine.parse.BpmnParseHandler;
+import org.flowable.spring.SpringProcessEngineConfiguration;
+import org.flowable.spring.boot.EngineConfigurationConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class FlowableConfig {
+    
+    @Bean
+    public EngineConfigurationConfigurer<SpringProcessEngineConfiguration> processEngineConfigurer(
+            QueueTaskEventListener queueTaskEventListener,
+            ProcessInstanceCacheEventListener processInstanceCacheEventListener,
+            WorkflowRoutingCache workflowRoutingCache,
+            CompilingGroovyScriptEngineFactory scriptEngineFactory,
+            ScriptTaskDelegates scriptTaskDelegates) {
+        return configuration -> {
+            // Register queue projection and read-cache listeners on the engine
+            List<FlowableEventListener> eventListeners = configuration.getEventListeners() != null ?
+                new ArrayList<>(configuration.getEventListeners()) : new ArrayList<>();
+            eventListeners.add(queueTaskEventListener);
+            eventListeners.add(processInstanceCacheEventListener);
+            configuration.setEventListeners(eventListeners);
+            
+            // Per-workflow history: level and variable filters come from the workflow metadata
+            List<BpmnParseHandler> postParseHandlers = configuration.getPostBpmnParseHandlers() != null ?
+                new ArrayList<>(configuration.getPostBpmnParseHandlers()) : new ArrayList<>();
+            postParseHandlers.add(new WorkflowHistoryParseHandler(workflowRoutingCache));
+            postParseHandlers.add(new ScriptTaskParseHandler(scriptEngineFactory, scriptTaskDelegates));
+            configuration.setPostBpmnParseHandlers(postParseHandlers);
+            configuration.setEnableProcessDefinitionHistoryLevel(true);
+            configuration.setHistoryConfigurationSettings(
+                new WorkflowHistoryConfigurationSettings(configuration, workflowRoutingCache));
+            
+            // Groovy scripts run from compiled classes; the scripting engines only exist once the engine is initialized
+            configuration.addConfigurator(new EngineConfigurator() {
+                @Override
+                public void beforeInit(AbstractEngineConfiguration engineConfiguration) {
+                }
+                
+                @Override
+                public void configure(AbstractEngineConfiguration engineConfiguration) {
+                    ((ProcessEngineConfigurationImpl) engineConfiguration).getScriptingEngines()
+                        .addScriptEngineFactory(scriptEngineFactory);
+                }
+                
+                @Override
+                public int getPriority() {
+                    return 0;
+                }
+            });
+        };
+    }
+}
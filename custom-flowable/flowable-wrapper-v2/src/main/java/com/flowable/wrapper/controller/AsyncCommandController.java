@@ -0,0 +1,41 @@
+package com.flowable.wrapper.controller;
+
+import com.flowable.wrapper.dto.response.AsyncCommandResponse;
+import com.flowable.wrapper.service.AsyncCommandService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/async-commands")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Async Commands", description = "Status of requests submitted with Prefer: respond-async")
+public class AsyncCommandController {
+    
+    private final AsyncCommandService asyncCommandService;
+    
+    @GetMapping("/{commandId}")
+    @Operation(summary = "Get async command status", 
+              description = "Poll the status of an asynchronously executed start or complete request. " +
+                            "Once SUCCEEDED, result holds the response the synchronous call would have returned.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Command found"),
+        @ApiResponse(responseCode = "404", description = "Command not found or already purged")
+    })
+    public ResponseEntity<AsyncCommandResponse> getCommand(
+            @Parameter(description = "Command ID", required = true)
+            @PathVariable String commandId) {
+        
+        log.debug("Getting async command: {}", commandId);
+        AsyncCommandResponse response = asyncCommandService.getCommand(commandId);
+        
+        return ResponseEntity.ok(response);
+    }
+}
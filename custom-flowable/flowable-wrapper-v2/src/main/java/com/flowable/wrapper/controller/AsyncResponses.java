@@ -0,0 +1,42 @@
+package com.flowable.wrapper.controller;
+
+import com.flowable.wrapper.dto.response.AsyncCommandResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+
+/**
+ * HTTP handling of the "Prefer: respond-async" request header (RFC 7240)
+ */
+final class AsyncResponses {
+    
+    static final String PREFER_HEADER = "Prefer";
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    
+    private AsyncResponses() {
+    }
+    
+    static boolean isRespondAsync(String prefer) {
+        if (prefer == null) {
+            return false;
+        }
+        for (String preference : prefer.split(",")) {
+            if (preference.trim().split(";")[0].trim().equalsIgnoreCase("respond-async")) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * 202 Accepted pointing at the status URL of the command
+     */
+    static ResponseEntity<AsyncCommandResponse> accepted(AsyncCommandResponse command) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create(command.getStatusUrl()))
+                .header("Preference-Applied", "respond-async")
+                .body(command);
+    }
+}
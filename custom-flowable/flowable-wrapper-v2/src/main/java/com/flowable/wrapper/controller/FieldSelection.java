@@ -0,0 +1,66 @@
+package com.flowable.wrapper.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.flowable.wrapper.exception.WorkflowException;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Handling of comma-separated selection parameters such as fields= and variables=
+ */
+final class FieldSelection {
+    
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+    
+    private FieldSelection() {
+    }
+    
+    /**
+     * Split a comma-separated parameter; null when the parameter is absent
+     */
+    static Set<String> parse(String parameter) {
+        if (parameter == null) {
+            return null;
+        }
+        
+        return Arrays.stream(parameter.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+    
+    /**
+     * Serialize only the selected top-level properties of a response, in declaration order
+     */
+    static Map<String, Object> apply(ObjectMapper objectMapper, Object response, Set<String> fields) throws WorkflowException {
+        Set<String> known = objectMapper.getSerializationConfig()
+                .introspect(objectMapper.constructType(response.getClass()))
+                .findProperties().stream()
+                .map(BeanPropertyDefinition::getName)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        
+        Set<String> unknown = new LinkedHashSet<>(fields);
+        unknown.removeAll(known);
+        if (!unknown.isEmpty()) {
+            throw new WorkflowException("INVALID_FIELDS",
+                "Unknown fields " + unknown + "; available fields are " + known);
+        }
+        
+        Map<String, Object> all = objectMapper.convertValue(response, MAP_TYPE);
+        Map<String, Object> selected = new LinkedHashMap<>();
+        for (String field : known) {
+            if (fields.contains(field)) {
+                selected.put(field, all.get(field));
+            }
+        }
+        
+        return selected;
+    }
+}
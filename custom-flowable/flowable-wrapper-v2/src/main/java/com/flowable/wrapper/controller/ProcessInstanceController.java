@@ -1,20 +1,32 @@
 package com.flowable.wrapper.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.flowable.wrapper.dto.request.StartProcessRequest;
 import com.flowable.wrapper.dto.response.ProcessInstanceResponse;
+import com.flowable.wrapper.dto.response.ProcessStartBatchResult;
 import com.flowable.wrapper.exception.WorkflowException;
+import com.flowable.wrapper.service.AsyncCommandService;
+import com.flowable.wrapper.service.ProcessInstanceBatchService;
 import com.flowable.wrapper.service.ProcessInstanceService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/process-instances")
@@ -24,18 +36,33 @@ import org.springframework.web.bind.annotation.*;
 public class ProcessInstanceController {
     
     private final ProcessInstanceService processInstanceService;
+    private final ProcessInstanceBatchService processInstanceBatchService;
+    private final AsyncCommandService asyncCommandService;
+    private final ObjectMapper objectMapper;
     
     @PostMapping("/start")
     @Operation(summary = "Start a new process instance", 
-              description = "Start a new instance of a deployed workflow")
+              description = "Start a new instance of a deployed workflow. With 'Prefer: respond-async' the start " +
+                            "is queued and 202 is returned with a status URL; resubmissions with the same " +
+                            "Idempotency-Key return the original command.")
     @ApiResponses({
         @ApiResponse(responseCode = "201", description = "Process instance started successfully"),
+        @ApiResponse(responseCode = "202", description = "Start accepted for asynchronous execution"),
         @ApiResponse(responseCode = "400", description = "Invalid request"),
         @ApiResponse(responseCode = "404", description = "Workflow not found or not deployed"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<ProcessInstanceResponse> startProcess(
-            @Valid @RequestBody StartProcessRequest request) throws WorkflowException {
+    public ResponseEntity<?> startProcess(
+            @Valid @RequestBody StartProcessRequest request,
+            @Parameter(description = "Set to respond-async to start the process in the background")
+            @RequestHeader(value = AsyncResponses.PREFER_HEADER, required = false) String prefer,
+            @Parameter(description = "Deduplicates asynchronous resubmissions")
+            @RequestHeader(value = AsyncResponses.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) throws WorkflowException {
+        
+        if (AsyncResponses.isRespondAsync(prefer)) {
+            log.info("Queueing process start for workflow: {}", request.getProcessDefinitionKey());
+            return AsyncResponses.accepted(asyncCommandService.submitStartProcess(request, idempotencyKey));
+        }
         
         log.info("Starting process instance for workflow: {}", request.getProcessDefinitionKey());
         ProcessInstanceResponse response = processInstanceService.startProcess(request);
@@ -43,19 +70,67 @@ public class ProcessInstanceController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
     
+    @PostMapping(value = "/start-batch",
+                 consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+                 produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Start many process instances", 
+              description = "Start process instances from a JSON array or an NDJSON stream of start requests. " +
+                            "Requests run in chunks, one transaction per chunk, and one result line per request " +
+                            "is streamed back in request order while the batch runs.",
+              requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
+                  @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                           array = @ArraySchema(schema = @Schema(implementation = StartProcessRequest.class))),
+                  @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                           schema = @Schema(implementation = StartProcessRequest.class))
+              }))
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Batch accepted; per-request results are streamed",
+                     content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                        schema = @Schema(implementation = ProcessStartBatchResult.class)))
+    })
+    public ResponseEntity<StreamingResponseBody> startProcessBatch(HttpServletRequest request) {
+        
+        log.info("Starting batch of process instances");
+        StreamingResponseBody body = output -> processInstanceBatchService.startBatch(request.getInputStream(), output);
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+    
     @GetMapping("/{processInstanceId}")
     @Operation(summary = "Get process instance details", 
-              description = "Retrieve details of a specific process instance")
+              description = "Retrieve details of a specific process instance. Use variables= to load only named " +
+                            "variables (or none) and fields= to return only selected properties; status polls that " +
+                            "skip variables avoid loading large variable values.")
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Process instance found"),
+        @ApiResponse(responseCode = "400", description = "Unknown field requested"),
         @ApiResponse(responseCode = "404", description = "Process instance not found")
     })
-    public ResponseEntity<ProcessInstanceResponse> getProcessInstance(
+    public ResponseEntity<?> getProcessInstance(
             @Parameter(description = "Process instance ID", required = true)
-            @PathVariable String processInstanceId) {
+            @PathVariable String processInstanceId,
+            @Parameter(description = "Comma-separated variable names to load, or 'none'; all variables when omitted",
+                       example = "caseId,decision")
+            @RequestParam(required = false) String variables,
+            @Parameter(description = "Comma-separated response properties to return; all when omitted",
+                       example = "processInstanceId,active,endTime")
+            @RequestParam(required = false) String fields) throws WorkflowException {
+        
+        Set<String> selectedFields = FieldSelection.parse(fields);
+        Set<String> variableNames = "none".equalsIgnoreCase(variables) ? Set.of() : FieldSelection.parse(variables);
+        if (selectedFields != null && !selectedFields.contains("variables")) {
+            // Variables are not returned, so do not load them
+            variableNames = Set.of();
+        }
         
         log.info("Getting process instance: {}", processInstanceId);
-        ProcessInstanceResponse response = processInstanceService.getProcessInstance(processInstanceId);
+        ProcessInstanceResponse response = processInstanceService.getProcessInstance(processInstanceId, variableNames);
+        
+        if (selectedFields != null) {
+            return ResponseEntity.ok(FieldSelection.apply(objectMapper, response, selectedFields));
+        }
         
         return ResponseEntity.ok(response);
     }
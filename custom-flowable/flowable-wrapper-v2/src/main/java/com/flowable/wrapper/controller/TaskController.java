@@ -1,10 +1,17 @@
 package com.flowable.wrapper.controller;
 
+import com.flowable.wrapper.dto.request.BulkTaskRequest;
 import com.flowable.wrapper.dto.request.CompleteTaskRequest;
+import com.flowable.wrapper.dto.response.BulkTaskResponse;
+import com.flowable.wrapper.dto.response.QueueTaskPageResponse;
 import com.flowable.wrapper.dto.response.QueueTaskResponse;
 import com.flowable.wrapper.dto.response.TaskCompletionResponse;
 import com.flowable.wrapper.dto.response.TaskDetailResponse;
+import com.flowable.wrapper.enums.BulkTaskOperation;
 import com.flowable.wrapper.exception.WorkflowException;
+import com.flowable.wrapper.model.TaskDetailInclude;
+import com.flowable.wrapper.service.AsyncCommandService;
+import com.flowable.wrapper.service.BulkTaskService;
 import com.flowable.wrapper.service.TaskService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -27,55 +34,87 @@ import java.util.List;
 public class TaskController {
     
     private final TaskService taskService;
+    private final BulkTaskService bulkTaskService;
+    private final AsyncCommandService asyncCommandService;
     
     @GetMapping("/queue/{queueName}")
     @Operation(summary = "Get tasks by queue", 
-              description = "Retrieve all open tasks from a specific queue")
+              description = "Retrieve one page of open tasks from a specific queue (highest priority, oldest first). " +
+                            "Pass the returned nextCursor to fetch the following page.")
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Tasks retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor or page size"),
         @ApiResponse(responseCode = "404", description = "Queue not found")
     })
-    public ResponseEntity<List<QueueTaskResponse>> getTasksByQueue(
+    public ResponseEntity<QueueTaskPageResponse> getTasksByQueue(
             @Parameter(description = "Queue name", required = true)
             @PathVariable String queueName,
             @Parameter(description = "Include only unassigned tasks")
-            @RequestParam(required = false, defaultValue = "false") boolean unassignedOnly) {
+            @RequestParam(required = false, defaultValue = "false") boolean unassignedOnly,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (capped server-side)")
+            @RequestParam(required = false) Integer size,
+            @Parameter(description = "Include an approximate total, counted up to the configured cap")
+            @RequestParam(required = false, defaultValue = "false") boolean includeCount) throws WorkflowException {
         
-        log.info("Getting tasks for queue: {}, unassignedOnly: {}", queueName, unassignedOnly);
-        List<QueueTaskResponse> tasks = taskService.getTasksByQueue(queueName, unassignedOnly);
+        log.info("Getting tasks for queue: {}, unassignedOnly: {}, size: {}", queueName, unassignedOnly, size);
+        QueueTaskPageResponse page = taskService.getTasksByQueue(queueName, unassignedOnly, cursor, size, includeCount);
         
-        return ResponseEntity.ok(tasks);
+        return ResponseEntity.ok(page);
     }
     
     @GetMapping("/my-tasks")
     @Operation(summary = "Get my tasks", 
-              description = "Retrieve all tasks assigned to the current user")
+              description = "Retrieve one page of tasks assigned to the current user. " +
+                            "Pass the returned nextCursor to fetch the following page.")
     @ApiResponses({
-        @ApiResponse(responseCode = "200", description = "Tasks retrieved successfully")
+        @ApiResponse(responseCode = "200", description = "Tasks retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor or page size")
     })
-    public ResponseEntity<List<QueueTaskResponse>> getMyTasks(
+    public ResponseEntity<QueueTaskPageResponse> getMyTasks(
             @Parameter(description = "User ID", required = true)
-            @RequestParam String userId) {
+            @RequestParam String userId,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (capped server-side)")
+            @RequestParam(required = false) Integer size,
+            @Parameter(description = "Include an approximate total, counted up to the configured cap")
+            @RequestParam(required = false, defaultValue = "false") boolean includeCount) throws WorkflowException {
         
-        log.info("Getting tasks for user: {}", userId);
-        List<QueueTaskResponse> tasks = taskService.getTasksByAssignee(userId);
+        log.info("Getting tasks for user: {}, size: {}", userId, size);
+        QueueTaskPageResponse page = taskService.getTasksByAssignee(userId, cursor, size, includeCount);
         
-        return ResponseEntity.ok(tasks);
+        return ResponseEntity.ok(page);
     }
     
     @GetMapping("/{taskId}")
     @Operation(summary = "Get task details", 
-              description = "Retrieve detailed task information including form data")
+              description = "Retrieve detailed task information including form data. Use include= to load only " +
+                            "some of the form, taskVariables and processVariables sections; everything is loaded " +
+                            "in one engine command and unrequested sections are skipped.")
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Task details retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Unknown section requested"),
         @ApiResponse(responseCode = "404", description = "Task not found")
     })
     public ResponseEntity<TaskDetailResponse> getTaskDetails(
             @Parameter(description = "Task ID", required = true)
-            @PathVariable String taskId) throws WorkflowException {
+            @PathVariable String taskId,
+            @Parameter(description = "Comma-separated sections to load; processVariables:name,... loads only the named " +
+                                     "process variables. All sections when omitted, none when empty",
+                       example = "form,taskVariables,processVariables:caseId,matches")
+            @RequestParam(required = false) String include) throws WorkflowException {
+        
+        TaskDetailInclude sections;
+        try {
+            sections = TaskDetailInclude.parse(include);
+        } catch (IllegalArgumentException e) {
+            throw new WorkflowException("INVALID_INCLUDE", e.getMessage());
+        }
         
         log.info("Getting task details for task: {}", taskId);
-        TaskDetailResponse taskDetails = taskService.getTaskDetails(taskId);
+        TaskDetailResponse taskDetails = taskService.getTaskDetails(taskId, sections);
         
         return ResponseEntity.ok(taskDetails);
     }
@@ -102,17 +141,29 @@ public class TaskController {
     
     @PostMapping("/{taskId}/complete")
     @Operation(summary = "Complete a task", 
-              description = "Complete a task with optional variables")
+              description = "Complete a task with optional variables. With 'Prefer: respond-async' the completion " +
+                            "is queued and 202 is returned with a status URL; resubmissions with the same " +
+                            "Idempotency-Key return the original command.")
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Task completed successfully"),
+        @ApiResponse(responseCode = "202", description = "Completion accepted for asynchronous execution"),
         @ApiResponse(responseCode = "400", description = "Invalid request"),
         @ApiResponse(responseCode = "404", description = "Task not found"),
         @ApiResponse(responseCode = "403", description = "User not authorized to complete this task")
     })
-    public ResponseEntity<TaskCompletionResponse> completeTask(
+    public ResponseEntity<?> completeTask(
             @Parameter(description = "Task ID", required = true)
             @PathVariable String taskId,
-            @Valid @RequestBody(required = false) CompleteTaskRequest request) throws WorkflowException {
+            @Valid @RequestBody(required = false) CompleteTaskRequest request,
+            @Parameter(description = "Set to respond-async to complete the task in the background")
+            @RequestHeader(value = AsyncResponses.PREFER_HEADER, required = false) String prefer,
+            @Parameter(description = "Deduplicates asynchronous resubmissions")
+            @RequestHeader(value = AsyncResponses.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) throws WorkflowException {
+        
+        if (AsyncResponses.isRespondAsync(prefer)) {
+            log.info("Queueing completion of task: {}", taskId);
+            return AsyncResponses.accepted(asyncCommandService.submitCompleteTask(taskId, request, idempotencyKey));
+        }
         
         log.info("Completing task: {}", taskId);
         TaskCompletionResponse response = taskService.completeTask(taskId, request);
@@ -137,6 +188,33 @@ public class TaskController {
         return ResponseEntity.ok(task);
     }
     
+    @PostMapping("/queue/{queueName}/claim-next")
+    @Operation(summary = "Claim next tasks from queue", 
+              description = "Atomically claim up to 'count' unassigned tasks from a queue (highest priority, oldest first). " +
+                            "Concurrent callers never receive the same task.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Tasks claimed successfully"),
+        @ApiResponse(responseCode = "204", description = "No available tasks in queue"),
+        @ApiResponse(responseCode = "400", description = "Count below 1 or above the maximum, or claim failed")
+    })
+    public ResponseEntity<List<QueueTaskResponse>> claimNextTasks(
+            @Parameter(description = "Queue name", required = true)
+            @PathVariable String queueName,
+            @Parameter(description = "User ID", required = true)
+            @RequestParam String userId,
+            @Parameter(description = "Maximum number of tasks to claim, at most tasks.claim-next.max-count (50 by default)")
+            @RequestParam(required = false, defaultValue = "1") int count) throws WorkflowException {
+        
+        log.info("User {} claiming next {} tasks from queue: {}", userId, count, queueName);
+        List<QueueTaskResponse> tasks = taskService.claimNextTasks(queueName, userId, count);
+        
+        if (tasks.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        
+        return ResponseEntity.ok(tasks);
+    }
+    
     @GetMapping("/queue/{queueName}/next")
     @Operation(summary = "Get next available task from queue", 
               description = "Retrieve the next unassigned task from a specific queue (highest priority, oldest first)")
@@ -158,4 +236,57 @@ public class TaskController {
         
         return ResponseEntity.ok(nextTask);
     }
-}
\ No newline at end of file
+    
+    @PostMapping("/bulk/claim")
+    @Operation(summary = "Claim many tasks", 
+              description = "Claim a list of tasks for userId. Tasks are processed in chunks, one transaction per chunk; " +
+                            "every task gets its own result and a failing task does not fail the others.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Request processed; see per-task results"),
+        @ApiResponse(responseCode = "400", description = "Invalid request or too many tasks")
+    })
+    public ResponseEntity<BulkTaskResponse> bulkClaimTasks(
+            @Valid @RequestBody BulkTaskRequest request) throws WorkflowException {
+        
+        log.info("Bulk claim of {} tasks", request.getItems().size());
+        BulkTaskResponse response = bulkTaskService.execute(BulkTaskOperation.CLAIM, request);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    
+    @PostMapping("/bulk/unclaim")
+    @Operation(summary = "Unclaim many tasks", 
+              description = "Release a list of tasks back to their queues. Tasks are processed in chunks, one transaction per chunk; " +
+                            "every task gets its own result and a failing task does not fail the others.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Request processed; see per-task results"),
+        @ApiResponse(responseCode = "400", description = "Invalid request or too many tasks")
+    })
+    public ResponseEntity<BulkTaskResponse> bulkUnclaimTasks(
+            @Valid @RequestBody BulkTaskRequest request) throws WorkflowException {
+        
+        log.info("Bulk unclaim of {} tasks", request.getItems().size());
+        BulkTaskResponse response = bulkTaskService.execute(BulkTaskOperation.UNCLAIM, request);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    
+    @PostMapping("/bulk/complete")
+    @Operation(summary = "Complete many tasks", 
+              description = "Complete a list of claimed tasks, each with its own variables. Tasks are processed in chunks, one transaction per chunk; " +
+                            "every task gets its own result and a failing task does not fail the others.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Request processed; see per-task results"),
+        @ApiResponse(responseCode = "400", description = "Invalid request or too many tasks")
+    })
+    public ResponseEntity<BulkTaskResponse> bulkCompleteTasks(
+            @Valid @RequestBody BulkTaskRequest request) throws WorkflowException {
+        
+        log.info("Bulk complete of {} tasks", request.getItems().size());
+        BulkTaskResponse response = bulkTaskService.execute(BulkTaskOperation.COMPLETE, request);
+        
+        return ResponseEntity.ok(response);
+    }
+}
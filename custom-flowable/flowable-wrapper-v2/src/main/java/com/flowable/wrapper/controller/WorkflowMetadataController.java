@@ -2,8 +2,10 @@ package com.flowable.wrapper.controller;
 
 import com.flowable.wrapper.dto.request.DeployWorkflowRequest;
 import com.flowable.wrapper.dto.request.RegisterWorkflowMetadataRequest;
+import com.flowable.wrapper.dto.response.DeployAllResponse;
 import com.flowable.wrapper.dto.response.WorkflowMetadataResponse;
 import com.flowable.wrapper.exception.WorkflowException;
+import com.flowable.wrapper.service.WorkflowDefinitionsDeployService;
 import com.flowable.wrapper.service.WorkflowMetadataService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -25,6 +27,7 @@ import org.springframework.web.bind.annotation.*;
 public class WorkflowMetadataController {
     
     private final WorkflowMetadataService workflowMetadataService;
+    private final WorkflowDefinitionsDeployService workflowDefinitionsDeployService;
     
     @PostMapping("/register")
     @Operation(summary = "Register workflow metadata", 
@@ -96,4 +99,22 @@ public class WorkflowMetadataController {
         
         return ResponseEntity.ok(response);
     }
+    
+    @PostMapping("/deploy-all")
+    @Operation(summary = "Deploy all BPMN files of the definitions directory", 
+              description = "Parse and validate every BPMN file of the configured definitions directory in parallel, " +
+                          "skip files whose content hash matches the current deployment and deploy the changed ones. " +
+                          "Returns per-file status and timings.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Directory processed; see per-file results for failures"),
+        @ApiResponse(responseCode = "404", description = "Definitions directory not found"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<DeployAllResponse> deployAll() throws WorkflowException {
+        
+        log.info("Deploying all workflows from the definitions directory");
+        DeployAllResponse response = workflowDefinitionsDeployService.deployAll();
+        
+        return ResponseEntity.ok(response);
+    }
 }
\ No newline at end of file
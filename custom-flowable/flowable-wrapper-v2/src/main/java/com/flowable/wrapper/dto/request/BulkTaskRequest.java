@@ -0,0 +1,46 @@
+package com.flowable.wrapper.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Request to claim, unclaim or complete many tasks at once")
+public class BulkTaskRequest {
+    
+    @Schema(description = "User performing the operation; required for claim, checked against the assignee for complete",
+            example = "john.doe")
+    private String userId;
+    
+    @NotEmpty(message = "At least one task is required")
+    @Valid
+    @Schema(description = "Tasks to process, in order", required = true)
+    private List<Item> items;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "A single task of a bulk request")
+    public static class Item {
+        
+        @NotBlank(message = "Task ID is required")
+        @Schema(description = "Task ID", example = "5d7e9c3a-1234-5678-9abc-def012345678", required = true)
+        private String taskId;
+        
+        @Schema(description = "Variables to set when completing the task (complete only)",
+                example = "{\"approved\": true}")
+        private Map<String, Object> variables;
+    }
+}
@@ -33,6 +33,8 @@ public class RegisterWorkflowMetadataRequest {
             example = "{\"managers\": \"default\", \"finance\": \"finance-queue\"}")
     private Map<String, String> candidateGroupMappings;
     
-    @Schema(description = "Additional metadata for the workflow")
+    @Schema(description = "Additional metadata for the workflow; an optional 'history' entry sets the per-workflow history level and variable filters, "
+                    + "an optional 'taskValidation' entry declares completion payload rules per task",
+            example = "{\"history\": {\"level\": \"activity\", \"excludeVariables\": [\"matches\"]}}")
     private Map<String, Object> metadata;
 }
\ No newline at end of file
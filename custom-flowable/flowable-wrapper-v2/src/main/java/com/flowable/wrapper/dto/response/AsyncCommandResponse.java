@@ -0,0 +1,56 @@
+package com.flowable.wrapper.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Status of an asynchronously executed start or complete request")
+public class AsyncCommandResponse {
+    
+    @Schema(description = "Command ID", example = "7f3e2a1b-1234-5678-9abc-def012345678")
+    private String commandId;
+    
+    @Schema(description = "Idempotency key the command was submitted with", example = "screening-2024-06-01-000123")
+    private String idempotencyKey;
+    
+    @Schema(description = "Command type", example = "START_PROCESS")
+    private String commandType;
+    
+    @Schema(description = "Task ID for COMPLETE_TASK commands", example = "5d7e9c3a-1234-5678-9abc-def012345678")
+    private String targetId;
+    
+    @Schema(description = "PENDING, RUNNING, SUCCEEDED or FAILED", example = "PENDING")
+    private String status;
+    
+    @Schema(description = "Number of execution attempts so far", example = "1")
+    private int attempts;
+    
+    @Schema(description = "Response of the executed request (ProcessInstanceResponse or TaskCompletionResponse)")
+    private Map<String, Object> result;
+    
+    @Schema(description = "Error code of the last failure", example = "COMPLETE_FAILED")
+    private String errorCode;
+    
+    @Schema(description = "Error message of the last failure")
+    private String errorMessage;
+    
+    @Schema(description = "URL to poll for the command status", example = "/api/async-commands/7f3e2a1b-1234-5678-9abc-def012345678")
+    private String statusUrl;
+    
+    @Schema(description = "When the command was accepted")
+    private Instant createdAt;
+    
+    @Schema(description = "When the command status last changed")
+    private Instant updatedAt;
+}
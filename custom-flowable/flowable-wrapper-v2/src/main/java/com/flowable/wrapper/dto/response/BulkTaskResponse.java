@@ -0,0 +1,65 @@
+package com.flowable.wrapper.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Per-task outcome of a bulk task operation")
+public class BulkTaskResponse {
+    
+    @Schema(description = "Operation that was executed", example = "complete")
+    private String operation;
+    
+    @Schema(description = "Number of tasks in the request", example = "120")
+    private int requested;
+    
+    @Schema(description = "Number of tasks processed successfully", example = "118")
+    private int succeeded;
+    
+    @Schema(description = "Number of tasks that failed", example = "2")
+    private int failed;
+    
+    @Schema(description = "One result per requested task, in request order")
+    private List<ItemResult> results;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(description = "Outcome for a single task")
+    public static class ItemResult {
+        
+        @Schema(description = "Task ID", example = "5d7e9c3a-1234-5678-9abc-def012345678")
+        private String taskId;
+        
+        @Schema(description = "Whether the operation succeeded for this task", example = "true")
+        private boolean success;
+        
+        @Schema(description = "Error code when the operation failed", example = "TASK_ALREADY_ASSIGNED")
+        private String errorCode;
+        
+        @Schema(description = "Error message when the operation failed", example = "Task is already assigned to: jane.doe")
+        private String message;
+        
+        @Schema(description = "Task state after the operation")
+        private QueueTaskResponse task;
+        
+        public static ItemResult success(String taskId, QueueTaskResponse task) {
+            return ItemResult.builder().taskId(taskId).success(true).task(task).build();
+        }
+        
+        public static ItemResult failure(String taskId, String errorCode, String message) {
+            return ItemResult.builder().taskId(taskId).success(false).errorCode(errorCode).message(message).build();
+        }
+    }
+}
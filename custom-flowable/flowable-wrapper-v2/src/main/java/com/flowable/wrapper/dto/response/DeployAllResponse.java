@@ -0,0 +1,72 @@
+package com.flowable.wrapper.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Per-file outcome of deploying the definitions directory")
+public class DeployAllResponse {
+    
+    @Schema(description = "Directory that was scanned", example = "/app/definitions")
+    private String directory;
+    
+    @Schema(description = "Number of BPMN files found", example = "12")
+    private int files;
+    
+    @Schema(description = "Number of files deployed as a new Flowable deployment", example = "2")
+    private int deployed;
+    
+    @Schema(description = "Number of files skipped because their content hash matches the current deployment", example = "9")
+    private int unchanged;
+    
+    @Schema(description = "Number of files that failed to parse, validate or deploy, or have no registered workflow", example = "1")
+    private int failed;
+    
+    @Schema(description = "Total wall-clock time of the operation in milliseconds", example = "840")
+    private long totalMillis;
+    
+    @Schema(description = "One result per file, in file name order")
+    private List<FileResult> results;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(description = "Outcome for a single BPMN file")
+    public static class FileResult {
+        
+        @Schema(description = "File name within the definitions directory", example = "sanctions-l1-l2.bpmn20.xml")
+        private String filename;
+        
+        @Schema(description = "Process definition key found in the file", example = "SanctionsL1L2Flow")
+        private String processDefinitionKey;
+        
+        @Schema(description = "DEPLOYED, UNCHANGED or FAILED", example = "DEPLOYED")
+        private String status;
+        
+        @Schema(description = "Flowable deployment now serving the workflow")
+        private String deploymentId;
+        
+        @Schema(description = "Time spent reading, hashing, parsing and validating the file in milliseconds", example = "35")
+        private Long parseMillis;
+        
+        @Schema(description = "Time spent deploying the file and rebuilding its task queue mappings in milliseconds", example = "210")
+        private Long deployMillis;
+        
+        @Schema(description = "Error code when the file failed", example = "INVALID_BPMN")
+        private String errorCode;
+        
+        @Schema(description = "Error message when the file failed")
+        private String message;
+    }
+}
@@ -0,0 +1,38 @@
+package com.flowable.wrapper.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Outcome of one start request of a batch, written as one NDJSON line")
+public class ProcessStartBatchResult {
+    
+    @Schema(description = "Zero-based position of the request in the batch", example = "0")
+    private int index;
+    
+    @Schema(description = "Whether the process instance was started", example = "true")
+    private boolean success;
+    
+    @Schema(description = "The process definition key of the request", example = "SanctionsL1L2Flow")
+    private String processDefinitionKey;
+    
+    @Schema(description = "Business key of the request", example = "CASE-2024-001")
+    private String businessKey;
+    
+    @Schema(description = "ID of the started process instance", example = "2b3c4d5e-1234-5678-9abc-def012345678")
+    private String processInstanceId;
+    
+    @Schema(description = "Error code when the start failed", example = "WORKFLOW_NOT_DEPLOYED")
+    private String errorCode;
+    
+    @Schema(description = "Error message when the start failed")
+    private String message;
+}
@@ -0,0 +1,37 @@
+package com.flowable.wrapper.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "One page of queue tasks with a cursor to the next page")
+public class QueueTaskPageResponse {
+
+    @Schema(description = "Tasks on this page, highest priority and oldest first")
+    private List<QueueTaskResponse> items;
+
+    @Schema(description = "Opaque cursor for the next page; absent on the last page", example = "djF8NTB8MjAyNC0wMS0xNVQxMDozMDowMFp8NWQ3ZTljM2E")
+    private String nextCursor;
+
+    @Schema(description = "Whether more tasks follow this page", example = "true")
+    private boolean hasMore;
+
+    @Schema(description = "Effective page size after applying the server-side cap", example = "50")
+    private int pageSize;
+
+    @Schema(description = "Number of matching tasks, counted up to the configured cap (only when includeCount=true)", example = "1234")
+    private Long approximateTotal;
+
+    @Schema(description = "True when approximateTotal hit the count cap and the real total is larger", example = "false")
+    private Boolean totalCapped;
+}
@@ -59,4 +59,7 @@ public class WorkflowMetadataResponse {
     
     @Schema(description = "Deployment ID from Flowable if deployed")
     private String deploymentId;
+    
+    @Schema(description = "SHA-256 of the deployed BPMN XML")
+    private String contentHash;
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.flowable.wrapper.entity;
+
+import com.flowable.wrapper.enums.AsyncCommandStatus;
+import com.flowable.wrapper.enums.AsyncCommandType;
+import io.hypersistence.utils.hibernate.type.json.JsonBinaryType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Type;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A start or complete request accepted for asynchronous execution.
+ * Rows are inserted by AsyncCommandService with ON CONFLICT on the idempotency key, never through save().
+ */
+@Entity
+@Table(name = "async_commands")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+@ToString(exclude = {"payload", "result"})
+public class AsyncCommand {
+    
+    @Id
+    @Column(name = "id")
+    private String id;
+    
+    @Column(name = "idempotency_key", nullable = false, unique = true)
+    private String idempotencyKey;
+    
+    @Column(name = "command_type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private AsyncCommandType commandType;
+    
+    @Column(name = "target_id")
+    private String targetId;
+    
+    @Type(JsonBinaryType.class)
+    @Column(name = "payload", columnDefinition = "jsonb")
+    private Map<String, Object> payload;
+    
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private AsyncCommandStatus status;
+    
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+    
+    @Type(JsonBinaryType.class)
+    @Column(name = "result", columnDefinition = "jsonb")
+    private Map<String, Object> result;
+    
+    @Column(name = "error_code")
+    private String errorCode;
+    
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+    
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+    
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+    
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+}
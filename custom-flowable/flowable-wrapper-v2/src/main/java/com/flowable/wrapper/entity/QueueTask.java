@@ -6,20 +6,25 @@ import io.hypersistence.utils.hibernate.type.json.JsonBinaryType;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.Type;
+import org.springframework.data.domain.Persistable;
 
 import java.time.Instant;
 import java.util.Map;
 
 @Entity
 @Table(name = "queue_tasks")
+@IdClass(QueueTaskId.class)
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@EqualsAndHashCode(of = "taskId")
+@EqualsAndHashCode(of = {"taskId", "queueName"})
 @ToString(exclude = "taskData")
-public class QueueTask {
+public class QueueTask implements Persistable<QueueTaskId> {
     
+    // The table's primary key is (task_id, queue_name), as the partition key has to be part of it, and rows are
+    // identified by both here too. findById reads only the queue's partition; a lookup by task_id alone
+    // (QueueTaskRepository.findByTaskId) cannot be pruned and probes the index of every partition.
     @Id
     @Column(name = "task_id")
     private String taskId;
@@ -36,9 +41,13 @@ public class QueueTask {
     @Column(name = "task_name", nullable = false)
     private String taskName;
     
+    @Id
     @Column(name = "queue_name", nullable = false)
     private String queueName;
     
+    @Column(name = "business_key")
+    private String businessKey;
+    
     @Column(name = "assignee")
     private String assignee;
     
@@ -65,6 +74,14 @@ public class QueueTask {
     @Column(name = "task_data", columnDefinition = "jsonb")
     private Map<String, Object> taskData;
     
+    // The ID is assigned from the Flowable task, so Spring Data cannot tell new rows apart by a null ID.
+    // Tracking it here lets save() persist new rows directly instead of merging (SELECT before INSERT).
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newEntity = true;
+    
     @PrePersist
     protected void onCreate() {
         if (createdAt == null) {
@@ -78,6 +95,24 @@ public class QueueTask {
         }
     }
     
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        newEntity = false;
+    }
+    
+    @Override
+    @JsonIgnore
+    public QueueTaskId getId() {
+        return new QueueTaskId(taskId, queueName);
+    }
+    
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return newEntity;
+    }
+    
     @JsonIgnore
     public boolean isOpen() {
         return TaskStatus.OPEN.equals(status);
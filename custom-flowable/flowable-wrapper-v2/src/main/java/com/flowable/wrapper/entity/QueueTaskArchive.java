@@ -0,0 +1,73 @@
+package com.flowable.wrapper.entity;
+
+import com.flowable.wrapper.enums.TaskStatus;
+import io.hypersistence.utils.hibernate.type.json.JsonBinaryType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Type;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Read-only view of a completed queue task moved out of queue_tasks by QueueTaskArchiveService.
+ * Rows are written only by the mover's INSERT ... SELECT, never through JPA.
+ */
+@Entity
+@Immutable
+@Table(name = "queue_tasks_archive")
+@Getter
+@NoArgsConstructor
+@EqualsAndHashCode(of = "taskId")
+@ToString(exclude = "taskData")
+public class QueueTaskArchive {
+    
+    @Id
+    @Column(name = "task_id")
+    private String taskId;
+    
+    @Column(name = "process_instance_id", nullable = false)
+    private String processInstanceId;
+    
+    @Column(name = "process_definition_key", nullable = false)
+    private String processDefinitionKey;
+    
+    @Column(name = "task_definition_key", nullable = false)
+    private String taskDefinitionKey;
+    
+    @Column(name = "task_name", nullable = false)
+    private String taskName;
+    
+    @Column(name = "queue_name", nullable = false)
+    private String queueName;
+    
+    @Column(name = "business_key")
+    private String businessKey;
+    
+    @Column(name = "assignee")
+    private String assignee;
+    
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private TaskStatus status;
+    
+    @Column(name = "priority")
+    private Integer priority;
+    
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+    
+    @Column(name = "claimed_at")
+    private Instant claimedAt;
+    
+    @Column(name = "completed_at", nullable = false)
+    private Instant completedAt;
+    
+    @Type(JsonBinaryType.class)
+    @Column(name = "task_data", columnDefinition = "jsonb")
+    private Map<String, Object> taskData;
+    
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+}
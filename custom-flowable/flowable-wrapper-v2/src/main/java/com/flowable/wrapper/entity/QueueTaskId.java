@@ -0,0 +1,20 @@
+package com.flowable.wrapper.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Primary key of queue_tasks: the task and the queue whose partition holds its row
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueTaskId implements Serializable {
+    
+    private String taskId;
+    
+    private String queueName;
+}
@@ -63,6 +63,9 @@ public class WorkflowMetadata {
     @Column(name = "deployment_id")
     private String deploymentId;
     
+    @Column(name = "content_hash")
+    private String contentHash;  // SHA-256 of the deployed BPMN XML
+    
     @Column(name = "created_by", nullable = false)
     @Builder.Default
     private String createdBy = "system";
@@ -0,0 +1,23 @@
+package com.flowable.wrapper.enums;
+
+public enum AsyncCommandStatus {
+    PENDING("PENDING"),
+    RUNNING("RUNNING"),
+    SUCCEEDED("SUCCEEDED"),
+    FAILED("FAILED");
+    
+    private final String value;
+    
+    AsyncCommandStatus(String value) {
+        this.value = value;
+    }
+    
+    public String getValue() {
+        return value;
+    }
+    
+    @Override
+    public String toString() {
+        return value;
+    }
+}
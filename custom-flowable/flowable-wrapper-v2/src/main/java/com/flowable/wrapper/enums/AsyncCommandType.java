@@ -0,0 +1,21 @@
+package com.flowable.wrapper.enums;
+
+public enum AsyncCommandType {
+    START_PROCESS("START_PROCESS"),
+    COMPLETE_TASK("COMPLETE_TASK");
+    
+    private final String value;
+    
+    AsyncCommandType(String value) {
+        this.value = value;
+    }
+    
+    public String getValue() {
+        return value;
+    }
+    
+    @Override
+    public String toString() {
+        return value;
+    }
+}
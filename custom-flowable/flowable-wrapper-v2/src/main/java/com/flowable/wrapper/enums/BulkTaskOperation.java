@@ -0,0 +1,22 @@
+package com.flowable.wrapper.enums;
+
+public enum BulkTaskOperation {
+    CLAIM("claim"),
+    UNCLAIM("unclaim"),
+    COMPLETE("complete");
+    
+    private final String value;
+    
+    BulkTaskOperation(String value) {
+        this.value = value;
+    }
+    
+    public String getValue() {
+        return value;
+    }
+    
+    @Override
+    public String toString() {
+        return value;
+    }
+}
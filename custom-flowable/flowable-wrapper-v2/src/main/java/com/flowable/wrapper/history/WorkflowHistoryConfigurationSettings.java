@@ -0,0 +1,40 @@
+package com.flowable.wrapper.history;
+
+import com.flowable.wrapper.service.WorkflowRoutingCache;
+import org.flowable.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.flowable.engine.impl.history.DefaultHistoryConfigurationSettings;
+import org.flowable.engine.impl.util.ProcessDefinitionUtil;
+import org.flowable.engine.repository.ProcessDefinition;
+import org.flowable.variable.service.impl.persistence.entity.VariableInstanceEntity;
+
+/**
+ * Engine history settings that additionally apply the variable include/exclude lists of a workflow's
+ * history policy, so filtered variables never reach ACT_HI_VARINST or ACT_HI_DETAIL.
+ * The level itself is resolved by the engine from the definition (see WorkflowHistoryParseHandler).
+ */
+public class WorkflowHistoryConfigurationSettings extends DefaultHistoryConfigurationSettings {
+    
+    private final WorkflowRoutingCache workflowRoutingCache;
+    
+    public WorkflowHistoryConfigurationSettings(ProcessEngineConfigurationImpl processEngineConfiguration,
+                                                WorkflowRoutingCache workflowRoutingCache) {
+        super(processEngineConfiguration);
+        this.workflowRoutingCache = workflowRoutingCache;
+    }
+    
+    @Override
+    public boolean isHistoryEnabledForVariableInstance(String processDefinitionId, VariableInstanceEntity variableInstanceEntity) {
+        if (!super.isHistoryEnabledForVariableInstance(processDefinitionId, variableInstanceEntity)) {
+            return false;
+        }
+        if (processDefinitionId == null) {
+            return true;
+        }
+        
+        ProcessDefinition processDefinition = ProcessDefinitionUtil.getProcessDefinition(processDefinitionId);
+        
+        return workflowRoutingCache.getWorkflow(processDefinition.getKey())
+                .map(workflow -> workflow.getHistory().isVariableRecorded(variableInstanceEntity.getName()))
+                .orElse(true);
+    }
+}
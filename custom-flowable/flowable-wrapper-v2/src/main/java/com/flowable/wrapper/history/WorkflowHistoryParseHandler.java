@@ -0,0 +1,59 @@
+package com.flowable.wrapper.history;
+
+import com.flowable.wrapper.model.CompiledWorkflow;
+import com.flowable.wrapper.model.WorkflowHistoryPolicy;
+import com.flowable.wrapper.service.WorkflowRoutingCache;
+import lombok.extern.slf4j.Slf4j;
+import org.flowable.bpmn.constants.BpmnXMLConstants;
+import org.flowable.bpmn.model.BaseElement;
+import org.flowable.bpmn.model.ExtensionElement;
+import org.flowable.bpmn.model.Process;
+import org.flowable.engine.impl.bpmn.parser.BpmnParse;
+import org.flowable.engine.impl.bpmn.parser.handler.AbstractBpmnParseHandler;
+
+/**
+ * Stamps the history level declared in a workflow's metadata onto its BPMN process as the
+ * flowable:historyLevel extension, which is what the engine reads for per-definition history.
+ * Runs whenever a definition is parsed (deploy and deployment cache reload), so the parsed model
+ * always carries the level of the registered workflow. A level set explicitly in the BPMN wins.
+ */
+@Slf4j
+public class WorkflowHistoryParseHandler extends AbstractBpmnParseHandler<Process> {
+    
+    static final String HISTORY_LEVEL_EXTENSION = "historyLevel";
+    
+    private final WorkflowRoutingCache workflowRoutingCache;
+    
+    public WorkflowHistoryParseHandler(WorkflowRoutingCache workflowRoutingCache) {
+        this.workflowRoutingCache = workflowRoutingCache;
+    }
+    
+    @Override
+    protected Class<? extends BaseElement> getHandledType() {
+        return Process.class;
+    }
+    
+    @Override
+    protected void executeParse(BpmnParse bpmnParse, Process process) {
+        if (process.getExtensionElements().containsKey(HISTORY_LEVEL_EXTENSION)) {
+            return;
+        }
+        
+        String level = workflowRoutingCache.getWorkflow(process.getId())
+                .map(CompiledWorkflow::getHistory)
+                .map(WorkflowHistoryPolicy::getLevel)
+                .orElse(null);
+        if (level == null) {
+            return;
+        }
+        
+        ExtensionElement historyLevel = new ExtensionElement();
+        historyLevel.setName(HISTORY_LEVEL_EXTENSION);
+        historyLevel.setNamespace(BpmnXMLConstants.FLOWABLE_EXTENSIONS_NAMESPACE);
+        historyLevel.setNamespacePrefix(BpmnXMLConstants.FLOWABLE_EXTENSIONS_PREFIX);
+        historyLevel.setElementText(level);
+        process.addExtensionElement(historyLevel);
+        
+        log.debug("History level '{}' applied to process {}", level, process.getId());
+    }
+}
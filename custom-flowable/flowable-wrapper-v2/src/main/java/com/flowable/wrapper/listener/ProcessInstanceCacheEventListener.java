@@ -0,0 +1,96 @@
+package com.flowable.wrapper.listener;
+
+import com.flowable.wrapper.service.ProcessInstanceCache;
+import org.flowable.common.engine.api.delegate.event.FlowableEngineEntityEvent;
+import org.flowable.common.engine.api.delegate.event.FlowableEngineEventType;
+import org.flowable.engine.delegate.event.AbstractFlowableEngineEventListener;
+import org.flowable.engine.delegate.event.FlowableCancelledEvent;
+import org.flowable.engine.runtime.ProcessInstance;
+import org.flowable.variable.api.event.FlowableVariableEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Evicts cached active process instances whenever the engine changes them
+ */
+@Component
+public class ProcessInstanceCacheEventListener extends AbstractFlowableEngineEventListener {
+    
+    private final ProcessInstanceCache processInstanceCache;
+    
+    public ProcessInstanceCacheEventListener(ProcessInstanceCache processInstanceCache) {
+        super(Set.of(
+                FlowableEngineEventType.VARIABLE_CREATED,
+                FlowableEngineEventType.VARIABLE_UPDATED,
+                FlowableEngineEventType.VARIABLE_DELETED,
+                FlowableEngineEventType.ENTITY_SUSPENDED,
+                FlowableEngineEventType.ENTITY_ACTIVATED,
+                FlowableEngineEventType.PROCESS_COMPLETED,
+                FlowableEngineEventType.PROCESS_COMPLETED_WITH_TERMINATE_END_EVENT,
+                FlowableEngineEventType.PROCESS_COMPLETED_WITH_ERROR_END_EVENT,
+                FlowableEngineEventType.PROCESS_COMPLETED_WITH_ESCALATION_END_EVENT,
+                FlowableEngineEventType.PROCESS_CANCELLED));
+        this.processInstanceCache = processInstanceCache;
+    }
+    
+    @Override
+    protected void variableCreated(FlowableVariableEvent event) {
+        processInstanceCache.evictActiveAfterCompletion(event.getProcessInstanceId());
+    }
+    
+    @Override
+    protected void variableUpdatedEvent(FlowableVariableEvent event) {
+        processInstanceCache.evictActiveAfterCompletion(event.getProcessInstanceId());
+    }
+    
+    @Override
+    protected void variableDeletedEvent(FlowableVariableEvent event) {
+        processInstanceCache.evictActiveAfterCompletion(event.getProcessInstanceId());
+    }
+    
+    @Override
+    protected void entitySuspended(FlowableEngineEntityEvent event) {
+        if (event.getEntity() instanceof ProcessInstance) {
+            processInstanceCache.evictActiveAfterCompletion(event.getProcessInstanceId());
+        }
+    }
+    
+    @Override
+    protected void entityActivated(FlowableEngineEntityEvent event) {
+        if (event.getEntity() instanceof ProcessInstance) {
+            processInstanceCache.evictActiveAfterCompletion(event.getProcessInstanceId());
+        }
+    }
+    
+    @Override
+    protected void processCompleted(FlowableEngineEntityEvent event) {
+        processInstanceCache.evictActiveAfterCompletion(event.getProcessInstanceId());
+    }
+    
+    @Override
+    protected void processCompletedWithTerminateEnd(FlowableEngineEntityEvent event) {
+        processInstanceCache.evictActiveAfterCompletion(event.getProcessInstanceId());
+    }
+    
+    @Override
+    protected void processCompletedWithErrorEnd(FlowableEngineEntityEvent event) {
+        processInstanceCache.evictActiveAfterCompletion(event.getProcessInstanceId());
+    }
+    
+    @Override
+    protected void processCompletedWithEscalationEnd(FlowableEngineEntityEvent event) {
+        processInstanceCache.evictActiveAfterCompletion(event.getProcessInstanceId());
+    }
+    
+    @Override
+    protected void processCancelled(FlowableCancelledEvent event) {
+        processInstanceCache.evictActiveAfterCompletion(event.getProcessInstanceId());
+    }
+    
+    @Override
+    public boolean isFailOnException() {
+        // A missed eviction only means a stale read until the TTL expires
+        return false;
+    }
+}
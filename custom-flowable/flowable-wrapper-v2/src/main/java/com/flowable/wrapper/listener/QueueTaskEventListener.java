@@ -0,0 +1,104 @@
+package com.flowable.wrapper.listener;
+
+import com.flowable.wrapper.command.CompleteTaskAndCaptureCmd;
+import com.flowable.wrapper.entity.QueueTask;
+import com.flowable.wrapper.service.QueueTaskProjectionService;
+import lombok.extern.slf4j.Slf4j;
+import org.flowable.common.engine.api.delegate.event.FlowableEngineEntityEvent;
+import org.flowable.common.engine.api.delegate.event.FlowableEngineEventType;
+import org.flowable.engine.delegate.event.AbstractFlowableEngineEventListener;
+import org.flowable.engine.delegate.event.FlowableCancelledEvent;
+import org.flowable.engine.impl.persistence.entity.ExecutionEntity;
+import org.flowable.engine.impl.util.CommandContextUtil;
+import org.flowable.engine.impl.util.ProcessDefinitionUtil;
+import org.flowable.task.api.Task;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Keeps queue_tasks in sync with Flowable tasks.
+ * Runs inside the engine command, so queue changes commit or roll back together with the engine operation.
+ */
+@Component
+@Slf4j
+public class QueueTaskEventListener extends AbstractFlowableEngineEventListener {
+    
+    private final QueueTaskProjectionService queueTaskProjectionService;
+    
+    public QueueTaskEventListener(QueueTaskProjectionService queueTaskProjectionService) {
+        super(Set.of(
+                FlowableEngineEventType.TASK_CREATED,
+                FlowableEngineEventType.TASK_ASSIGNED,
+                FlowableEngineEventType.TASK_COMPLETED,
+                FlowableEngineEventType.ENTITY_DELETED,
+                FlowableEngineEventType.PROCESS_CANCELLED,
+                FlowableEngineEventType.PROCESS_COMPLETED_WITH_TERMINATE_END_EVENT));
+        this.queueTaskProjectionService = queueTaskProjectionService;
+    }
+    
+    @Override
+    protected void taskCreated(FlowableEngineEntityEvent event) {
+        Task task = (Task) event.getEntity();
+        if (task.getProcessInstanceId() == null) {
+            return; // Standalone tasks are not routed to queues
+        }
+        
+        String processDefinitionKey = processDefinitionKey(task);
+        
+        // The process instance is already in the command's entity cache, so this does not hit the database
+        ExecutionEntity processInstance = CommandContextUtil.getExecutionEntityManager().findById(task.getProcessInstanceId());
+        String businessKey = processInstance != null ? processInstance.getBusinessKey() : null;
+        
+        QueueTask queueTask = queueTaskProjectionService.projectTask(task, processDefinitionKey, businessKey);
+        
+        // Lets a running CompleteTaskAndCaptureCmd report the next tasks without querying for them
+        CompleteTaskAndCaptureCmd.captureCreatedQueueTask(CommandContextUtil.getCommandContext(), queueTask);
+    }
+    
+    @Override
+    protected void taskAssigned(FlowableEngineEntityEvent event) {
+        Task task = (Task) event.getEntity();
+        if (task.getProcessInstanceId() != null) {
+            queueTaskProjectionService.markAssigned(task, processDefinitionKey(task));
+        }
+    }
+    
+    @Override
+    protected void taskCompleted(FlowableEngineEntityEvent event) {
+        Task task = (Task) event.getEntity();
+        if (task.getProcessInstanceId() != null) {
+            queueTaskProjectionService.markCompleted(task, processDefinitionKey(task));
+        }
+    }
+    
+    @Override
+    protected void entityDeleted(FlowableEngineEntityEvent event) {
+        // Fired after TASK_COMPLETED for completed tasks, whose entries are kept; any other deleted task was
+        // removed by an interrupting boundary event, a terminate end event or a cancellation
+        if (event.getEntity() instanceof Task task && task.getProcessInstanceId() != null) {
+            queueTaskProjectionService.removeOpenTask(task, processDefinitionKey(task));
+        }
+    }
+    
+    @Override
+    protected void processCancelled(FlowableCancelledEvent event) {
+        queueTaskProjectionService.removeOpenTasks(event.getProcessInstanceId());
+    }
+    
+    @Override
+    protected void processCompletedWithTerminateEnd(FlowableEngineEntityEvent event) {
+        queueTaskProjectionService.removeOpenTasks(event.getProcessInstanceId());
+    }
+    
+    // Served from the engine's process definition cache; with the task definition key it names the task's queue
+    private static String processDefinitionKey(Task task) {
+        return ProcessDefinitionUtil.getProcessDefinition(task.getProcessDefinitionId()).getKey();
+    }
+    
+    @Override
+    public boolean isFailOnException() {
+        // A failed queue update must roll back the engine operation
+        return true;
+    }
+}
@@ -0,0 +1,71 @@
+package com.flowable.wrapper.model;
+
+import com.flowable.wrapper.entity.WorkflowMetadata;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable, pre-indexed view of a WorkflowMetadata row used on the hot path.
+ * Malformed metadata of rows stored before it was validated on registration falls back to the defaults.
+ */
+@Value
+@Slf4j
+public class CompiledWorkflow {
+    
+    String processDefinitionKey;
+    
+    boolean deployed;
+    
+    Map<String, String> taskQueues;  // taskDefinitionKey -> queueName
+    
+    WorkflowHistoryPolicy history;
+    
+    TaskValidationRules taskValidation;
+    
+    public static CompiledWorkflow from(WorkflowMetadata metadata) {
+        Map<String, String> taskQueues = new HashMap<>();
+        if (metadata.getTaskQueueMappings() != null) {
+            for (TaskQueueMapping mapping : metadata.getTaskQueueMappings()) {
+                if (mapping.getTaskId() != null && mapping.getQueue() != null) {
+                    taskQueues.put(mapping.getTaskId(), mapping.getQueue());
+                }
+            }
+        }
+        
+        return new CompiledWorkflow(
+            metadata.getProcessDefinitionKey(),
+            Boolean.TRUE.equals(metadata.getDeployed()),
+            Collections.unmodifiableMap(taskQueues),
+            historyPolicy(metadata),
+            taskValidation(metadata)
+        );
+    }
+    
+    public String findQueue(String taskDefinitionKey) {
+        return taskQueues.get(taskDefinitionKey);
+    }
+    
+    private static WorkflowHistoryPolicy historyPolicy(WorkflowMetadata metadata) {
+        try {
+            return WorkflowHistoryPolicy.from(metadata.getMetadata());
+        } catch (IllegalArgumentException e) {
+            log.warn("Using the default history policy for workflow {}: {}", 
+                metadata.getProcessDefinitionKey(), e.getMessage());
+            return WorkflowHistoryPolicy.DEFAULT;
+        }
+    }
+    
+    private static TaskValidationRules taskValidation(WorkflowMetadata metadata) {
+        try {
+            return TaskValidationRules.from(metadata.getMetadata());
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring the task validation rules of workflow {}: {}", 
+                metadata.getProcessDefinitionKey(), e.getMessage());
+            return TaskValidationRules.NONE;
+        }
+    }
+}
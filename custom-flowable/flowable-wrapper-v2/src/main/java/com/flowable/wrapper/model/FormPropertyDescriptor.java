@@ -0,0 +1,69 @@
+package com.flowable.wrapper.model;
+
+import lombok.Value;
+import org.flowable.bpmn.model.FormProperty;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Static part of a BPMN form property, the same for every task of a process definition version.
+ * Only the current value has to be resolved per task.
+ */
+@Value
+public class FormPropertyDescriptor {
+    
+    // Form types whose form value is the variable's toString(), so no engine form type is needed to render it
+    private static final Set<String> PLAIN_TYPES = Set.of("string", "long", "boolean", "double");
+    
+    String id;
+    
+    String name;
+    
+    String type;
+    
+    boolean required;
+    
+    boolean readable;
+    
+    boolean writable;
+    
+    String variable;  // process variable holding the value
+    
+    boolean resolvable;  // false if the value needs an expression or a type-specific conversion
+    
+    public static FormPropertyDescriptor from(FormProperty property) {
+        String type = property.getType() != null ? property.getType() : "string";
+        boolean resolvable = property.getExpression() == null
+                && property.getDefaultExpression() == null
+                && PLAIN_TYPES.contains(type);
+        
+        return new FormPropertyDescriptor(property.getId(), property.getName(), type, property.isRequired(),
+            property.isReadable(), property.isWriteable(),
+            property.getVariable() != null ? property.getVariable() : property.getId(), resolvable);
+    }
+    
+    /**
+     * The form property as returned in task details, with the given current value
+     */
+    public Map<String, Object> toMap(Object value) {
+        return toMap(id, name, type, required, readable, writable, value);
+    }
+    
+    public static Map<String, Object> toMap(String id, String name, String type, boolean required,
+                                            boolean readable, boolean writable, Object value) {
+        Map<String, Object> propertyData = new HashMap<>();
+        propertyData.put("id", id);
+        propertyData.put("name", name);
+        propertyData.put("type", type);
+        propertyData.put("required", required);
+        propertyData.put("readable", readable);
+        propertyData.put("writable", writable);
+        if (value != null) {
+            propertyData.put("value", value);
+        }
+        
+        return propertyData;
+    }
+}
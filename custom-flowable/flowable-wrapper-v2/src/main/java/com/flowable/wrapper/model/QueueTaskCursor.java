@@ -0,0 +1,49 @@
+package com.flowable.wrapper.model;
+
+import com.flowable.wrapper.entity.QueueTask;
+import com.flowable.wrapper.exception.WorkflowException;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a queue listing page, in (priority DESC, created_at ASC, task_id ASC) order.
+ * Serialized as an opaque URL-safe token so clients cannot depend on its contents.
+ */
+@Value
+public class QueueTaskCursor {
+
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = "|";
+
+    int priority;
+
+    Instant createdAt;
+
+    String taskId;
+
+    public static QueueTaskCursor after(QueueTask queueTask) {
+        return new QueueTaskCursor(queueTask.getPriority(), queueTask.getCreatedAt(), queueTask.getTaskId());
+    }
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, VERSION, String.valueOf(priority), createdAt.toString(), taskId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static QueueTaskCursor decode(String token) throws WorkflowException {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4 || !VERSION.equals(parts[0]) || parts[3].isEmpty()) {
+                throw new IllegalArgumentException("Unexpected cursor format");
+            }
+
+            return new QueueTaskCursor(Integer.parseInt(parts[1]), Instant.parse(parts[2]), parts[3]);
+        } catch (RuntimeException e) {
+            throw new WorkflowException("INVALID_CURSOR", "Invalid pagination cursor: " + token);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.flowable.wrapper.model;
+
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Optional sections of a task detail response, selected with include=. Names following
+ * "processVariables:" (up to the next section) restrict the process variables to load:
+ * <pre>
+ * include=form,taskVariables,processVariables:caseId,matches
+ * </pre>
+ */
+@Value
+public class TaskDetailInclude {
+    
+    public static final String FORM = "form";
+    public static final String TASK_VARIABLES = "taskVariables";
+    public static final String PROCESS_VARIABLES = "processVariables";
+    
+    public static final TaskDetailInclude ALL = new TaskDetailInclude(true, true, true, null);
+    
+    boolean form;
+    
+    boolean taskVariables;
+    
+    boolean processVariables;
+    
+    Set<String> processVariableNames;  // null loads all process variables
+    
+    /**
+     * Parse an include parameter; everything is included when it is absent
+     *
+     * @throws IllegalArgumentException if it names an unknown section
+     */
+    public static TaskDetailInclude parse(String include) {
+        if (include == null) {
+            return ALL;
+        }
+        
+        boolean form = false;
+        boolean taskVariables = false;
+        boolean processVariables = false;
+        Set<String> processVariableNames = null;
+        boolean inProcessVariables = false;
+        
+        for (String rawToken : include.split(",")) {
+            String token = rawToken.trim();
+            if (token.isEmpty()) {
+                continue;
+            }
+            
+            if (token.startsWith(PROCESS_VARIABLES + ":")) {
+                processVariables = true;
+                processVariableNames = processVariableNames != null ? processVariableNames : new LinkedHashSet<>();
+                addName(processVariableNames, token.substring(PROCESS_VARIABLES.length() + 1));
+                inProcessVariables = true;
+                continue;
+            }
+            
+            inProcessVariables = inProcessVariables && !isSection(token);
+            switch (token) {
+                case FORM -> form = true;
+                case TASK_VARIABLES -> taskVariables = true;
+                case PROCESS_VARIABLES -> {
+                    processVariables = true;
+                    processVariableNames = null;
+                }
+                default -> {
+                    if (!inProcessVariables) {
+                        throw new IllegalArgumentException("Unknown section '" + token + "'; available sections are "
+                            + FORM + ", " + TASK_VARIABLES + " and " + PROCESS_VARIABLES + "[:name,...]");
+                    }
+                    addName(processVariableNames, token);
+                }
+            }
+        }
+        
+        return new TaskDetailInclude(form, taskVariables, processVariables,
+            processVariableNames != null ? Collections.unmodifiableSet(processVariableNames) : null);
+    }
+    
+    private static boolean isSection(String token) {
+        return FORM.equals(token) || TASK_VARIABLES.equals(token) || PROCESS_VARIABLES.equals(token);
+    }
+    
+    private static void addName(Set<String> names, String name) {
+        if (!name.isBlank()) {
+            names.add(name.trim());
+        }
+    }
+}
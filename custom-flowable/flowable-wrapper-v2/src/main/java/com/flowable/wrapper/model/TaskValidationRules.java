@@ -0,0 +1,195 @@
+package com.flowable.wrapper.model;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Completion payload rules per user task, declared under the "taskValidation" entry of WorkflowMetadata.metadata:
+ * <pre>
+ * "taskValidation": {
+ *   "l1_maker_review_task": [
+ *     { "variable": "l1MakerDecisions", "required": true, "sizeEquals": "matches",
+ *       "items": [ { "variable": "decision", "required": true, "allowedValues": ["true_match", "false_positive"] } ] }
+ *   ]
+ * }
+ * </pre>
+ * sizeEquals names a process variable holding a list; items apply to every entry of a list of objects.
+ * Each rule may set "message" to replace the default error text.
+ */
+@Value
+public class TaskValidationRules {
+    
+    public static final String METADATA_KEY = "taskValidation";
+    
+    public static final TaskValidationRules NONE = new TaskValidationRules(Map.of());
+    
+    Map<String, List<Rule>> rulesByTask;  // taskDefinitionKey -> rules
+    
+    /**
+     * Parse the taskValidation entry of workflow metadata
+     *
+     * @throws IllegalArgumentException if the entry or one of its rules is malformed
+     */
+    public static TaskValidationRules from(Map<String, Object> metadata) {
+        Object validation = metadata != null ? metadata.get(METADATA_KEY) : null;
+        if (validation == null) {
+            return NONE;
+        }
+        if (!(validation instanceof Map<?, ?> tasks)) {
+            throw new IllegalArgumentException("'" + METADATA_KEY + "' must be an object keyed by task definition key");
+        }
+        
+        Map<String, List<Rule>> rulesByTask = new HashMap<>();
+        for (Map.Entry<?, ?> entry : tasks.entrySet()) {
+            String taskDefinitionKey = entry.getKey().toString();
+            rulesByTask.put(taskDefinitionKey, rules(entry.getValue(), METADATA_KEY + "." + taskDefinitionKey));
+        }
+        
+        return new TaskValidationRules(Collections.unmodifiableMap(rulesByTask));
+    }
+    
+    public boolean hasRules(String taskDefinitionKey) {
+        return rulesByTask.containsKey(taskDefinitionKey);
+    }
+    
+    /**
+     * Check a completion payload against the rules of its task
+     *
+     * @param processVariables resolves the process variables named by sizeEquals; only called when a rule needs one
+     * @return the validation errors, empty if the payload is valid or the task has no rules
+     */
+    public List<String> validate(String taskDefinitionKey, Map<String, Object> variables,
+                                 Function<String, Object> processVariables) {
+        List<Rule> rules = rulesByTask.get(taskDefinitionKey);
+        if (rules == null) {
+            return List.of();
+        }
+        
+        List<String> errors = new ArrayList<>();
+        for (Rule rule : rules) {
+            rule.check(variables.get(rule.getVariable()), rule.getVariable(), processVariables, errors);
+        }
+        
+        // A custom message on an item rule is reported once, not once per entry
+        return List.copyOf(new LinkedHashSet<>(errors));
+    }
+    
+    private static List<Rule> rules(Object value, String path) {
+        if (!(value instanceof Collection<?> entries)) {
+            throw new IllegalArgumentException("'" + path + "' must be a list of rules");
+        }
+        
+        List<Rule> rules = new ArrayList<>();
+        for (Object entry : entries) {
+            if (!(entry instanceof Map<?, ?> rule)) {
+                throw new IllegalArgumentException("'" + path + "' must only contain rule objects");
+            }
+            rules.add(Rule.from(rule, path));
+        }
+        
+        return Collections.unmodifiableList(rules);
+    }
+    
+    /**
+     * One rule on a payload variable, or on a field of each entry when nested under items
+     */
+    @Value
+    public static class Rule {
+        
+        String variable;
+        
+        boolean required;
+        
+        Set<String> allowedValues;
+        
+        String sizeEquals;
+        
+        List<Rule> items;
+        
+        String message;
+        
+        static Rule from(Map<?, ?> rule, String path) {
+            if (!(rule.get("variable") instanceof String variable) || variable.isBlank()) {
+                throw new IllegalArgumentException("Every rule in '" + path + "' needs a 'variable'");
+            }
+            String rulePath = path + "." + variable;
+            
+            Object required = rule.get("required");
+            if (required != null && !(required instanceof Boolean)) {
+                throw new IllegalArgumentException("'" + rulePath + ".required' must be true or false");
+            }
+            
+            Set<String> allowedValues = Set.of();
+            Object rawAllowed = rule.get("allowedValues");
+            if (rawAllowed != null) {
+                if (!(rawAllowed instanceof Collection<?> values) || values.isEmpty()) {
+                    throw new IllegalArgumentException("'" + rulePath + ".allowedValues' must be a non-empty list");
+                }
+                Set<String> allowed = new LinkedHashSet<>();
+                values.forEach(allowedValue -> allowed.add(String.valueOf(allowedValue)));
+                allowedValues = Collections.unmodifiableSet(allowed);
+            }
+            
+            Object sizeEquals = rule.get("sizeEquals");
+            if (sizeEquals != null && (!(sizeEquals instanceof String) || ((String) sizeEquals).isBlank())) {
+                throw new IllegalArgumentException("'" + rulePath + ".sizeEquals' must name a process variable");
+            }
+            
+            Object message = rule.get("message");
+            if (message != null && !(message instanceof String)) {
+                throw new IllegalArgumentException("'" + rulePath + ".message' must be a string");
+            }
+            
+            List<Rule> items = rule.get("items") != null ? rules(rule.get("items"), rulePath + ".items") : List.of();
+            
+            return new Rule(variable, Boolean.TRUE.equals(required), allowedValues, (String) sizeEquals,
+                items, (String) message);
+        }
+        
+        void check(Object value, String path, Function<String, Object> processVariables, List<String> errors) {
+            if (value == null || (value instanceof String text && text.isBlank())) {
+                if (required) {
+                    errors.add(message != null ? message : "'" + path + "' is required.");
+                }
+                return;
+            }
+            
+            if (!allowedValues.isEmpty() && !allowedValues.contains(value.toString())) {
+                errors.add(message != null ? message
+                    : "Invalid value '" + value + "' for '" + path + "'. Allowed values are: " + String.join(", ", allowedValues) + ".");
+                return;
+            }
+            
+            if (sizeEquals == null && items.isEmpty()) {
+                return;
+            }
+            if (!(value instanceof List<?> entries)) {
+                errors.add(message != null ? message : "'" + path + "' must be a list.");
+                return;
+            }
+            
+            if (sizeEquals != null && processVariables.apply(sizeEquals) instanceof Collection<?> expected
+                    && entries.size() != expected.size()) {
+                errors.add(message != null ? message
+                    : "Input is incomplete. '" + path + "' must contain an entry for each of the " + expected.size() + " " + sizeEquals + ".");
+                return;
+            }
+            
+            for (int i = 0; i < entries.size(); i++) {
+                Map<?, ?> entry = entries.get(i) instanceof Map<?, ?> map ? map : Map.of();
+                for (Rule item : items) {
+                    item.check(entry.get(item.getVariable()), path + "[" + i + "]." + item.getVariable(), processVariables, errors);
+                }
+            }
+        }
+    }
+}
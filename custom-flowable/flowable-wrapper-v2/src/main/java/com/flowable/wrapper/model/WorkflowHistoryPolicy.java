@@ -0,0 +1,109 @@
+package com.flowable.wrapper.model;
+
+import lombok.Value;
+import org.flowable.common.engine.impl.history.HistoryLevel;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * History settings of a workflow, declared under the "history" entry of WorkflowMetadata.metadata:
+ * <pre>
+ * "history": { "level": "activity", "includeVariables": ["decision"], "excludeVariables": ["matches"], "retentionDays": 90 }
+ * </pre>
+ * A missing level keeps the engine-wide flowable.history-level; an empty include list records all variables.
+ * A missing retentionDays falls back to the history cleanup default.
+ */
+@Value
+public class WorkflowHistoryPolicy {
+    
+    public static final String METADATA_KEY = "history";
+    
+    public static final WorkflowHistoryPolicy DEFAULT = new WorkflowHistoryPolicy(null, Set.of(), Set.of(), null);
+    
+    String level;
+    
+    Set<String> includeVariables;
+    
+    Set<String> excludeVariables;
+    
+    Integer retentionDays;
+    
+    /**
+     * Parse the history entry of workflow metadata
+     *
+     * @throws IllegalArgumentException if the entry is malformed or names an unknown history level
+     */
+    public static WorkflowHistoryPolicy from(Map<String, Object> metadata) {
+        Object history = metadata != null ? metadata.get(METADATA_KEY) : null;
+        if (history == null) {
+            return DEFAULT;
+        }
+        if (!(history instanceof Map<?, ?> settings)) {
+            throw new IllegalArgumentException("'" + METADATA_KEY + "' must be an object");
+        }
+        
+        String level = null;
+        Object rawLevel = settings.get("level");
+        if (rawLevel != null) {
+            level = rawLevel.toString().trim().toLowerCase(Locale.ROOT);
+            try {
+                HistoryLevel.getHistoryLevelForKey(level);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Unknown history level '" + rawLevel + "'");
+            }
+        }
+        
+        Integer retentionDays = null;
+        Object rawRetention = settings.get("retentionDays");
+        if (rawRetention != null) {
+            if (!(rawRetention instanceof Integer days) || days <= 0) {
+                throw new IllegalArgumentException("'" + METADATA_KEY + ".retentionDays' must be a positive number of days");
+            }
+            retentionDays = days;
+        }
+        
+        return new WorkflowHistoryPolicy(level,
+            variableNames(settings.get("includeVariables"), "includeVariables"),
+            variableNames(settings.get("excludeVariables"), "excludeVariables"),
+            retentionDays);
+    }
+    
+    /**
+     * Whether changes of the given variable should be written to the history tables
+     */
+    public boolean isVariableRecorded(String variableName) {
+        if (!includeVariables.isEmpty() && !includeVariables.contains(variableName)) {
+            return false;
+        }
+        
+        return !excludeVariables.contains(variableName);
+    }
+    
+    public boolean filtersVariables() {
+        return !includeVariables.isEmpty() || !excludeVariables.isEmpty();
+    }
+    
+    private static Set<String> variableNames(Object value, String field) {
+        if (value == null) {
+            return Set.of();
+        }
+        if (!(value instanceof Collection<?> names)) {
+            throw new IllegalArgumentException("'" + METADATA_KEY + "." + field + "' must be a list of variable names");
+        }
+        
+        Set<String> result = new LinkedHashSet<>();
+        for (Object name : names) {
+            if (!(name instanceof String variableName) || variableName.isBlank()) {
+                throw new IllegalArgumentException("'" + METADATA_KEY + "." + field + "' must only contain variable names");
+            }
+            result.add(variableName);
+        }
+        
+        return Collections.unmodifiableSet(result);
+    }
+}
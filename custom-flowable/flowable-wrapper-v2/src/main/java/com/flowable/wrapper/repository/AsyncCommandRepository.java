@@ -0,0 +1,22 @@
+package com.flowable.wrapper.repository;
+
+import com.flowable.wrapper.entity.AsyncCommand;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AsyncCommandRepository extends JpaRepository<AsyncCommand, String> {
+    
+    Optional<AsyncCommand> findByIdempotencyKey(String idempotencyKey);
+    
+    // SELECT ... FOR UPDATE; held until the transaction ends, so claims with SKIP LOCKED pass the row by
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM AsyncCommand c WHERE c.id = :id")
+    Optional<AsyncCommand> findByIdForUpdate(@Param("id") String id);
+}
@@ -0,0 +1,10 @@
+package com.flowable.wrapper.repository;
+
+import com.flowable.wrapper.entity.QueueTaskArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface QueueTaskArchiveRepository extends JpaRepository<QueueTaskArchive, String> {
+    
+}
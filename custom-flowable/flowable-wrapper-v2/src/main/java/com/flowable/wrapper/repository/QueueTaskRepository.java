@@ -1,34 +1,164 @@
 package com.flowable.wrapper.repository;
 
 import com.flowable.wrapper.entity.QueueTask;
+import com.flowable.wrapper.entity.QueueTaskId;
 import com.flowable.wrapper.enums.TaskStatus;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface QueueTaskRepository extends JpaRepository<QueueTask, String> {
+public interface QueueTaskRepository extends JpaRepository<QueueTask, QueueTaskId> {
     
-    // Find tasks by queue name
-    List<QueueTask> findByQueueNameAndStatusOrderByPriorityDescCreatedAtAsc(String queueName, TaskStatus status);
+    // Listing queries order by "-priority" (same as priority DESC) so that a single ascending row
+    // comparison on (-priority, created_at, task_id) seeks straight to the cursor position in the
+    // expression indexes defined in schema.sql, with no sort step. Status values are inlined so the
+    // partial indexes stay usable with generic prepared-statement plans.
     
-    // Find unassigned tasks by queue name
-    List<QueueTask> findByQueueNameAndStatusAndAssigneeIsNullOrderByPriorityDescCreatedAtAsc(String queueName, TaskStatus status);
+    // First page of open tasks by queue name
+    @Query(value = """
+            SELECT * FROM queue_tasks
+            WHERE queue_name = :queueName
+              AND status = 'OPEN'
+            ORDER BY -priority, created_at, task_id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<QueueTask> findOpenQueuePage(@Param("queueName") String queueName, @Param("limit") int limit);
     
-    // Find tasks by assignee
-    List<QueueTask> findByAssigneeAndStatusInOrderByPriorityDescCreatedAtAsc(String assignee, List<TaskStatus> statuses);
+    // Next page of open tasks by queue name, strictly after the cursor position
+    @Query(value = """
+            SELECT * FROM queue_tasks
+            WHERE queue_name = :queueName
+              AND status = 'OPEN'
+              AND (-priority, created_at, task_id) > (-:priority, CAST(:createdAt AS timestamp), :taskId)
+            ORDER BY -priority, created_at, task_id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<QueueTask> findOpenQueuePageAfter(@Param("queueName") String queueName,
+                                           @Param("priority") int priority,
+                                           @Param("createdAt") Instant createdAt,
+                                           @Param("taskId") String taskId,
+                                           @Param("limit") int limit);
+    
+    // First page of unassigned open tasks by queue name (also used to peek the next task)
+    @Query(value = """
+            SELECT * FROM queue_tasks
+            WHERE queue_name = :queueName
+              AND status = 'OPEN'
+              AND assignee IS NULL
+            ORDER BY -priority, created_at, task_id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<QueueTask> findUnassignedQueuePage(@Param("queueName") String queueName, @Param("limit") int limit);
+    
+    // Next page of unassigned open tasks by queue name, strictly after the cursor position
+    @Query(value = """
+            SELECT * FROM queue_tasks
+            WHERE queue_name = :queueName
+              AND status = 'OPEN'
+              AND assignee IS NULL
+              AND (-priority, created_at, task_id) > (-:priority, CAST(:createdAt AS timestamp), :taskId)
+            ORDER BY -priority, created_at, task_id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<QueueTask> findUnassignedQueuePageAfter(@Param("queueName") String queueName,
+                                                 @Param("priority") int priority,
+                                                 @Param("createdAt") Instant createdAt,
+                                                 @Param("taskId") String taskId,
+                                                 @Param("limit") int limit);
+    
+    // Lock up to `limit` unassigned open tasks, skipping rows already locked by other workers
+    @Query(value = """
+            SELECT * FROM queue_tasks
+            WHERE queue_name = :queueName
+              AND status = 'OPEN'
+              AND assignee IS NULL
+            ORDER BY -priority, created_at, task_id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<QueueTask> lockNextUnassignedTasks(@Param("queueName") String queueName, @Param("limit") int limit);
+    
+    // Count open tasks in a queue, stopping at `cap` rows so large queues stay cheap
+    @Query(value = """
+            SELECT count(*) FROM (
+                SELECT 1 FROM queue_tasks
+                WHERE queue_name = :queueName
+                  AND status = 'OPEN'
+                LIMIT :cap
+            ) capped
+            """, nativeQuery = true)
+    long countOpenQueueTasksCapped(@Param("queueName") String queueName, @Param("cap") int cap);
+    
+    // Count unassigned open tasks in a queue, stopping at `cap` rows
+    @Query(value = """
+            SELECT count(*) FROM (
+                SELECT 1 FROM queue_tasks
+                WHERE queue_name = :queueName
+                  AND status = 'OPEN'
+                  AND assignee IS NULL
+                LIMIT :cap
+            ) capped
+            """, nativeQuery = true)
+    long countUnassignedQueueTasksCapped(@Param("queueName") String queueName, @Param("cap") int cap);
+    
+    // First page of open and claimed tasks by assignee
+    @Query(value = """
+            SELECT * FROM queue_tasks
+            WHERE assignee = :assignee
+              AND status IN ('OPEN', 'CLAIMED')
+            ORDER BY -priority, created_at, task_id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<QueueTask> findAssigneePage(@Param("assignee") String assignee, @Param("limit") int limit);
+    
+    // Next page of open and claimed tasks by assignee, strictly after the cursor position
+    @Query(value = """
+            SELECT * FROM queue_tasks
+            WHERE assignee = :assignee
+              AND status IN ('OPEN', 'CLAIMED')
+              AND (-priority, created_at, task_id) > (-:priority, CAST(:createdAt AS timestamp), :taskId)
+            ORDER BY -priority, created_at, task_id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<QueueTask> findAssigneePageAfter(@Param("assignee") String assignee,
+                                          @Param("priority") int priority,
+                                          @Param("createdAt") Instant createdAt,
+                                          @Param("taskId") String taskId,
+                                          @Param("limit") int limit);
+    
+    // Count open and claimed tasks of an assignee, stopping at `cap` rows
+    @Query(value = """
+            SELECT count(*) FROM (
+                SELECT 1 FROM queue_tasks
+                WHERE assignee = :assignee
+                  AND status IN ('OPEN', 'CLAIMED')
+                LIMIT :cap
+            ) capped
+            """, nativeQuery = true)
+    long countAssigneeTasksCapped(@Param("assignee") String assignee, @Param("cap") int cap);
+    
+    // Find a task whose queue is unknown (API calls by task ID only). This cannot be pruned and probes the
+    // primary key of every partition; findById with the queue reads only that queue's partition.
+    Optional<QueueTask> findByTaskId(String taskId);
+    
+    // Find several tasks whose queues are unknown, with one query probing every partition
+    List<QueueTask> findByTaskIdIn(Collection<String> taskIds);
     
     // Find tasks by process instance
     List<QueueTask> findByProcessInstanceIdAndStatusOrderByCreatedAtAsc(String processInstanceId, TaskStatus status);
     
+    // Remove tasks of a process instance in the given statuses
+    long deleteByProcessInstanceIdAndStatusIn(String processInstanceId, List<TaskStatus> statuses);
     
-    // Find tasks by queue with pagination
-    Page<QueueTask> findByQueueNameAndStatus(String queueName, TaskStatus status, Pageable pageable);
-    
-    // Find unassigned tasks by queue with pagination
-    Page<QueueTask> findByQueueNameAndStatusAndAssigneeIsNull(String queueName, TaskStatus status, Pageable pageable);
+    // Scan rows without a business key in task id order (used by the backfill job)
+    List<QueueTask> findByBusinessKeyIsNullAndTaskIdGreaterThanOrderByTaskIdAsc(String taskId, Pageable pageable);
     
 }
\ No newline at end of file
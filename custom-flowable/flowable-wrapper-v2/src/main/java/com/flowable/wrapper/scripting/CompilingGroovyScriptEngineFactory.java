@@ -0,0 +1,141 @@
+package com.flowable.wrapper.scripting;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.codehaus.groovy.jsr223.GroovyScriptEngineFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+import java.util.List;
+
+/**
+ * Groovy JSR-223 factory whose engines compile every script body once and then only run the
+ * cached compiled class. Registered with the process engine under the groovy names. Script tasks are
+ * compiled when their definition is parsed (see ScriptTaskParseHandler), so the first execution after a
+ * deploy or restart is already warm; later runs cost about the same as the plain Groovy engine, which
+ * caches classes by source too (see ScriptTaskBenchmark).
+ */
+@Component
+@Slf4j
+public class CompilingGroovyScriptEngineFactory implements ScriptEngineFactory {
+    
+    private final GroovyScriptEngineFactory groovyFactory = new GroovyScriptEngineFactory();
+    
+    // Shared by all engines handed out; the Groovy engine is thread-safe and owns the class loader of compiled scripts
+    private final Compilable groovyEngine = (Compilable) groovyFactory.getScriptEngine();
+    
+    private final Cache<String, CompiledScript> compiledScripts;
+    
+    private final Timer executionTimer;
+    
+    public CompilingGroovyScriptEngineFactory(MeterRegistry meterRegistry,
+                                              @Value("${scripting.compiled-cache-size:500}") long compiledCacheSize) {
+        this.compiledScripts = Caffeine.newBuilder()
+                .maximumSize(compiledCacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, compiledScripts, "scripts.compiled");
+        this.executionTimer = Timer.builder("scripts.execution")
+                .description("Script task execution time")
+                .tag("mode", "compiled-script")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Compiled form of a script body, compiling it on first use
+     */
+    public CompiledScript compile(String script) throws ScriptException {
+        CompiledScript compiled = compiledScripts.getIfPresent(script);
+        if (compiled == null) {
+            // Compiling twice under a race is harmless, the last one wins
+            compiled = groovyEngine.compile(script);
+            compiledScripts.put(script, compiled);
+        }
+        
+        return compiled;
+    }
+    
+    /**
+     * Compile a script ahead of its first execution; failures are only logged, the script task reports them when it runs
+     */
+    public void precompile(String script, String location) {
+        try {
+            compile(script);
+        } catch (ScriptException e) {
+            log.warn("Failed to precompile script of {}: {}", location, e.getMessage());
+        }
+    }
+    
+    Timer getExecutionTimer() {
+        return executionTimer;
+    }
+    
+    @Override
+    public ScriptEngine getScriptEngine() {
+        return new CompilingScriptEngine(this, (ScriptEngine) groovyEngine);
+    }
+    
+    @Override
+    public String getEngineName() {
+        return groovyFactory.getEngineName();
+    }
+    
+    @Override
+    public String getEngineVersion() {
+        return groovyFactory.getEngineVersion();
+    }
+    
+    @Override
+    public List<String> getExtensions() {
+        return groovyFactory.getExtensions();
+    }
+    
+    @Override
+    public List<String> getMimeTypes() {
+        return groovyFactory.getMimeTypes();
+    }
+    
+    @Override
+    public List<String> getNames() {
+        return groovyFactory.getNames();
+    }
+    
+    @Override
+    public String getLanguageName() {
+        return groovyFactory.getLanguageName();
+    }
+    
+    @Override
+    public String getLanguageVersion() {
+        return groovyFactory.getLanguageVersion();
+    }
+    
+    @Override
+    public Object getParameter(String key) {
+        return groovyFactory.getParameter(key);
+    }
+    
+    @Override
+    public String getMethodCallSyntax(String obj, String m, String... args) {
+        return groovyFactory.getMethodCallSyntax(obj, m, args);
+    }
+    
+    @Override
+    public String getOutputStatement(String toDisplay) {
+        return groovyFactory.getOutputStatement(toDisplay);
+    }
+    
+    @Override
+    public String getProgram(String... statements) {
+        return groovyFactory.getProgram(statements);
+    }
+}
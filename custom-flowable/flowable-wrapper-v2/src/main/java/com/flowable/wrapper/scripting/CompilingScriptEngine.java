@@ -0,0 +1,65 @@
+package com.flowable.wrapper.scripting;
+
+import io.micrometer.core.instrument.Timer;
+
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+import java.io.Reader;
+
+/**
+ * Script engine that runs string scripts through the compiled-script cache of its factory
+ * and delegates everything else to the Groovy engine
+ */
+class CompilingScriptEngine extends AbstractScriptEngine implements Compilable {
+    
+    private final CompilingGroovyScriptEngineFactory factory;
+    private final ScriptEngine groovyEngine;
+    
+    CompilingScriptEngine(CompilingGroovyScriptEngineFactory factory, ScriptEngine groovyEngine) {
+        this.factory = factory;
+        this.groovyEngine = groovyEngine;
+    }
+    
+    @Override
+    public Object eval(String script, ScriptContext context) throws ScriptException {
+        CompiledScript compiled = factory.compile(script);
+        
+        Timer.Sample sample = Timer.start();
+        try {
+            return compiled.eval(context);
+        } finally {
+            sample.stop(factory.getExecutionTimer());
+        }
+    }
+    
+    @Override
+    public Object eval(Reader reader, ScriptContext context) throws ScriptException {
+        return groovyEngine.eval(reader, context);
+    }
+    
+    @Override
+    public CompiledScript compile(String script) throws ScriptException {
+        return factory.compile(script);
+    }
+    
+    @Override
+    public CompiledScript compile(Reader script) throws ScriptException {
+        return ((Compilable) groovyEngine).compile(script);
+    }
+    
+    @Override
+    public Bindings createBindings() {
+        return groovyEngine.createBindings();
+    }
+    
+    @Override
+    public ScriptEngineFactory getFactory() {
+        return factory;
+    }
+}
@@ -0,0 +1,47 @@
+package com.flowable.wrapper.scripting;
+
+import com.flowable.wrapper.service.CaseMatchStore;
+import lombok.extern.slf4j.Slf4j;
+import org.flowable.engine.delegate.DelegateExecution;
+import org.flowable.engine.delegate.JavaDelegate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Java version of the "Evaluate ... Decisions" script of the maker/checker workflows: sets the given
+ * variable (e.g. autoToLevel2) to whether maker and checker of the level marked every match as true_match.
+ * Reads the stored entries when a match store is used, as the "matches" variable then holds no decisions.
+ */
+@Slf4j
+public class DecisionEvaluationDelegate implements JavaDelegate {
+    
+    private final String field;
+    private final String resultVariable;
+    private final CaseMatchStore caseMatchStore;
+    
+    public DecisionEvaluationDelegate(String field, String resultVariable, CaseMatchStore caseMatchStore) {
+        this.field = field;
+        this.resultVariable = resultVariable;
+        this.caseMatchStore = caseMatchStore;
+    }
+    
+    @Override
+    public void execute(DelegateExecution execution) {
+        List<?> matches = ScriptTaskDelegates.matches(execution, caseMatchStore);
+        
+        boolean allTrueMatches = true;
+        for (Object entry : matches) {
+            Map<?, ?> match = (Map<?, ?>) entry;
+            if (!"true_match".equals(match.get(field + "MakerDecision"))
+                    || !"true_match".equals(match.get(field + "CheckerDecision"))) {
+                allTrueMatches = false;
+                break;
+            }
+        }
+        
+        execution.setVariable(resultVariable, allTrueMatches);
+        log.debug("Evaluated {} matches of process {}: {} = {}", matches.size(), execution.getProcessInstanceId(), 
+            resultVariable, allTrueMatches);
+    }
+}
@@ -0,0 +1,69 @@
+package com.flowable.wrapper.scripting;
+
+import com.flowable.wrapper.service.CaseMatchStore;
+import org.flowable.engine.delegate.BpmnError;
+import org.flowable.engine.delegate.DelegateExecution;
+import org.flowable.engine.delegate.JavaDelegate;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Java version of the "Merge ... Decisions" scripts of the maker/checker workflows: copies decision and
+ * comment of every entry of {prefix}Decisions onto the matching entry of "matches", as
+ * {field}Decision / {field}Comment (e.g. level1MakerDecision). With a match store, only the stored
+ * entries whose decision or comment changes are written and the "matches" variable is left untouched.
+ */
+public class DecisionMergeDelegate implements JavaDelegate {
+    
+    private final String prefix;
+    private final String field;
+    private final CaseMatchStore caseMatchStore;
+    
+    public DecisionMergeDelegate(String prefix, String field, CaseMatchStore caseMatchStore) {
+        this.prefix = prefix;
+        this.field = field;
+        this.caseMatchStore = caseMatchStore;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public void execute(DelegateExecution execution) {
+        List<?> matches = ScriptTaskDelegates.listVariable(execution, "matches");
+        if (matches == null) {
+            throw new BpmnError("MISSING_DATA", "Process variable 'matches' is missing or empty.");
+        }
+        
+        List<?> decisions = ScriptTaskDelegates.listVariable(execution, prefix + "Decisions");
+        if (caseMatchStore != null) {
+            mergeIntoStore(execution.getProcessInstanceId(), matches, decisions);
+            return;
+        }
+        
+        for (int i = 0; i < matches.size(); i++) {
+            Map<String, Object> match = (Map<String, Object>) matches.get(i);
+            Map<?, ?> decision = (Map<?, ?>) decisions.get(i);
+            match.put(field + "Decision", decision.get("decision"));
+            match.put(field + "Comment", decision.get("comment"));
+        }
+        execution.setVariable("matches", matches);
+    }
+    
+    private void mergeIntoStore(String processInstanceId, List<?> matches, List<?> decisions) {
+        if (!caseMatchStore.hasEntries(processInstanceId)) {
+            caseMatchStore.seed(processInstanceId, matches);
+        }
+        
+        Map<Integer, Map<String, Object>> changes = new LinkedHashMap<>();
+        for (int i = 0; i < matches.size(); i++) {
+            Map<?, ?> decision = (Map<?, ?>) decisions.get(i);
+            Map<String, Object> change = new HashMap<>();
+            change.put(field + "Decision", decision.get("decision"));
+            change.put(field + "Comment", decision.get("comment"));
+            changes.put(i, change);
+        }
+        caseMatchStore.updateEntries(processInstanceId, changes);
+    }
+}
@@ -0,0 +1,63 @@
+package com.flowable.wrapper.scripting;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flowable.engine.delegate.BpmnError;
+import org.flowable.engine.delegate.DelegateExecution;
+import org.flowable.engine.delegate.JavaDelegate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Java version of the "Validate ... Input" scripts of the maker/checker workflows: checks that
+ * {prefix}Decisions holds one true_match / false_positive decision per entry of "matches" and sets
+ * {prefix}ValidationPassed, plus {prefix}ValidationError when it fails.
+ */
+@Slf4j
+public class DecisionValidationDelegate implements JavaDelegate {
+    
+    private static final Set<String> ALLOWED_DECISIONS = Set.of("true_match", "false_positive");
+    
+    private final String prefix;
+    
+    public DecisionValidationDelegate(String prefix) {
+        this.prefix = prefix;
+    }
+    
+    @Override
+    public void execute(DelegateExecution execution) {
+        List<?> matches = ScriptTaskDelegates.listVariable(execution, "matches");
+        if (matches == null) {
+            throw new BpmnError("MISSING_DATA", "Process variable 'matches' is missing or empty.");
+        }
+        
+        List<?> decisions = ScriptTaskDelegates.listVariable(execution, prefix + "Decisions");
+        String validationError = validate(matches, decisions);
+        
+        boolean validationPassed = validationError == null;
+        execution.setVariable(prefix + "ValidationPassed", validationPassed);
+        if (!validationPassed) {
+            execution.setVariable(prefix + "ValidationError", validationError);
+            log.info("Validation of {} failed for process {}: {}", prefix, execution.getProcessInstanceId(), validationError);
+        }
+    }
+    
+    private String validate(List<?> matches, List<?> decisions) {
+        if (decisions == null || decisions.size() != matches.size()) {
+            return "Input is incomplete. You must provide a decision for all " + matches.size() + " matches.";
+        }
+        
+        for (Object entry : decisions) {
+            Object decision = entry instanceof Map<?, ?> map ? map.get("decision") : null;
+            if (decision == null || decision.toString().trim().isEmpty()) {
+                return "A decision is missing for at least one match.";
+            }
+            if (!ALLOWED_DECISIONS.contains(decision.toString())) {
+                return "Invalid decision value provided. Decisions must be 'true_match' or 'false_positive'.";
+            }
+        }
+        
+        return null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.flowable.wrapper.scripting;
+
+import io.micrometer.core.instrument.Timer;
+import org.flowable.engine.delegate.BpmnError;
+import org.flowable.engine.delegate.DelegateExecution;
+import org.flowable.engine.delegate.JavaDelegate;
+import org.flowable.engine.impl.bpmn.behavior.TaskActivityBehavior;
+import org.flowable.engine.impl.bpmn.helper.ErrorPropagation;
+
+/**
+ * Runs a Java delegate in place of a script task, propagating BPMN errors the way the script task behavior does
+ */
+class JavaDelegateScriptTaskBehavior extends TaskActivityBehavior {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final transient JavaDelegate delegate;
+    private final transient Timer executionTimer;
+    
+    JavaDelegateScriptTaskBehavior(JavaDelegate delegate, Timer executionTimer) {
+        this.delegate = delegate;
+        this.executionTimer = executionTimer;
+    }
+    
+    @Override
+    public void execute(DelegateExecution execution) {
+        Timer.Sample sample = Timer.start();
+        try {
+            delegate.execute(execution);
+        } catch (BpmnError error) {
+            ErrorPropagation.propagateError(error, execution);
+            return;
+        } finally {
+            sample.stop(executionTimer);
+        }
+        
+        leave(execution);
+    }
+}
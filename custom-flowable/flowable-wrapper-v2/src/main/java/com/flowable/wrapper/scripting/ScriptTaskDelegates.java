@@ -0,0 +1,111 @@
+package com.flowable.wrapper.scripting;
+
+import com.flowable.wrapper.service.CaseMatchStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.flowable.engine.delegate.BpmnError;
+import org.flowable.engine.delegate.DelegateExecution;
+import org.flowable.engine.delegate.JavaDelegate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of Java delegates that replace the well-known validation, merge and decision scripts of the
+ * maker/checker workflows. Only workflows listed in scripting.java-delegate-processes or
+ * case-data.match-store-processes are affected; their script tasks named
+ * {@code l<n>_<maker|checker>_<validation|merge>_script} and {@code l<n>_decision_script} run the matching
+ * delegate instead of the Groovy script, every other script task keeps its script. For match store workflows
+ * the merge and decision delegates work on case_match_entries instead of the "matches" variable.
+ */
+@Component
+public class ScriptTaskDelegates {
+    
+    private static final Pattern SCRIPT_TASK_ID = Pattern.compile("l(\\d+)_(maker|checker)_(validation|merge)_script");
+    private static final Pattern DECISION_SCRIPT_TASK_ID = Pattern.compile("l(\\d+)_decision_script");
+    
+    private final Set<String> processDefinitionKeys;
+    
+    private final CaseMatchStore caseMatchStore;
+    
+    private final Timer executionTimer;
+    
+    public ScriptTaskDelegates(MeterRegistry meterRegistry,
+                               CaseMatchStore caseMatchStore,
+                               @Value("${scripting.java-delegate-processes:}") List<String> processDefinitionKeys) {
+        this.processDefinitionKeys = Set.copyOf(processDefinitionKeys);
+        this.caseMatchStore = caseMatchStore;
+        this.executionTimer = Timer.builder("scripts.execution")
+                .description("Script task execution time")
+                .tag("mode", "java-delegate")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Delegate replacing the given script task, if delegates are enabled for the workflow and the task is a known script
+     */
+    public Optional<JavaDelegate> find(String processDefinitionKey, String scriptTaskId) {
+        boolean matchStore = caseMatchStore.isEnabled(processDefinitionKey);
+        if (!matchStore && !processDefinitionKeys.contains(processDefinitionKey)) {
+            return Optional.empty();
+        }
+        CaseMatchStore store = matchStore ? caseMatchStore : null;
+        
+        Matcher decision = DECISION_SCRIPT_TASK_ID.matcher(scriptTaskId);
+        if (decision.matches()) {
+            int level = Integer.parseInt(decision.group(1));
+            return Optional.of(new DecisionEvaluationDelegate("level" + level, "autoToLevel" + (level + 1), store));
+        }
+        
+        Matcher matcher = SCRIPT_TASK_ID.matcher(scriptTaskId);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        
+        String level = matcher.group(1);
+        String role = Character.toUpperCase(matcher.group(2).charAt(0)) + matcher.group(2).substring(1);
+        String prefix = "l" + level + role;  // e.g. l1Maker
+        if ("validation".equals(matcher.group(3))) {
+            return Optional.of(new DecisionValidationDelegate(prefix));
+        }
+        
+        return Optional.of(new DecisionMergeDelegate(prefix, "level" + level + role, store));
+    }
+    
+    Timer getExecutionTimer() {
+        return executionTimer;
+    }
+    
+    static List<?> listVariable(DelegateExecution execution, String name) {
+        Object value = execution.getVariable(name);
+        if (value != null && !(value instanceof List<?>)) {
+            throw new IllegalArgumentException("Process variable '" + name + "' must be a list");
+        }
+        
+        return (List<?>) value;
+    }
+    
+    /**
+     * The matches of a case: the stored entries for match store workflows once they exist, otherwise the variable
+     */
+    static List<?> matches(DelegateExecution execution, CaseMatchStore store) {
+        if (store != null) {
+            List<?> stored = store.getMatches(execution.getProcessInstanceId());
+            if (!stored.isEmpty()) {
+                return stored;
+            }
+        }
+        
+        List<?> matches = listVariable(execution, "matches");
+        if (matches == null) {
+            throw new BpmnError("MISSING_DATA", "Process variable 'matches' is missing or empty.");
+        }
+        
+        return matches;
+    }
+}
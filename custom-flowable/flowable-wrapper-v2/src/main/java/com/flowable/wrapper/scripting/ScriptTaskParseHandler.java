@@ -0,0 +1,51 @@
+package com.flowable.wrapper.scripting;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flowable.bpmn.model.BaseElement;
+import org.flowable.bpmn.model.ScriptTask;
+import org.flowable.engine.delegate.JavaDelegate;
+import org.flowable.engine.impl.bpmn.parser.BpmnParse;
+import org.flowable.engine.impl.bpmn.parser.handler.AbstractBpmnParseHandler;
+
+import java.util.Optional;
+
+/**
+ * Runs after the default script task handler whenever a definition is parsed (deploy and deployment
+ * cache reload): swaps in a registered Java delegate where one replaces the script, and otherwise
+ * compiles Groovy script bodies so no execution has to.
+ */
+@Slf4j
+public class ScriptTaskParseHandler extends AbstractBpmnParseHandler<ScriptTask> {
+    
+    private final CompilingGroovyScriptEngineFactory scriptEngineFactory;
+    private final ScriptTaskDelegates scriptTaskDelegates;
+    
+    public ScriptTaskParseHandler(CompilingGroovyScriptEngineFactory scriptEngineFactory,
+                                  ScriptTaskDelegates scriptTaskDelegates) {
+        this.scriptEngineFactory = scriptEngineFactory;
+        this.scriptTaskDelegates = scriptTaskDelegates;
+    }
+    
+    @Override
+    protected Class<? extends BaseElement> getHandledType() {
+        return ScriptTask.class;
+    }
+    
+    @Override
+    protected void executeParse(BpmnParse bpmnParse, ScriptTask scriptTask) {
+        String processDefinitionKey = bpmnParse.getCurrentProcess().getId();
+        String location = processDefinitionKey + "/" + scriptTask.getId();
+        
+        Optional<JavaDelegate> delegate = scriptTaskDelegates.find(processDefinitionKey, scriptTask.getId());
+        if (delegate.isPresent()) {
+            scriptTask.setBehavior(new JavaDelegateScriptTaskBehavior(delegate.get(), scriptTaskDelegates.getExecutionTimer()));
+            log.debug("Script task {} runs {}", location, delegate.get().getClass().getSimpleName());
+            return;
+        }
+        
+        String format = scriptTask.getScriptFormat();
+        if (scriptTask.getScript() != null && format != null && scriptEngineFactory.getNames().contains(format)) {
+            scriptEngineFactory.precompile(scriptTask.getScript(), location);
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.flowable.wrapper.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowable.wrapper.dto.request.CompleteTaskRequest;
+import com.flowable.wrapper.dto.request.StartProcessRequest;
+import com.flowable.wrapper.dto.response.AsyncCommandResponse;
+import com.flowable.wrapper.entity.AsyncCommand;
+import com.flowable.wrapper.enums.AsyncCommandStatus;
+import com.flowable.wrapper.enums.AsyncCommandType;
+import com.flowable.wrapper.exception.ResourceNotFoundException;
+import com.flowable.wrapper.exception.WorkflowException;
+import com.flowable.wrapper.exception.WorkflowRuntimeException;
+import com.flowable.wrapper.repository.AsyncCommandRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.flowable.common.engine.api.FlowableOptimisticLockingException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLTransientException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs start and complete requests submitted with "Prefer: respond-async".
+ * Submissions are persisted in async_commands (deduplicated by idempotency key) and picked up by a poller
+ * that claims due rows with SKIP LOCKED, so several application nodes can share the work.
+ * A command runs in one transaction together with its SUCCEEDED status update; transient failures
+ * (optimistic locking, lost connections) are retried with exponential backoff.
+ * Every claim increments attempts, and only the worker holding the latest claim runs or updates the command:
+ * it locks the row for the whole run, so a reclaim after the lease ran out skips the row until it finishes.
+ */
+@Service
+@Slf4j
+public class AsyncCommandService {
+    
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+    
+    private static final String INSERT_SQL = """
+            INSERT INTO async_commands (id, idempotency_key, command_type, target_id, payload, status)
+            VALUES (?, ?, ?, ?, CAST(? AS jsonb), 'PENDING')
+            ON CONFLICT (idempotency_key) DO NOTHING
+            """;
+    
+    // Claims due commands; RUNNING rows are due again once their worker lease ran out (node crash)
+    private static final String CLAIM_SQL = """
+            UPDATE async_commands
+            SET status = 'RUNNING', attempts = attempts + 1, updated_at = now(),
+                next_attempt_at = now() + make_interval(secs => ?)
+            WHERE id IN (
+                SELECT id FROM async_commands
+                WHERE status IN ('PENDING', 'RUNNING') AND next_attempt_at <= now()
+                ORDER BY next_attempt_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING id, attempts
+            """;
+    
+    // jsonb equality ignores key order and formatting of the stored payload
+    private static final String SAME_PAYLOAD_SQL = """
+            SELECT payload = CAST(? AS jsonb) FROM async_commands WHERE idempotency_key = ?
+            """;
+    
+    private static final String PURGE_SQL = """
+            DELETE FROM async_commands
+            WHERE status IN ('SUCCEEDED', 'FAILED') AND updated_at < now() - make_interval(hours => ?)
+            """;
+    
+    private final AsyncCommandRepository asyncCommandRepository;
+    private final ProcessInstanceService processInstanceService;
+    private final TaskService taskService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService workers;
+    private final Semaphore freeWorkers;
+    
+    @Value("${async-commands.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${async-commands.lease-seconds:300}")
+    private long leaseSeconds;
+    
+    @Value("${async-commands.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${async-commands.retry-backoff-ms:2000}")
+    private long retryBackoffMs;
+    
+    @Value("${async-commands.retention-hours:168}")
+    private int retentionHours;
+    
+    public AsyncCommandService(AsyncCommandRepository asyncCommandRepository,
+                               ProcessInstanceService processInstanceService,
+                               TaskService taskService,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               @Value("${async-commands.worker-threads:4}") int workerThreads) {
+        this.asyncCommandRepository = asyncCommandRepository;
+        this.processInstanceService = processInstanceService;
+        this.taskService = taskService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.workers = Executors.newFixedThreadPool(workerThreads);
+        this.freeWorkers = new Semaphore(workerThreads);
+    }
+    
+    /**
+     * Accept a process start for asynchronous execution
+     */
+    public AsyncCommandResponse submitStartProcess(StartProcessRequest request, String idempotencyKey) throws WorkflowException {
+        return submit(AsyncCommandType.START_PROCESS, null, request, idempotencyKey);
+    }
+    
+    /**
+     * Accept a task completion for asynchronous execution
+     */
+    public AsyncCommandResponse submitCompleteTask(String taskId, CompleteTaskRequest request, String idempotencyKey) throws WorkflowException {
+        return submit(AsyncCommandType.COMPLETE_TASK, taskId, request, idempotencyKey);
+    }
+    
+    /**
+     * Get the status of a submitted command
+     */
+    public AsyncCommandResponse getCommand(String commandId) {
+        return asyncCommandRepository.findById(commandId)
+                .map(this::mapToResponse)
+                .orElseThrow(() -> new ResourceNotFoundException("Async command", commandId));
+    }
+    
+    /**
+     * Claim due commands for the free workers and hand them over
+     */
+    @Scheduled(initialDelayString = "${async-commands.initial-delay-ms:5000}",
+               fixedDelayString = "${async-commands.poll-interval-ms:500}")
+    public void dispatch() {
+        if (!enabled || freeWorkers.availablePermits() == 0) {
+            return;
+        }
+        
+        try {
+            for (Lease lease : claim(freeWorkers.availablePermits())) {
+                freeWorkers.acquireUninterruptibly();
+                workers.execute(() -> {
+                    try {
+                        execute(lease);
+                    } finally {
+                        freeWorkers.release();
+                    }
+                });
+            }
+        } catch (Exception e) {
+            log.error("Failed to claim async commands: {}", e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Delete finished commands after the retention period
+     */
+    @Scheduled(initialDelayString = "${async-commands.initial-delay-ms:5000}",
+               fixedDelayString = "${async-commands.purge-interval-ms:3600000}")
+    public void purgeFinished() {
+        if (!enabled) {
+            return;
+        }
+        
+        int purged = jdbcTemplate.update(PURGE_SQL, retentionHours);
+        if (purged > 0) {
+            log.info("Purged {} finished async commands", purged);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        // Unfinished commands keep their lease and are picked up again after it expires
+        workers.shutdown();
+    }
+    
+    private AsyncCommandResponse submit(AsyncCommandType type, String targetId, Object request,
+                                        String idempotencyKey) throws WorkflowException {
+        String key = idempotencyKey != null && !idempotencyKey.isBlank() ? idempotencyKey : UUID.randomUUID().toString();
+        
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new WorkflowException("INVALID_REQUEST", "Could not serialize request: " + e.getMessage(), e);
+        }
+        
+        int inserted = jdbcTemplate.update(INSERT_SQL, UUID.randomUUID().toString(), key, type.name(), targetId, payload);
+        
+        AsyncCommand command = asyncCommandRepository.findByIdempotencyKey(key)
+                .orElseThrow(() -> new WorkflowRuntimeException("ASYNC_SUBMIT_FAILED", "Async command was not stored"));
+        
+        if (inserted == 0) {
+            // Resubmission: the key must refer to the same operation with the same payload
+            if (command.getCommandType() != type || !Objects.equals(command.getTargetId(), targetId)
+                    || !Boolean.TRUE.equals(jdbcTemplate.queryForObject(SAME_PAYLOAD_SQL, Boolean.class, payload, key))) {
+                throw new WorkflowException("IDEMPOTENCY_KEY_REUSED",
+                    "Idempotency key '" + key + "' was already used for a different request");
+            }
+            log.info("Duplicate async {} submission for key {}, returning command {}", type, key, command.getId());
+        } else {
+            log.info("Accepted async {} command {} (key {})", type, command.getId(), key);
+        }
+        
+        return mapToResponse(command);
+    }
+    
+    /**
+     * Claim up to limit due commands; each lease carries the attempt number it was claimed with
+     */
+    List<Lease> claim(int limit) {
+        List<Lease> leases = transactionTemplate.execute(status -> jdbcTemplate.query(CLAIM_SQL,
+                (rs, rowNum) -> new Lease(rs.getString("id"), rs.getInt("attempts")), leaseSeconds, limit));
+        
+        return Objects.requireNonNull(leases);
+    }
+    
+    /**
+     * Run a claimed command, unless another worker has claimed it since
+     *
+     * @return whether the command ran to completion under this lease
+     */
+    boolean execute(Lease lease) {
+        try {
+            Boolean succeeded = transactionTemplate.execute(status -> {
+                AsyncCommand command = lockIfLeaseHeld(lease);
+                if (command == null) {
+                    return false;
+                }
+                
+                Object result = run(command);
+                
+                // Same transaction as the command itself, so a command never runs twice once it succeeded
+                command.setStatus(AsyncCommandStatus.SUCCEEDED);
+                command.setResult(objectMapper.convertValue(result, MAP_TYPE));
+                command.setErrorCode(null);
+                command.setErrorMessage(null);
+                command.setUpdatedAt(Instant.now());
+                return true;
+            });
+            
+            if (Boolean.TRUE.equals(succeeded)) {
+                log.info("Async command {} succeeded", lease.commandId());
+                return true;
+            }
+            log.info("Async command {} was claimed again after attempt {}, skipping", lease.commandId(), lease.attempt());
+        } catch (Exception e) {
+            Throwable failure = e instanceof CommandFailedException ? e.getCause() : e;
+            transactionTemplate.executeWithoutResult(status -> recordFailure(lease, failure));
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Lock the command row if the lease is still the latest claim of a running command
+     */
+    private AsyncCommand lockIfLeaseHeld(Lease lease) {
+        return asyncCommandRepository.findByIdForUpdate(lease.commandId())
+                .filter(command -> command.getStatus() == AsyncCommandStatus.RUNNING
+                        && command.getAttempts() == lease.attempt())
+                .orElse(null);
+    }
+    
+    private Object run(AsyncCommand command) {
+        try {
+            return switch (command.getCommandType()) {
+                case START_PROCESS -> processInstanceService.startProcess(
+                        objectMapper.convertValue(command.getPayload(), StartProcessRequest.class));
+                case COMPLETE_TASK -> taskService.completeTask(command.getTargetId(),
+                        objectMapper.convertValue(command.getPayload(), CompleteTaskRequest.class));
+            };
+        } catch (WorkflowException e) {
+            // Checked, so wrap it to roll the transaction back
+            throw new CommandFailedException(e);
+        }
+    }
+    
+    private void recordFailure(Lease lease, Throwable failure) {
+        String commandId = lease.commandId();
+        AsyncCommand command = lockIfLeaseHeld(lease);
+        if (command == null) {
+            // Reclaimed by another worker, whose outcome wins
+            log.warn("Async command {} failed on stale attempt {}: {}", commandId, lease.attempt(), failure.getMessage());
+            return;
+        }
+        
+        boolean retry = isTransient(failure) && command.getAttempts() < maxAttempts;
+        
+        command.setStatus(retry ? AsyncCommandStatus.PENDING : AsyncCommandStatus.FAILED);
+        command.setErrorCode(errorCode(failure));
+        command.setErrorMessage(failure.getMessage());
+        command.setUpdatedAt(Instant.now());
+        if (retry) {
+            long backoffMs = retryBackoffMs << Math.min(command.getAttempts() - 1, 10);
+            command.setNextAttemptAt(Instant.now().plusMillis(backoffMs));
+            log.warn("Async command {} failed (attempt {}), retrying in {} ms: {}",
+                commandId, command.getAttempts(), backoffMs, failure.getMessage());
+        } else {
+            log.error("Async command {} failed after {} attempts: {}", commandId, command.getAttempts(), failure.getMessage());
+        }
+    }
+    
+    /**
+     * Failures worth retrying: concurrent modification and lost or unavailable connections
+     */
+    private static boolean isTransient(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof FlowableOptimisticLockingException
+                    || t instanceof TransientDataAccessException
+                    || t instanceof CannotCreateTransactionException
+                    || t instanceof SQLTransientException) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    private static String errorCode(Throwable failure) {
+        if (failure instanceof WorkflowException workflowException) {
+            return workflowException.getErrorCode();
+        }
+        if (failure instanceof WorkflowRuntimeException runtimeException) {
+            return runtimeException.getErrorCode();
+        }
+        
+        return "ASYNC_COMMAND_FAILED";
+    }
+    
+    private AsyncCommandResponse mapToResponse(AsyncCommand command) {
+        return AsyncCommandResponse.builder()
+                .commandId(command.getId())
+                .idempotencyKey(command.getIdempotencyKey())
+                .commandType(command.getCommandType().getValue())
+                .targetId(command.getTargetId())
+                .status(command.getStatus().getValue())
+                .attempts(command.getAttempts())
+                .result(command.getResult())
+                .errorCode(command.getErrorCode())
+                .errorMessage(command.getErrorMessage())
+                .statusUrl("/api/async-commands/" + command.getId())
+                .createdAt(command.getCreatedAt())
+                .updatedAt(command.getUpdatedAt())
+                .build();
+    }
+    
+    /**
+     * A worker's claim on a command: the attempt number the claim set
+     */
+    record Lease(String commandId, int attempt) {
+    }
+    
+    private static class CommandFailedException extends RuntimeException {
+        
+        CommandFailedException(WorkflowException cause) {
+            super(cause);
+        }
+    }
+}
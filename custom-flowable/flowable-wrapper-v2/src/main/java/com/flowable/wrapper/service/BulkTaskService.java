@@ -0,0 +1,158 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.dto.request.BulkTaskRequest;
+import com.flowable.wrapper.dto.response.BulkTaskResponse;
+import com.flowable.wrapper.dto.response.BulkTaskResponse.ItemResult;
+import com.flowable.wrapper.dto.response.QueueTaskResponse;
+import com.flowable.wrapper.entity.QueueTask;
+import com.flowable.wrapper.enums.BulkTaskOperation;
+import com.flowable.wrapper.exception.WorkflowException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Claims, unclaims or completes many tasks in one request.
+ * Items run in chunks of one transaction each; the queue rows of a chunk are loaded with a single query.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkTaskService {
+    
+    private final org.flowable.engine.TaskService flowableTaskService;
+    private final QueueTaskService queueTaskService;
+    private final ChunkedTransactionRunner chunkedTransactionRunner;
+    private final TaskCompletionValidator taskCompletionValidator;
+    private final ProcessInstanceSerializer processInstanceSerializer;
+    
+    @Value("${tasks.bulk.chunk-size:50}")
+    private int chunkSize;
+    
+    @Value("${tasks.bulk.max-items:1000}")
+    private int maxItems;
+    
+    /**
+     * Run a bulk operation and report the outcome of every task
+     */
+    public BulkTaskResponse execute(BulkTaskOperation operation, BulkTaskRequest request) throws WorkflowException {
+        List<BulkTaskRequest.Item> items = request.getItems();
+        if (items.size() > maxItems) {
+            throw new WorkflowException("TOO_MANY_ITEMS", 
+                "A bulk request may contain at most " + maxItems + " tasks");
+        }
+        if (operation == BulkTaskOperation.CLAIM && (request.getUserId() == null || request.getUserId().isBlank())) {
+            throw new WorkflowException("USER_REQUIRED", "User ID is required to claim tasks");
+        }
+        
+        List<ItemResult> results = chunkedTransactionRunner.run(items, chunkSize,
+                chunk -> processChunk(operation, request.getUserId(), chunk),
+                (item, e) -> ItemResult.failure(item.getTaskId(), 
+                    operation.name() + "_FAILED", "Failed to " + operation + " task: " + e.getMessage()));
+        
+        int succeeded = (int) results.stream().filter(ItemResult::isSuccess).count();
+        log.info("Bulk {} of {} tasks: {} succeeded, {} failed", 
+            operation, items.size(), succeeded, items.size() - succeeded);
+        
+        return BulkTaskResponse.builder()
+                .operation(operation.getValue())
+                .requested(items.size())
+                .succeeded(succeeded)
+                .failed(items.size() - succeeded)
+                .results(results)
+                .build();
+    }
+    
+    /**
+     * Process one chunk inside its transaction. Validation problems become item failures;
+     * engine failures are thrown so the chunk is rolled back and retried item by item.
+     * Completions hold the locks of the chunk's process instances until the transaction ends, so they do not
+     * conflict with other completions of the same instances, such as the sibling task of a parallel branch.
+     */
+    private List<ItemResult> processChunk(BulkTaskOperation operation, String userId,
+                                          List<BulkTaskRequest.Item> chunk) throws WorkflowException {
+        Map<String, QueueTask> queueTasks = queueTaskService.findQueueTasks(
+                chunk.stream().map(BulkTaskRequest.Item::getTaskId).collect(Collectors.toSet()));
+        if (operation == BulkTaskOperation.COMPLETE) {
+            processInstanceSerializer.lockAll(queueTasks.values().stream()
+                    .map(QueueTask::getProcessInstanceId)
+                    .collect(Collectors.toSet()));
+        }
+        
+        List<ItemResult> results = new ArrayList<>(chunk.size());
+        List<QueueTask> processed = new ArrayList<>();
+        
+        for (BulkTaskRequest.Item item : chunk) {
+            QueueTask queueTask = queueTasks.get(item.getTaskId());
+            ItemResult failure = validate(operation, userId, item, queueTask);
+            if (failure != null) {
+                results.add(failure);
+                continue;
+            }
+            
+            switch (operation) {
+                case CLAIM -> {
+                    flowableTaskService.claim(item.getTaskId(), userId);
+                    queueTaskService.markClaimed(queueTask, userId);
+                }
+                case UNCLAIM -> {
+                    flowableTaskService.unclaim(item.getTaskId());
+                    queueTaskService.markUnclaimed(queueTask);
+                }
+                case COMPLETE -> {
+                    Map<String, Object> variables = item.getVariables() != null ? item.getVariables() : new HashMap<>();
+                    // queue_tasks is updated by QueueTaskEventListener during completion
+                    flowableTaskService.complete(item.getTaskId(), variables);
+                }
+            }
+            
+            results.add(null);  // filled in below once all rows of the chunk are mapped
+            processed.add(queueTask);
+        }
+        
+        // Map the successful rows together so missing business keys are resolved with one query
+        List<QueueTaskResponse> responses = queueTaskService.mapToResponses(processed);
+        int next = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                QueueTaskResponse response = responses.get(next++);
+                results.set(i, ItemResult.success(response.getTaskId(), response));
+            }
+        }
+        
+        return results;
+    }
+    
+    private ItemResult validate(BulkTaskOperation operation, String userId, BulkTaskRequest.Item item, QueueTask queueTask) {
+        String taskId = item.getTaskId();
+        if (queueTask == null) {
+            return ItemResult.failure(taskId, "RESOURCE_NOT_FOUND", "Task not found with id: " + taskId);
+        }
+        
+        return switch (operation) {
+            case CLAIM -> queueTask.getAssignee() != null
+                ? ItemResult.failure(taskId, "TASK_ALREADY_ASSIGNED", "Task is already assigned to: " + queueTask.getAssignee())
+                : null;
+            case UNCLAIM -> null;
+            case COMPLETE -> {
+                if (queueTask.getAssignee() == null) {
+                    yield ItemResult.failure(taskId, "TASK_NOT_ASSIGNED", "Task must be claimed before completion");
+                }
+                if (userId != null && !userId.equals(queueTask.getAssignee())) {
+                    yield ItemResult.failure(taskId, "UNAUTHORIZED", 
+                        "User " + userId + " is not authorized to complete this task");
+                }
+                List<String> errors = taskCompletionValidator.validate(queueTask, 
+                    item.getVariables() != null ? item.getVariables() : Map.of());
+                yield errors.isEmpty() ? null : ItemResult.failure(taskId, "VALIDATION_FAILED", String.join(" ", errors));
+            }
+        };
+    }
+}
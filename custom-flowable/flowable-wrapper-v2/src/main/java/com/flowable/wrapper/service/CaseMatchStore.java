@@ -0,0 +1,153 @@
+package com.flowable.wrapper.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowable.wrapper.exception.WorkflowRuntimeException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores the entries of a case's "matches" list as one case_match_entries row per (processInstanceId, matchIndex),
+ * for the workflows listed in case-data.match-store-processes. The list is copied from the process variable once;
+ * after that, merging a decision updates only the rows whose fields actually change, instead of rewriting and
+ * re-serializing the whole variable (and its history copies) on every merge. Engine code writes through the
+ * same transaction as the engine, so a rolled back completion leaves no rows behind.
+ */
+@Service
+public class CaseMatchStore {
+    
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+    
+    private static final String INSERT_SQL = """
+            INSERT INTO case_match_entries (process_instance_id, match_index, data, updated_at)
+            VALUES (?, ?, ?::jsonb, now())
+            ON CONFLICT (process_instance_id, match_index) DO NOTHING
+            """;
+    
+    // Merges the changed fields into the entry; rows that already hold them are not rewritten
+    private static final String UPDATE_SQL = """
+            UPDATE case_match_entries
+            SET data = data || ?::jsonb, updated_at = now()
+            WHERE process_instance_id = ? AND match_index = ? AND NOT data @> ?::jsonb
+            """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Set<String> processDefinitionKeys;
+    private final Counter writtenCounter;
+    
+    public CaseMatchStore(JdbcTemplate jdbcTemplate,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${case-data.match-store-processes:}") List<String> processDefinitionKeys) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.processDefinitionKeys = Set.copyOf(processDefinitionKeys);
+        this.writtenCounter = Counter.builder("case.matches.written")
+                .description("Match entries inserted or updated in case_match_entries")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Whether the matches of the given workflow are kept in case_match_entries
+     */
+    public boolean isEnabled(String processDefinitionKey) {
+        return processDefinitionKeys.contains(processDefinitionKey);
+    }
+    
+    /**
+     * Whether the entries of a process instance have been stored
+     */
+    public boolean hasEntries(String processInstanceId) {
+        return !jdbcTemplate.queryForList(
+                "SELECT 1 FROM case_match_entries WHERE process_instance_id = ? LIMIT 1",
+                Integer.class, processInstanceId).isEmpty();
+    }
+    
+    /**
+     * Store the entries of a process instance, keeping any already stored
+     */
+    public void seed(String processInstanceId, List<?> matches) {
+        List<Object[]> rows = new ArrayList<>(matches.size());
+        for (int i = 0; i < matches.size(); i++) {
+            rows.add(new Object[] { processInstanceId, i, toJson(matches.get(i)) });
+        }
+        
+        int[] inserted = jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        writtenCounter.increment(sum(inserted));
+    }
+    
+    /**
+     * Merge changed fields into the stored entries, keyed by match index
+     *
+     * @return the number of entries that actually changed
+     */
+    public int updateEntries(String processInstanceId, Map<Integer, Map<String, Object>> changes) {
+        List<Object[]> rows = new ArrayList<>(changes.size());
+        for (Map.Entry<Integer, Map<String, Object>> change : changes.entrySet()) {
+            String patch = toJson(change.getValue());
+            rows.add(new Object[] { patch, processInstanceId, change.getKey(), patch });
+        }
+        
+        int updated = sum(jdbcTemplate.batchUpdate(UPDATE_SQL, rows));
+        writtenCounter.increment(updated);
+        
+        return updated;
+    }
+    
+    /**
+     * The stored entries of a process instance in list order, empty if none are stored
+     */
+    public List<Map<String, Object>> getMatches(String processInstanceId) {
+        return jdbcTemplate.query(
+                "SELECT data FROM case_match_entries WHERE process_instance_id = ? ORDER BY match_index",
+                (rs, rowNum) -> fromJson(rs.getString("data")), processInstanceId);
+    }
+    
+    /**
+     * Remove the entries of process instances whose history is deleted
+     */
+    public void deleteAll(Collection<String> processInstanceIds) {
+        if (processInstanceIds.isEmpty()) {
+            return;
+        }
+        
+        jdbcTemplate.update("DELETE FROM case_match_entries WHERE process_instance_id = ANY (?)",
+                (Object) processInstanceIds.toArray(new String[0]));
+    }
+    
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new WorkflowRuntimeException("INVALID_CASE_DATA", "Could not serialize match entry: " + e.getMessage(), e);
+        }
+    }
+    
+    private Map<String, Object> fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, MAP_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new WorkflowRuntimeException("INVALID_CASE_DATA", "Could not read match entry: " + e.getMessage(), e);
+        }
+    }
+    
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            total += Math.max(count, 0);
+        }
+        
+        return total;
+    }
+}
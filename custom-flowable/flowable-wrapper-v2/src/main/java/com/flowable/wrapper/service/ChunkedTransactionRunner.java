@@ -0,0 +1,88 @@
+package com.flowable.wrapper.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Runs a list of items in fixed-size chunks with one transaction per chunk.
+ * When a chunk fails it is rolled back and its items are retried one transaction each,
+ * so a bad item only costs its own result instead of the whole chunk.
+ */
+@Component
+@Slf4j
+public class ChunkedTransactionRunner {
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    public ChunkedTransactionRunner(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    /**
+     * Work done for one chunk; must return one result per item, in order
+     */
+    @FunctionalInterface
+    public interface ChunkHandler<T, R> {
+        List<R> handle(List<T> chunk) throws Exception;
+    }
+    
+    /**
+     * Process all items and return one result per item, in input order.
+     * {@code onFailure} turns the exception of an item that failed on its own into its result.
+     */
+    public <T, R> List<R> run(List<T> items, int chunkSize, ChunkHandler<T, R> handler,
+                              BiFunction<T, Exception, R> onFailure) {
+        int size = Math.max(chunkSize, 1);
+        List<R> results = new ArrayList<>(items.size());
+        
+        for (int from = 0; from < items.size(); from += size) {
+            List<T> chunk = items.subList(from, Math.min(from + size, items.size()));
+            try {
+                results.addAll(executeInTransaction(handler, chunk));
+            } catch (Exception e) {
+                log.warn("Chunk of {} items failed, retrying items individually: {}", chunk.size(), e.getMessage());
+                for (T item : chunk) {
+                    try {
+                        results.addAll(executeInTransaction(handler, List.of(item)));
+                    } catch (Exception itemFailure) {
+                        results.add(onFailure.apply(item, itemFailure));
+                    }
+                }
+            }
+        }
+        
+        return results;
+    }
+    
+    private <T, R> List<R> executeInTransaction(ChunkHandler<T, R> handler, List<T> chunk) throws Exception {
+        try {
+            return transactionTemplate.execute(status -> {
+                try {
+                    return handler.handle(chunk);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    // Checked exceptions must roll back too
+                    throw new ChunkFailedException(e);
+                }
+            });
+        } catch (ChunkFailedException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+    
+    private static class ChunkFailedException extends RuntimeException {
+        
+        ChunkFailedException(Exception cause) {
+            super(cause);
+        }
+    }
+}
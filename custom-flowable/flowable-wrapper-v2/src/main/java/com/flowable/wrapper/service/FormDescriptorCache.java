@@ -0,0 +1,76 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.model.FormPropertyDescriptor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.flowable.bpmn.model.BpmnModel;
+import org.flowable.bpmn.model.FormProperty;
+import org.flowable.bpmn.model.Process;
+import org.flowable.bpmn.model.UserTask;
+import org.flowable.engine.RepositoryService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Form property descriptors of the user tasks of each process definition version, keyed by process
+ * definition id. A definition version never changes, so entries are only evicted by size. Filled when a
+ * workflow is deployed or warmed up, and from the engine's deployment cache on a miss.
+ */
+@Service
+public class FormDescriptorCache {
+    
+    private final RepositoryService repositoryService;
+    private final Cache<String, Map<String, List<FormPropertyDescriptor>>> descriptors;
+    
+    public FormDescriptorCache(RepositoryService repositoryService,
+                               MeterRegistry meterRegistry,
+                               @Value("${forms.descriptor-cache-size:1000}") long maxSize) {
+        this.repositoryService = repositoryService;
+        this.descriptors = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, descriptors, "form_descriptors");
+    }
+    
+    /**
+     * Extract and cache the descriptors of a definition whose model is already at hand
+     */
+    public void register(String processDefinitionId, BpmnModel bpmnModel) {
+        descriptors.put(processDefinitionId, extract(bpmnModel));
+    }
+    
+    /**
+     * Readable form properties of a user task, in BPMN order; empty if it has none
+     */
+    public List<FormPropertyDescriptor> get(String processDefinitionId, String taskDefinitionKey) {
+        return descriptors.get(processDefinitionId, id -> extract(repositoryService.getBpmnModel(id)))
+                .getOrDefault(taskDefinitionKey, List.of());
+    }
+    
+    private static Map<String, List<FormPropertyDescriptor>> extract(BpmnModel bpmnModel) {
+        Map<String, List<FormPropertyDescriptor>> byTask = new HashMap<>();
+        for (Process process : bpmnModel.getProcesses()) {
+            for (UserTask userTask : process.findFlowElementsOfType(UserTask.class, true)) {
+                List<FormPropertyDescriptor> properties = new ArrayList<>();
+                for (FormProperty property : userTask.getFormProperties()) {
+                    // The engine leaves unreadable properties out of the form data as well
+                    if (property.isReadable()) {
+                        properties.add(FormPropertyDescriptor.from(property));
+                    }
+                }
+                byTask.put(userTask.getId(), Collections.unmodifiableList(properties));
+            }
+        }
+        
+        return Collections.unmodifiableMap(byTask);
+    }
+}
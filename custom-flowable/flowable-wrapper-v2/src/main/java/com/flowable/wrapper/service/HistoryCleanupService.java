@@ -0,0 +1,216 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.entity.WorkflowMetadata;
+import com.flowable.wrapper.model.WorkflowHistoryPolicy;
+import com.flowable.wrapper.repository.WorkflowMetadataRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.flowable.engine.HistoryService;
+import org.flowable.engine.history.HistoricProcessInstance;
+import org.flowable.engine.history.HistoricProcessInstanceQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes the history (ACT_HI_* rows) of finished process instances once they are older than the
+ * retention of their workflow. Each batch deletes at most batch-size instances with their activity,
+ * task, variable and detail rows in its own transaction, oldest first. Deleted instances are gone, so every
+ * batch simply takes the oldest instances still finished before the cutoff; no position needs to be kept.
+ * Workflows are processed round-robin with a pause between batches, so one large backlog neither
+ * starves the others nor holds locks long enough to disturb foreground traffic.
+ */
+@Service
+@Slf4j
+public class HistoryCleanupService {
+    
+    // Arbitrary key so only one application node deletes history at a time
+    private static final long CLEANUP_LOCK_KEY = 7_310_451_004L;
+    
+    private final HistoryService historyService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final WorkflowMetadataRepository workflowMetadataRepository;
+    private final ProcessInstanceCache processInstanceCache;
+    private final CaseMatchStore caseMatchStore;
+    private final Counter deletedCounter;
+    private final AtomicLong lagSeconds = new AtomicLong();
+    
+    @Value("${process-instances.history-cleanup.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${process-instances.history-cleanup.default-retention-days:0}")
+    private int defaultRetentionDays;
+    
+    @Value("${process-instances.history-cleanup.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${process-instances.history-cleanup.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+    
+    @Value("${process-instances.history-cleanup.batch-pause-ms:500}")
+    private long batchPauseMs;
+    
+    public HistoryCleanupService(HistoryService historyService,
+                                 JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 WorkflowMetadataRepository workflowMetadataRepository,
+                                 ProcessInstanceCache processInstanceCache,
+                                 CaseMatchStore caseMatchStore,
+                                 MeterRegistry meterRegistry) {
+        this.historyService = historyService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workflowMetadataRepository = workflowMetadataRepository;
+        this.processInstanceCache = processInstanceCache;
+        this.caseMatchStore = caseMatchStore;
+        this.deletedCounter = Counter.builder("history.cleanup.deleted")
+                .description("Finished process instances whose history was deleted")
+                .register(meterRegistry);
+        Gauge.builder("history.cleanup.lag", lagSeconds, AtomicLong::get)
+                .description("Seconds the oldest expired process instance is past its retention, as of the last run")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Delete expired history in bounded, throttled batches
+     */
+    @Scheduled(initialDelayString = "${process-instances.history-cleanup.initial-delay-ms:120000}",
+               fixedDelayString = "${process-instances.history-cleanup.interval-ms:300000}")
+    public void cleanupHistory() {
+        if (!enabled) {
+            return;
+        }
+        
+        Map<String, Instant> cutoffs = retentionCutoffs();
+        Map<String, Instant> pending = new LinkedHashMap<>(cutoffs);
+        int batches = 0;
+        long deleted = 0;
+        
+        try {
+            while (!pending.isEmpty() && batches < maxBatchesPerRun) {
+                Iterator<Map.Entry<String, Instant>> iterator = pending.entrySet().iterator();
+                while (iterator.hasNext() && batches < maxBatchesPerRun) {
+                    Map.Entry<String, Instant> entry = iterator.next();
+                    List<String> deletedIds = transactionTemplate.execute(
+                            status -> deleteBatch(entry.getKey(), entry.getValue()));
+                    if (deletedIds == null) {
+                        log.debug("Another node is cleaning up history, skipping this run");
+                        return;
+                    }
+                    
+                    batches++;
+                    deleted += deletedIds.size();
+                    deletedCounter.increment(deletedIds.size());
+                    deletedIds.forEach(processInstanceCache::evict);
+                    
+                    if (deletedIds.size() < batchSize) {
+                        iterator.remove();
+                    }
+                    if (!deletedIds.isEmpty()) {
+                        // Leave room for foreground traffic between batches
+                        Thread.sleep(batchPauseMs);
+                    }
+                }
+            }
+            
+            lagSeconds.set(currentLagSeconds(cutoffs));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("History cleanup stopped after {} process instances: {}", deleted, e.getMessage(), e);
+        }
+        
+        if (deleted > 0) {
+            log.info("Deleted history of {} finished process instances in {} batches", deleted, batches);
+        }
+    }
+    
+    /**
+     * Returns the ids of the deleted instances, or null if another node holds the cleanup lock
+     */
+    private List<String> deleteBatch(String processDefinitionKey, Instant cutoff) {
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, CLEANUP_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            return null;
+        }
+        
+        List<HistoricProcessInstance> batch = expiredQuery(processDefinitionKey, cutoff).listPage(0, batchSize);
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+        
+        List<String> ids = batch.stream().map(HistoricProcessInstance::getId).toList();
+        historyService.bulkDeleteHistoricProcessInstances(ids);
+        caseMatchStore.deleteAll(ids);
+        
+        return ids;
+    }
+    
+    private HistoricProcessInstanceQuery expiredQuery(String processDefinitionKey, Instant cutoff) {
+        return historyService.createHistoricProcessInstanceQuery()
+                .processDefinitionKey(processDefinitionKey)
+                .finishedBefore(Date.from(cutoff))
+                .orderByProcessInstanceEndTime().asc();
+    }
+    
+    /**
+     * Cutoff end time per workflow with a retention; workflows without one keep their history
+     */
+    private Map<String, Instant> retentionCutoffs() {
+        Instant now = Instant.now();
+        Map<String, Instant> cutoffs = new LinkedHashMap<>();
+        
+        for (WorkflowMetadata metadata : workflowMetadataRepository.findAll()) {
+            if (!Boolean.TRUE.equals(metadata.getActive())) {
+                continue;
+            }
+            
+            Integer retentionDays;
+            try {
+                retentionDays = WorkflowHistoryPolicy.from(metadata.getMetadata()).getRetentionDays();
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping history cleanup of workflow {}: {}", metadata.getProcessDefinitionKey(), e.getMessage());
+                continue;
+            }
+            
+            int days = retentionDays != null ? retentionDays : defaultRetentionDays;
+            if (days > 0) {
+                cutoffs.put(metadata.getProcessDefinitionKey(), now.minus(Duration.ofDays(days)));
+            }
+        }
+        
+        return cutoffs;
+    }
+    
+    /**
+     * How far behind the oldest instance that should already be gone is, across all workflows
+     */
+    private long currentLagSeconds(Map<String, Instant> cutoffs) {
+        long lag = 0;
+        for (Map.Entry<String, Instant> entry : cutoffs.entrySet()) {
+            List<HistoricProcessInstance> oldest = expiredQuery(entry.getKey(), entry.getValue()).listPage(0, 1);
+            if (!oldest.isEmpty()) {
+                long behind = Duration.between(oldest.get(0).getEndTime().toInstant(), entry.getValue()).toSeconds();
+                lag = Math.max(lag, behind);
+            }
+        }
+        
+        return lag;
+    }
+}
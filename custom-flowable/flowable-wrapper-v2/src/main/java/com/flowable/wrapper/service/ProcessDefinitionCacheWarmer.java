@@ -0,0 +1,103 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.entity.WorkflowMetadata;
+import com.flowable.wrapper.repository.WorkflowMetadataRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.flowable.engine.RepositoryService;
+import org.flowable.engine.repository.ProcessDefinition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the latest definition of every active, deployed workflow into the engine's process definition
+ * cache (parsed BpmnModel and Process included) before the application reports ready, so the first
+ * start or deploy after a restart does not pay for BPMN parsing; the form descriptors of those
+ * definitions are extracted at the same time. Reported as OUT_OF_SERVICE on
+ * /actuator/health and the readiness probe until the warm-up has finished.
+ */
+@Component
+@Slf4j
+public class ProcessDefinitionCacheWarmer implements ApplicationRunner, HealthIndicator {
+    
+    private final WorkflowMetadataRepository workflowMetadataRepository;
+    private final RepositoryService repositoryService;
+    private final FormDescriptorCache formDescriptorCache;
+    
+    @Value("${workflow.definitions.warmup-enabled:true}")
+    private boolean enabled;
+    
+    @Value("${flowable.process.definition-cache-limit:-1}")
+    private int definitionCacheLimit;
+    
+    private volatile Health health = Health.outOfService().withDetail("warmup", "pending").build();
+    
+    public ProcessDefinitionCacheWarmer(WorkflowMetadataRepository workflowMetadataRepository,
+                                        RepositoryService repositoryService,
+                                        FormDescriptorCache formDescriptorCache) {
+        this.workflowMetadataRepository = workflowMetadataRepository;
+        this.repositoryService = repositoryService;
+        this.formDescriptorCache = formDescriptorCache;
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            health = Health.up().withDetail("warmup", "disabled").build();
+            return;
+        }
+        
+        long started = System.nanoTime();
+        int warmed = 0;
+        List<String> failed = new ArrayList<>();
+        
+        for (WorkflowMetadata metadata : workflowMetadataRepository.findAll()) {
+            if (!Boolean.TRUE.equals(metadata.getActive()) || !Boolean.TRUE.equals(metadata.getDeployed())) {
+                continue;
+            }
+            
+            String key = metadata.getProcessDefinitionKey();
+            try {
+                ProcessDefinition definition = repositoryService.createProcessDefinitionQuery()
+                        .processDefinitionKey(key)
+                        .latestVersion()
+                        .singleResult();
+                if (definition != null) {
+                    // Resolves the definition through the deployment cache, parsing the BPMN on a miss
+                    formDescriptorCache.register(definition.getId(), repositoryService.getBpmnModel(definition.getId()));
+                    warmed++;
+                }
+            } catch (Exception e) {
+                log.warn("Failed to warm up process definition {}: {}", key, e.getMessage());
+                failed.add(key);
+            }
+        }
+        
+        if (definitionCacheLimit > 0 && warmed > definitionCacheLimit) {
+            log.warn("Warmed {} process definitions but flowable.process.definition-cache-limit is {}; " +
+                "the least recently used ones are already evicted again", warmed, definitionCacheLimit);
+        }
+        
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        log.info("Warmed up {} process definitions in {} ms ({} failed)", warmed, durationMillis, failed.size());
+        
+        health = Health.up()
+                .withDetail("warmup", "completed")
+                .withDetail("definitions", warmed)
+                .withDetail("failed", failed)
+                .withDetail("durationMillis", durationMillis)
+                .build();
+    }
+    
+    @Override
+    public Health health() {
+        return health;
+    }
+}
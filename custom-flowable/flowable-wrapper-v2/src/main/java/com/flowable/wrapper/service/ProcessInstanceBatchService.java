@@ -0,0 +1,253 @@
+package com.flowable.wrapper.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowable.wrapper.dto.request.StartProcessRequest;
+import com.flowable.wrapper.dto.response.ProcessInstanceResponse;
+import com.flowable.wrapper.dto.response.ProcessStartBatchResult;
+import com.flowable.wrapper.exception.WorkflowException;
+import com.flowable.wrapper.exception.WorkflowRuntimeException;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Starts large batches of process instances read from a stream.
+ * Requests are grouped in chunks, one transaction per chunk (see {@link ChunkedTransactionRunner}), and chunks run
+ * on virtual threads with at most as many in flight as the connection pool can serve, so the database sets the pace.
+ * Results are written as NDJSON in input order while the batch is still running.
+ */
+@Service
+@Slf4j
+public class ProcessInstanceBatchService {
+    
+    // Connections left free for interactive requests while a batch runs
+    private static final int RESERVED_CONNECTIONS = 2;
+    
+    private final ProcessInstanceService processInstanceService;
+    private final ChunkedTransactionRunner chunkedTransactionRunner;
+    private final ObjectMapper objectMapper;
+    private final int parallelism;
+    
+    @Value("${process-instances.batch.chunk-size:100}")
+    private int chunkSize;
+    
+    public ProcessInstanceBatchService(ProcessInstanceService processInstanceService,
+                                       ChunkedTransactionRunner chunkedTransactionRunner,
+                                       ObjectMapper objectMapper,
+                                       DataSource dataSource,
+                                       @Value("${process-instances.batch.parallelism:0}") int parallelism) {
+        this.processInstanceService = processInstanceService;
+        this.chunkedTransactionRunner = chunkedTransactionRunner;
+        this.objectMapper = objectMapper;
+        this.parallelism = parallelism > 0 ? parallelism : defaultParallelism(dataSource);
+        log.info("Batch process start parallelism: {}", this.parallelism);
+    }
+    
+    /**
+     * Start every request read from the input (a JSON array or newline-delimited JSON objects)
+     * and write one result line per request to the output, in input order
+     */
+    public void startBatch(InputStream input, OutputStream output) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        BatchCounters counters = new BatchCounters();
+        Map<String, WorkflowException> verifiedKeys = new HashMap<>();
+        Deque<Future<List<ProcessStartBatchResult>>> inFlight = new ArrayDeque<>();
+        
+        int index = 0;
+        String readError = null;
+        
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             MappingIterator<StartProcessRequest> requests = readRequests(input)) {
+            List<BatchItem> chunk = new ArrayList<>(chunkSize);
+            try {
+                while (requests.hasNext()) {
+                    StartProcessRequest request = requests.next();
+                    chunk.add(new BatchItem(index++, request, verify(request, verifiedKeys)));
+                    
+                    if (chunk.size() >= chunkSize) {
+                        submit(executor, chunk, inFlight, output, counters);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // Malformed input: stop reading, but finish and report everything read so far
+                readError = e.getMessage();
+            }
+            
+            if (!chunk.isEmpty()) {
+                submit(executor, chunk, inFlight, output, counters);
+            }
+            while (!inFlight.isEmpty()) {
+                writeResults(inFlight.poll(), output, counters);
+            }
+        }
+        
+        if (readError != null) {
+            writeLine(output, ProcessStartBatchResult.builder()
+                    .index(index)
+                    .success(false)
+                    .errorCode("INVALID_REQUEST")
+                    .message("Could not read request: " + readError)
+                    .build());
+            output.flush();
+        }
+        
+        log.info("Batch start finished: {} requested, {} failed in {} ms",
+            counters.written, counters.failed, System.currentTimeMillis() - startedAt);
+    }
+    
+    private void submit(ExecutorService executor, List<BatchItem> chunk,
+                        Deque<Future<List<ProcessStartBatchResult>>> inFlight,
+                        OutputStream output, BatchCounters counters) throws IOException {
+        // Bound the chunks in flight; waiting on the oldest keeps the output in input order
+        while (inFlight.size() >= parallelism) {
+            writeResults(inFlight.poll(), output, counters);
+        }
+        
+        inFlight.add(executor.submit(() -> chunkedTransactionRunner.run(chunk, chunk.size(),
+                this::startChunk,
+                (item, e) -> failure(item, e))));
+    }
+    
+    private List<ProcessStartBatchResult> startChunk(List<BatchItem> chunk) throws WorkflowException {
+        List<ProcessStartBatchResult> results = new ArrayList<>(chunk.size());
+        for (BatchItem item : chunk) {
+            if (item.rejection() != null) {
+                results.add(failure(item, item.rejection()));
+                continue;
+            }
+            
+            ProcessInstanceResponse response = processInstanceService.startVerifiedProcess(item.request());
+            results.add(ProcessStartBatchResult.builder()
+                    .index(item.index())
+                    .success(true)
+                    .processDefinitionKey(item.request().getProcessDefinitionKey())
+                    .businessKey(item.request().getBusinessKey())
+                    .processInstanceId(response.getProcessInstanceId())
+                    .build());
+        }
+        
+        return results;
+    }
+    
+    /**
+     * Validate a request, checking each process definition key only once per batch
+     */
+    private WorkflowException verify(StartProcessRequest request, Map<String, WorkflowException> verifiedKeys) {
+        String key = request.getProcessDefinitionKey();
+        if (key == null || key.isBlank()) {
+            return new WorkflowException("VALIDATION_ERROR", "Process definition key is required");
+        }
+        
+        if (!verifiedKeys.containsKey(key)) {
+            WorkflowException rejection = null;
+            try {
+                processInstanceService.verifyStartable(key);
+            } catch (WorkflowException e) {
+                rejection = e;
+            } catch (WorkflowRuntimeException e) {
+                rejection = new WorkflowException(e.getErrorCode(), e.getMessage());
+            }
+            verifiedKeys.put(key, rejection);
+        }
+        
+        return verifiedKeys.get(key);
+    }
+    
+    private void writeResults(Future<List<ProcessStartBatchResult>> future, OutputStream output,
+                              BatchCounters counters) throws IOException {
+        List<ProcessStartBatchResult> results;
+        try {
+            results = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for batch results", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Batch chunk failed unexpectedly", e.getCause());
+        }
+        
+        for (ProcessStartBatchResult result : results) {
+            writeLine(output, result);
+            counters.written++;
+            if (!result.isSuccess()) {
+                counters.failed++;
+            }
+        }
+        output.flush();
+    }
+    
+    private void writeLine(OutputStream output, ProcessStartBatchResult result) throws IOException {
+        // writeValueAsBytes rather than writeValue, which would close the response stream
+        output.write(objectMapper.writeValueAsBytes(result));
+        output.write('\n');
+    }
+    
+    private MappingIterator<StartProcessRequest> readRequests(InputStream input) throws IOException {
+        JsonParser parser = objectMapper.getFactory().createParser(input);
+        // A JSON array is read element by element; otherwise the input is a sequence of objects (NDJSON)
+        if (parser.nextToken() == JsonToken.START_ARRAY) {
+            // Step into the array; the iterator stops at its END_ARRAY
+            parser.clearCurrentToken();
+        }
+        
+        return objectMapper.readerFor(StartProcessRequest.class).readValues(parser);
+    }
+    
+    private static ProcessStartBatchResult failure(BatchItem item, Exception e) {
+        String errorCode = e instanceof WorkflowException workflowException ? workflowException.getErrorCode()
+                : e instanceof WorkflowRuntimeException runtimeException ? runtimeException.getErrorCode()
+                : "PROCESS_START_FAILED";
+        
+        return ProcessStartBatchResult.builder()
+                .index(item.index())
+                .success(false)
+                .processDefinitionKey(item.request().getProcessDefinitionKey())
+                .businessKey(item.request().getBusinessKey())
+                .errorCode(errorCode)
+                .message(e.getMessage())
+                .build();
+    }
+    
+    private static int defaultParallelism(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+                return Math.max(1, poolSize - RESERVED_CONNECTIONS);
+            }
+        } catch (SQLException e) {
+            log.warn("Could not read connection pool size: {}", e.getMessage());
+        }
+        
+        return 1;
+    }
+    
+    private record BatchItem(int index, StartProcessRequest request, WorkflowException rejection) {
+    }
+    
+    // Only touched by the thread reading the request
+    private static class BatchCounters {
+        
+        private int written;
+        private int failed;
+    }
+}
@@ -0,0 +1,123 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.dto.response.ProcessInstanceResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Read cache for process instance lookups.
+ * Completed instances never change, so they are kept until evicted by size. Active instances are kept
+ * for a short TTL and dropped as soon as an engine event changes them (see ProcessInstanceCacheEventListener).
+ * Entries are grouped per instance, keyed by the requested variable selection.
+ * The cache and its eviction are local to each application node: after a change made through another node,
+ * an active entry here stays stale until process-instances.cache.active-ttl-ms has passed.
+ */
+@Service
+@Slf4j
+public class ProcessInstanceCache {
+    
+    // Cache key for "all variables"
+    private static final String ALL_VARIABLES = "*";
+    
+    private final boolean enabled;
+    private final Cache<String, ConcurrentMap<String, ProcessInstanceResponse>> completed;
+    private final Cache<String, ConcurrentMap<String, ProcessInstanceResponse>> active;
+    
+    public ProcessInstanceCache(MeterRegistry meterRegistry,
+                                @Value("${process-instances.cache.enabled:true}") boolean enabled,
+                                @Value("${process-instances.cache.completed-max-size:10000}") long completedMaxSize,
+                                @Value("${process-instances.cache.active-max-size:10000}") long activeMaxSize,
+                                @Value("${process-instances.cache.active-ttl-ms:5000}") long activeTtlMs) {
+        this.enabled = enabled;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(completedMaxSize)
+                .recordStats()
+                .build();
+        this.active = Caffeine.newBuilder()
+                .maximumSize(activeMaxSize)
+                .expireAfterWrite(Duration.ofMillis(activeTtlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "process_instances_completed");
+        CaffeineCacheMetrics.monitor(meterRegistry, active, "process_instances_active");
+    }
+    
+    /**
+     * Cached response for an instance and variable selection (null = all variables), or null
+     */
+    public ProcessInstanceResponse get(String processInstanceId, Set<String> variableNames) {
+        if (!enabled) {
+            return null;
+        }
+        
+        String selection = selectionKey(variableNames);
+        ProcessInstanceResponse response = lookup(completed, processInstanceId, selection);
+        
+        return response != null ? response : lookup(active, processInstanceId, selection);
+    }
+    
+    public void put(String processInstanceId, Set<String> variableNames, ProcessInstanceResponse response) {
+        if (!enabled) {
+            return;
+        }
+        
+        Cache<String, ConcurrentMap<String, ProcessInstanceResponse>> target =
+                Boolean.FALSE.equals(response.getActive()) ? completed : active;
+        target.asMap()
+                .computeIfAbsent(processInstanceId, id -> new ConcurrentHashMap<>())
+                .put(selectionKey(variableNames), response);
+    }
+    
+    /**
+     * Drop an active instance once the current transaction has finished, so readers cannot re-cache the old state.
+     * Only affects this node's cache.
+     */
+    public void evictActiveAfterCompletion(String processInstanceId) {
+        if (!enabled || processInstanceId == null) {
+            return;
+        }
+        
+        active.invalidate(processInstanceId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    active.invalidate(processInstanceId);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Drop all cached responses of an instance, e.g. after its history was deleted
+     */
+    public void evict(String processInstanceId) {
+        active.invalidate(processInstanceId);
+        completed.invalidate(processInstanceId);
+    }
+    
+    private static ProcessInstanceResponse lookup(Cache<String, ConcurrentMap<String, ProcessInstanceResponse>> cache,
+                                                  String processInstanceId, String selection) {
+        Map<String, ProcessInstanceResponse> responses = cache.getIfPresent(processInstanceId);
+        
+        return responses != null ? responses.get(selection) : null;
+    }
+    
+    private static String selectionKey(Set<String> variableNames) {
+        return variableNames == null ? ALL_VARIABLES : String.join(",", new TreeSet<>(variableNames));
+    }
+}
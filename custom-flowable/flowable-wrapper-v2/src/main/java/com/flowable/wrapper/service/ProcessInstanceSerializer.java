@@ -0,0 +1,234 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.exception.WorkflowException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.flowable.common.engine.api.FlowableOptimisticLockingException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes work on the same process instance, so sibling tasks of parallel branches completed at the same
+ * moment run one after the other instead of failing with an optimistic locking conflict. Within a node,
+ * callers wait on one of a fixed set of striped locks chosen by process instance id, before a connection is
+ * taken; across nodes, the transaction takes a Postgres advisory lock on the process instance.
+ * When the caller has no transaction, each attempt runs in its own and residual conflicts are retried with
+ * jittered exponential backoff; inside a caller's transaction the locks are held until it completes and
+ * retrying is left to the caller.
+ */
+@Component
+@Slf4j
+public class ProcessInstanceSerializer {
+    
+    // Two-key advisory locks live in a separate key space from the single-key locks of the scheduled jobs
+    private static final int ADVISORY_LOCK_NAMESPACE = 7_310_451;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantLock[] stripes;
+    private final Counter conflictCounter;
+    private final Counter retryCounter;
+    private final Timer lockWaitTimer;
+    
+    @Value("${tasks.completion.max-attempts:3}")
+    private int maxAttempts;
+    
+    @Value("${tasks.completion.retry-backoff-ms:25}")
+    private long retryBackoffMs;
+    
+    @Value("${tasks.completion.lock-timeout-ms:10000}")
+    private long lockTimeoutMs;
+    
+    public ProcessInstanceSerializer(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${tasks.completion.lock-stripes:64}") int stripeCount) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stripes = new ReentrantLock[Math.max(stripeCount, 1)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock(true);
+        }
+        this.conflictCounter = Counter.builder("tasks.completion.conflicts")
+                .description("Optimistic locking conflicts while completing tasks")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("tasks.completion.retries")
+                .description("Task completions retried after an optimistic locking conflict")
+                .register(meterRegistry);
+        this.lockWaitTimer = Timer.builder("tasks.completion.lock.wait")
+                .description("Time spent waiting for the process instance lock")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Work run while holding the lock of a process instance
+     */
+    @FunctionalInterface
+    public interface Attempt<T> {
+        T run() throws WorkflowException;
+    }
+    
+    /**
+     * Run the work while holding the lock of the process instance, in the caller's transaction if there is one
+     */
+    public <T> T execute(String processInstanceId, Attempt<T> attempt) throws WorkflowException {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            holdUntilCompletion(acquire(processInstanceId, stripeIndex(processInstanceId)));
+            lockAcrossNodes(processInstanceId);
+            try {
+                return attempt.run();
+            } catch (WorkflowException | RuntimeException e) {
+                if (isConflict(e)) {
+                    conflictCounter.increment();
+                }
+                throw e;
+            }
+        }
+        
+        for (int attemptNumber = 1; ; attemptNumber++) {
+            ReentrantLock lock = acquire(processInstanceId, stripeIndex(processInstanceId));
+            try {
+                return runInTransaction(processInstanceId, attempt);
+            } catch (WorkflowException | RuntimeException e) {
+                if (!isConflict(e)) {
+                    throw e;
+                }
+                
+                conflictCounter.increment();
+                if (attemptNumber >= maxAttempts) {
+                    throw new WorkflowException("CONCURRENT_MODIFICATION",
+                        "Process instance " + processInstanceId + " was modified concurrently, please retry", e);
+                }
+                retryCounter.increment();
+                log.info("Conflict on process instance {} (attempt {}), retrying", processInstanceId, attemptNumber);
+            } finally {
+                lock.unlock();
+            }
+            
+            backoff(attemptNumber);
+        }
+    }
+    
+    /**
+     * Lock several process instances until the caller's transaction completes, for work on all of them at once
+     * (bulk completion); calls to execute for these instances within the transaction then wait for nothing.
+     * Stripes are taken by index and advisory locks by process instance id, so every caller locks in the same
+     * order and two overlapping sets cannot deadlock.
+     */
+    public void lockAll(Collection<String> processInstanceIds) throws WorkflowException {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Locking several process instances requires a transaction");
+        }
+        
+        TreeSet<String> ordered = new TreeSet<>(processInstanceIds);
+        // Several instances may share a stripe, which is taken once
+        TreeMap<Integer, String> stripesToLock = new TreeMap<>();
+        ordered.forEach(processInstanceId -> stripesToLock.putIfAbsent(stripeIndex(processInstanceId), processInstanceId));
+        for (Map.Entry<Integer, String> stripe : stripesToLock.entrySet()) {
+            holdUntilCompletion(acquire(stripe.getValue(), stripe.getKey()));
+        }
+        
+        ordered.forEach(this::lockAcrossNodes);
+    }
+    
+    private <T> T runInTransaction(String processInstanceId, Attempt<T> attempt) throws WorkflowException {
+        try {
+            return transactionTemplate.execute(status -> {
+                lockAcrossNodes(processInstanceId);
+                try {
+                    return attempt.run();
+                } catch (WorkflowException e) {
+                    // Checked, so wrap it to roll the transaction back
+                    throw new AttemptFailedException(e);
+                }
+            });
+        } catch (AttemptFailedException e) {
+            throw (WorkflowException) e.getCause();
+        }
+    }
+    
+    private int stripeIndex(String processInstanceId) {
+        return Math.floorMod(processInstanceId.hashCode(), stripes.length);
+    }
+    
+    private ReentrantLock acquire(String processInstanceId, int stripeIndex) throws WorkflowException {
+        ReentrantLock lock = stripes[stripeIndex];
+        long start = System.nanoTime();
+        try {
+            if (!lock.tryLock(lockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new WorkflowException("PROCESS_INSTANCE_BUSY",
+                    "Process instance " + processInstanceId + " is busy, please retry");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WorkflowException("PROCESS_INSTANCE_BUSY", "Interrupted while waiting for process instance " + processInstanceId);
+        } finally {
+            lockWaitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        
+        return lock;
+    }
+    
+    private void holdUntilCompletion(ReentrantLock lock) {
+        try {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    lock.unlock();
+                }
+            });
+        } catch (RuntimeException e) {
+            lock.unlock();
+            throw e;
+        }
+    }
+    
+    private void lockAcrossNodes(String processInstanceId) {
+        jdbcTemplate.queryForObject("SELECT 1 FROM pg_advisory_xact_lock(?, hashtext(?))", Integer.class,
+                ADVISORY_LOCK_NAMESPACE, processInstanceId);
+    }
+    
+    private void backoff(int attemptNumber) throws WorkflowException {
+        long base = retryBackoffMs << Math.min(attemptNumber - 1, 10);
+        long delay = ThreadLocalRandom.current().nextLong(base / 2, base + base / 2 + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WorkflowException("CONCURRENT_MODIFICATION", "Interrupted while retrying a conflicting update");
+        }
+    }
+    
+    private static boolean isConflict(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof FlowableOptimisticLockingException || t instanceof OptimisticLockingFailureException) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    private static class AttemptFailedException extends RuntimeException {
+        
+        AttemptFailedException(WorkflowException cause) {
+            super(cause);
+        }
+    }
+}
@@ -2,22 +2,27 @@ package com.flowable.wrapper.service;
 
 import com.flowable.wrapper.dto.request.StartProcessRequest;
 import com.flowable.wrapper.dto.response.ProcessInstanceResponse;
-import com.flowable.wrapper.entity.WorkflowMetadata;
 import com.flowable.wrapper.exception.ResourceNotFoundException;
 import com.flowable.wrapper.exception.WorkflowException;
-import com.flowable.wrapper.repository.WorkflowMetadataRepository;
+import com.flowable.wrapper.model.CompiledWorkflow;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.flowable.common.engine.impl.history.HistoryLevel;
 import org.flowable.engine.HistoryService;
 import org.flowable.engine.RuntimeService;
 import org.flowable.engine.history.HistoricProcessInstance;
+import org.flowable.engine.history.HistoricProcessInstanceQuery;
 import org.flowable.engine.runtime.ProcessInstance;
+import org.flowable.engine.runtime.ProcessInstanceQuery;
+import org.flowable.variable.api.history.HistoricVariableInstance;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -27,8 +32,11 @@ public class ProcessInstanceService {
     
     private final RuntimeService runtimeService;
     private final HistoryService historyService;
-    private final WorkflowMetadataRepository workflowMetadataRepository;
-    private final QueueTaskService queueTaskService;
+    private final WorkflowRoutingCache workflowRoutingCache;
+    private final ProcessInstanceCache processInstanceCache;
+    
+    @Value("${flowable.history-level:audit}")
+    private String historyLevel;
     
     /**
      * Start a new process instance
@@ -36,16 +44,28 @@ public class ProcessInstanceService {
     public ProcessInstanceResponse startProcess(StartProcessRequest request) throws WorkflowException {
         log.info("Starting process instance for process: {}", request.getProcessDefinitionKey());
         
-        // Verify workflow is registered and deployed
-        WorkflowMetadata metadata = workflowMetadataRepository
-                .findByProcessDefinitionKeyAndActiveTrue(request.getProcessDefinitionKey())
-                .orElseThrow(() -> new ResourceNotFoundException("Workflow", request.getProcessDefinitionKey()));
+        verifyStartable(request.getProcessDefinitionKey());
         
-        if (!metadata.getDeployed()) {
+        return startVerifiedProcess(request);
+    }
+    
+    /**
+     * Check that a workflow is registered and deployed
+     */
+    public void verifyStartable(String processDefinitionKey) throws WorkflowException {
+        CompiledWorkflow workflow = workflowRoutingCache.getWorkflow(processDefinitionKey)
+                .orElseThrow(() -> new ResourceNotFoundException("Workflow", processDefinitionKey));
+        
+        if (!workflow.isDeployed()) {
             throw new WorkflowException("WORKFLOW_NOT_DEPLOYED", 
-                "Workflow '" + request.getProcessDefinitionKey() + "' is not deployed");
+                "Workflow '" + processDefinitionKey + "' is not deployed");
         }
-        
+    }
+    
+    /**
+     * Start a process instance of a workflow already checked with {@link #verifyStartable(String)}
+     */
+    public ProcessInstanceResponse startVerifiedProcess(StartProcessRequest request) throws WorkflowException {
         try {
             // Prepare variables
             Map<String, Object> variables = request.getVariables() != null ? 
@@ -58,14 +78,9 @@ public class ProcessInstanceService {
                     .variables(variables)
                     .start();
             
+            // Queue tasks are projected by QueueTaskEventListener within the same transaction
             log.info("Process instance started successfully. Instance ID: {}", processInstance.getId());
 
-            // Populate queue tasks for the started process instance
-            queueTaskService.populateQueueTasksForProcessInstance(
-                processInstance.getId(), 
-                request.getProcessDefinitionKey()
-            );
-
             // Build response
             return ProcessInstanceResponse.builder()
                     .processInstanceId(processInstance.getId())
@@ -87,59 +102,161 @@ public class ProcessInstanceService {
     }
     
     /**
-     * Get process instance by ID - checks both active and historic instances
+     * Get process instance by ID with all its variables - checks both active and historic instances
      */
     public ProcessInstanceResponse getProcessInstance(String processInstanceId) {
+        return getProcessInstance(processInstanceId, null);
+    }
+    
+    /**
+     * Get process instance by ID - checks both active and historic instances.
+     * variableNames selects the variables to load: null loads all of them, an empty set none.
+     */
+    public ProcessInstanceResponse getProcessInstance(String processInstanceId, Set<String> variableNames) {
         log.info("Getting process instance: {}", processInstanceId);
         
-        // First try runtime (active processes)
-        ProcessInstance processInstance = runtimeService.createProcessInstanceQuery()
-                .processInstanceId(processInstanceId)
-                .includeProcessVariables()
-                .singleResult();
-                
-        if (processInstance != null) {
-            log.info("Found active process instance: {}", processInstanceId);
-            return ProcessInstanceResponse.builder()
-                    .processInstanceId(processInstance.getId())
-                    .processDefinitionId(processInstance.getProcessDefinitionId())
-                    .processDefinitionKey(processInstance.getProcessDefinitionKey())
-                    .processDefinitionName(processInstance.getProcessDefinitionName())
-                    .businessKey(processInstance.getBusinessKey())
-                    .startTime(Instant.now()) // Flowable doesn't expose start time directly in runtime
-                    .startedBy(processInstance.getStartUserId())
-                    .suspended(processInstance.isSuspended())
-                    .variables(processInstance.getProcessVariables())
-                    .active(true)
-                    .build();
+        ProcessInstanceResponse cached = processInstanceCache.get(processInstanceId, variableNames);
+        if (cached != null) {
+            return cached;
         }
         
-        // Not found in runtime, check history
-        HistoricProcessInstance historicInstance = historyService.createHistoricProcessInstanceQuery()
-                .processInstanceId(processInstanceId)
-                .includeProcessVariables()
+        ProcessInstanceResponse response = isHistoryFirst() 
+            ? resolveHistoryFirst(processInstanceId, variableNames) 
+            : resolveRuntimeFirst(processInstanceId, variableNames);
+        if (response == null) {
+            throw new ResourceNotFoundException("Process instance", processInstanceId);
+        }
+        
+        processInstanceCache.put(processInstanceId, variableNames, response);
+        return response;
+    }
+    
+    /**
+     * Every instance has a historic row from the start, so one query for a finished historic row settles
+     * finished instances, variables included; only when it finds none is the runtime row read
+     * (for suspension state and live variables).
+     */
+    private ProcessInstanceResponse resolveHistoryFirst(String processInstanceId, Set<String> variableNames) {
+        HistoricProcessInstance finishedInstance = historicQuery(processInstanceId, variableNames)
+                .finished()
                 .singleResult();
-                
-        if (historicInstance != null) {
-            log.info("Found completed process instance in history: {}", processInstanceId);
-            return ProcessInstanceResponse.builder()
-                    .processInstanceId(historicInstance.getId())
-                    .processDefinitionId(historicInstance.getProcessDefinitionId())
-                    .processDefinitionKey(historicInstance.getProcessDefinitionKey())
-                    .processDefinitionName(historicInstance.getProcessDefinitionName())
-                    .businessKey(historicInstance.getBusinessKey())
-                    .startTime(historicInstance.getStartTime() != null ? 
-                        historicInstance.getStartTime().toInstant() : null)
-                    .endTime(historicInstance.getEndTime() != null ? 
-                        historicInstance.getEndTime().toInstant() : null)
-                    .startedBy(historicInstance.getStartUserId())
-                    .suspended(false) // Completed processes are not suspended
-                    .variables(historicInstance.getProcessVariables())
-                    .active(false)
-                    .durationInMillis(historicInstance.getDurationInMillis())
-                    .build();
+        if (finishedInstance != null) {
+            return fromHistoric(finishedInstance, variableNames);
+        }
+        
+        // Active, or a definition deployed without history
+        ProcessInstanceResponse active = findRuntime(processInstanceId, variableNames);
+        
+        // Otherwise unknown, or ended between the two lookups
+        return active != null ? active : findHistoric(processInstanceId, variableNames);
+    }
+    
+    private ProcessInstanceResponse resolveRuntimeFirst(String processInstanceId, Set<String> variableNames) {
+        ProcessInstanceResponse active = findRuntime(processInstanceId, variableNames);
+        
+        return active != null ? active : findHistoric(processInstanceId, variableNames);
+    }
+    
+    private boolean isHistoryFirst() {
+        return HistoryLevel.getHistoryLevelForKey(historyLevel).isAtLeast(HistoryLevel.ACTIVITY);
+    }
+    
+    private ProcessInstanceResponse findRuntime(String processInstanceId, Set<String> variableNames) {
+        ProcessInstanceQuery runtimeQuery = runtimeService.createProcessInstanceQuery()
+                .processInstanceId(processInstanceId);
+        if (variableNames == null) {
+            runtimeQuery.includeProcessVariables();
+        }
+        ProcessInstance processInstance = runtimeQuery.singleResult();
+        if (processInstance == null) {
+            return null;
+        }
+        
+        log.info("Found active process instance: {}", processInstanceId);
+        return ProcessInstanceResponse.builder()
+                .processInstanceId(processInstance.getId())
+                .processDefinitionId(processInstance.getProcessDefinitionId())
+                .processDefinitionKey(processInstance.getProcessDefinitionKey())
+                .processDefinitionName(processInstance.getProcessDefinitionName())
+                .businessKey(processInstance.getBusinessKey())
+                .startTime(Instant.now()) // Flowable doesn't expose start time directly in runtime
+                .startedBy(processInstance.getStartUserId())
+                .suspended(processInstance.isSuspended())
+                .variables(variableNames == null ? processInstance.getProcessVariables() 
+                    : selectedRuntimeVariables(processInstanceId, variableNames))
+                .active(true)
+                .build();
+    }
+    
+    private ProcessInstanceResponse findHistoric(String processInstanceId, Set<String> variableNames) {
+        HistoricProcessInstance historicInstance = historicQuery(processInstanceId, variableNames).singleResult();
+        
+        return historicInstance != null ? fromHistoric(historicInstance, variableNames) : null;
+    }
+    
+    private HistoricProcessInstanceQuery historicQuery(String processInstanceId, Set<String> variableNames) {
+        HistoricProcessInstanceQuery historicQuery = historyService.createHistoricProcessInstanceQuery()
+                .processInstanceId(processInstanceId);
+        if (variableNames == null) {
+            historicQuery.includeProcessVariables();
+        }
+        
+        return historicQuery;
+    }
+    
+    private ProcessInstanceResponse fromHistoric(HistoricProcessInstance historicInstance, Set<String> variableNames) {
+        log.info("Found completed process instance in history: {}", historicInstance.getId());
+        return ProcessInstanceResponse.builder()
+                .processInstanceId(historicInstance.getId())
+                .processDefinitionId(historicInstance.getProcessDefinitionId())
+                .processDefinitionKey(historicInstance.getProcessDefinitionKey())
+                .processDefinitionName(historicInstance.getProcessDefinitionName())
+                .businessKey(historicInstance.getBusinessKey())
+                .startTime(historicInstance.getStartTime() != null ? 
+                    historicInstance.getStartTime().toInstant() : null)
+                .endTime(historicInstance.getEndTime() != null ? 
+                    historicInstance.getEndTime().toInstant() : null)
+                .startedBy(historicInstance.getStartUserId())
+                .suspended(false) // Completed processes are not suspended
+                .variables(variableNames == null ? historicInstance.getProcessVariables() 
+                    : selectedHistoricVariables(historicInstance.getId(), variableNames))
+                .active(false)
+                .durationInMillis(historicInstance.getDurationInMillis())
+                .build();
+    }
+    
+    /**
+     * Load only the named variables of a running instance, with a single query; null when none are requested
+     */
+    private Map<String, Object> selectedRuntimeVariables(String processInstanceId, Set<String> variableNames) {
+        if (variableNames.isEmpty()) {
+            return null;
+        }
+        
+        return runtimeService.getVariables(processInstanceId, variableNames);
+    }
+    
+    /**
+     * Load only the named process-level variables of a finished instance; null when none are requested
+     */
+    private Map<String, Object> selectedHistoricVariables(String processInstanceId, Set<String> variableNames) {
+        if (variableNames.isEmpty()) {
+            return null;
+        }
+        
+        // The historic variable query has no name-list filter, so look up each (indexed) name
+        Map<String, Object> variables = new HashMap<>();
+        for (String variableName : variableNames) {
+            HistoricVariableInstance variable = historyService.createHistoricVariableInstanceQuery()
+                    .processInstanceId(processInstanceId)
+                    .excludeLocalVariables()
+                    .variableName(variableName)
+                    .singleResult();
+            if (variable != null) {
+                variables.put(variableName, variable.getValue());
+            }
         }
         
-        throw new ResourceNotFoundException("Process instance", processInstanceId);
+        return variables;
     }
 }
\ No newline at end of file
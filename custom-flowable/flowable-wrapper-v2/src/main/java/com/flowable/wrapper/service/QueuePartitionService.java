@@ -0,0 +1,201 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.entity.WorkflowMetadata;
+import com.flowable.wrapper.model.TaskQueueMapping;
+import com.flowable.wrapper.repository.WorkflowMetadataRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates one list partition of queue_tasks per queue, so every queue query prunes to a single
+ * partition with its own indexes and vacuum schedule. Rows of queues without a partition land in
+ * queue_tasks_default and are moved into the new partition when it is created.
+ * Creating a partition is not free for other sessions: writes to queue_tasks_default wait until it commits,
+ * and the final ATTACH scans queue_tasks_default under an ACCESS EXCLUSIVE lock, which also holds up reads
+ * that are not pruned to another partition (e.g. lookups by task ID alone). The pause grows with the size of
+ * the default partition, so queues are best provisioned when their workflow is registered, before rows pile up.
+ */
+@Service
+@Slf4j
+public class QueuePartitionService {
+    
+    // Arbitrary key serializing partition DDL across application nodes
+    private static final long PARTITION_LOCK_KEY = 7_310_451_003L;
+    
+    private static final int MAX_NAME_PART_LENGTH = 32;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final WorkflowMetadataRepository workflowMetadataRepository;
+    
+    // Queues known to have a partition in this JVM, to skip catalog lookups on repeated deploys
+    private final Set<String> provisionedQueues = ConcurrentHashMap.newKeySet();
+    
+    @Value("${queue.partitioning.enabled:true}")
+    private boolean enabled;
+    
+    public QueuePartitionService(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 WorkflowMetadataRepository workflowMetadataRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.workflowMetadataRepository = workflowMetadataRepository;
+    }
+    
+    /**
+     * Make sure every queue of every active workflow has a partition, moving stragglers out of the default partition
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void provisionAll() {
+        if (!enabled) {
+            return;
+        }
+        
+        Set<String> queues = new TreeSet<>();
+        for (WorkflowMetadata metadata : workflowMetadataRepository.findAll()) {
+            if (Boolean.TRUE.equals(metadata.getActive())) {
+                queues.addAll(queuesOf(metadata));
+            }
+        }
+        
+        queues.forEach(this::ensurePartition);
+        log.info("Queue partitions checked for {} queues", queues.size());
+    }
+    
+    /**
+     * Create partitions for the queues of a workflow once the current transaction commits
+     */
+    public void provisionAfterCommit(WorkflowMetadata metadata) {
+        if (!enabled) {
+            return;
+        }
+        
+        Set<String> queues = queuesOf(metadata);
+        Runnable provision = () -> queues.forEach(this::ensurePartition);
+        
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    provision.run();
+                }
+            });
+        } else {
+            provision.run();
+        }
+    }
+    
+    /**
+     * Create the partition of a single queue if it does not exist yet.
+     * Failures are logged only; rows keep flowing into the default partition until the next attempt.
+     */
+    public void ensurePartition(String queueName) {
+        if (queueName == null || queueName.isBlank() || provisionedQueues.contains(queueName)) {
+            return;
+        }
+        
+        try {
+            Integer moved = transactionTemplate.execute(status -> createPartition(queueName));
+            provisionedQueues.add(queueName);
+            if (moved != null && moved >= 0) {
+                log.info("Created partition {} for queue '{}' ({} rows moved from default partition)",
+                    partitionName(queueName), queueName, moved);
+            }
+        } catch (Exception e) {
+            log.error("Failed to create partition for queue '{}': {}", queueName, e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Deterministic partition table name; the hash keeps queues that sanitize to the same name apart
+     */
+    static String partitionName(String queueName) {
+        String sanitized = queueName.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_");
+        if (sanitized.length() > MAX_NAME_PART_LENGTH) {
+            sanitized = sanitized.substring(0, MAX_NAME_PART_LENGTH);
+        }
+        String hash = DigestUtils.md5DigestAsHex(queueName.getBytes(StandardCharsets.UTF_8)).substring(0, 8);
+        
+        return "queue_tasks_q_" + sanitized + "_" + hash;
+    }
+    
+    /**
+     * Returns the number of rows moved from the default partition, or -1 if nothing had to be created
+     */
+    private int createPartition(String queueName) {
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?)", PARTITION_LOCK_KEY);
+        
+        String parentKind = jdbcTemplate.queryForObject(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('queue_tasks')", String.class);
+        if (!"p".equals(parentKind)) {
+            log.warn("queue_tasks is not partitioned, skipping partition for queue '{}'", queueName);
+            return -1;
+        }
+        
+        String partition = partitionName(queueName);
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition);
+        if (Boolean.TRUE.equals(exists)) {
+            return -1;
+        }
+        
+        String queueLiteral = "'" + queueName.replace("'", "''") + "'";
+        
+        // Block writes to the default partition so no row of this queue slips in between move and attach.
+        // Inserts of every queue without a partition wait here until this transaction commits.
+        jdbcTemplate.execute("LOCK TABLE queue_tasks_default IN SHARE ROW EXCLUSIVE MODE");
+        
+        // Build the partition as a standalone table first; the CHECK constraint lets ATTACH skip validating
+        // the new partition itself
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE queue_tasks INCLUDING DEFAULTS)");
+        jdbcTemplate.execute("ALTER TABLE " + partition + " ADD CONSTRAINT " + partition + "_queue CHECK (queue_name = " + queueLiteral + ")");
+        
+        int moved = jdbcTemplate.update(
+                "WITH moved AS (DELETE FROM queue_tasks_default WHERE queue_name = ? RETURNING *) " +
+                "INSERT INTO " + partition + " SELECT * FROM moved", queueName);
+        
+        // Attaching also creates the partitioned indexes and primary key on the new partition. It takes
+        // ACCESS EXCLUSIVE on queue_tasks_default and scans all of it to prove no row belongs to the new
+        // partition, so reads of the default partition wait as well until this transaction commits
+        jdbcTemplate.execute("ALTER TABLE queue_tasks ATTACH PARTITION " + partition + " FOR VALUES IN (" + queueLiteral + ")");
+        jdbcTemplate.execute("ALTER TABLE " + partition + " DROP CONSTRAINT " + partition + "_queue");
+        
+        return moved;
+    }
+    
+    private Set<String> queuesOf(WorkflowMetadata metadata) {
+        Set<String> queues = new TreeSet<>();
+        if (metadata.getCandidateGroupMappings() != null) {
+            for (String queue : metadata.getCandidateGroupMappings().values()) {
+                if (queue != null) {
+                    queues.add(queue);
+                }
+            }
+        }
+        if (metadata.getTaskQueueMappings() != null) {
+            for (TaskQueueMapping mapping : metadata.getTaskQueueMappings()) {
+                if (mapping != null && mapping.getQueue() != null) {
+                    queues.add(mapping.getQueue());
+                }
+            }
+        }
+        
+        return queues;
+    }
+}
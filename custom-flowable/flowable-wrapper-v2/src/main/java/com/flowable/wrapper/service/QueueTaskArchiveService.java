@@ -0,0 +1,163 @@
+package com.flowable.wrapper.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Moves completed queue tasks from queue_tasks into the monthly partitions of queue_tasks_archive,
+ * so the hot table and its indexes only grow with open work.
+ * Each batch locks its rows, creates the archive partitions of their months, and moves exactly those rows
+ * with a single DELETE ... RETURNING / INSERT statement, all in its own transaction, so a run can stop at
+ * any point and the next run simply continues with the rows that are still left.
+ */
+@Service
+@Slf4j
+public class QueueTaskArchiveService {
+    
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    
+    // Arbitrary key so only one application node moves rows at a time
+    private static final long ARCHIVE_LOCK_KEY = 7_310_451_002L;
+    
+    // Locks the batch first, so the partitions created for it are exactly the months of the rows moved
+    private static final String LOCK_BATCH_SQL = """
+            SELECT task_id, completed_at FROM queue_tasks
+            WHERE status = 'COMPLETED'
+              AND completed_at < LOCALTIMESTAMP - make_interval(secs => ?)
+            ORDER BY completed_at
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+    
+    private static final String MOVE_BATCH_SQL = """
+            WITH moved AS (
+                DELETE FROM queue_tasks
+                WHERE task_id = ANY (?)
+                RETURNING task_id, process_instance_id, process_definition_key, task_definition_key, task_name,
+                          queue_name, business_key, assignee, status, priority, created_at, claimed_at,
+                          completed_at, task_data
+            )
+            INSERT INTO queue_tasks_archive (task_id, process_instance_id, process_definition_key,
+                                             task_definition_key, task_name, queue_name, business_key, assignee,
+                                             status, priority, created_at, claimed_at, completed_at, task_data)
+            SELECT task_id, process_instance_id, process_definition_key, task_definition_key, task_name,
+                   queue_name, business_key, assignee, status, priority, created_at, claimed_at,
+                   completed_at, task_data
+            FROM moved
+            """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter movedCounter;
+    
+    @Value("${queue.archive.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${queue.archive.completed-grace-seconds:600}")
+    private long completedGraceSeconds;
+    
+    @Value("${queue.archive.batch-size:1000}")
+    private int batchSize;
+    
+    @Value("${queue.archive.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+    
+    @Value("${queue.archive.batch-pause-ms:200}")
+    private long batchPauseMs;
+    
+    public QueueTaskArchiveService(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.movedCounter = Counter.builder("queue.archive.moved")
+                .description("Completed queue tasks moved to queue_tasks_archive")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Move completed tasks older than the grace period, in bounded and throttled batches
+     */
+    @Scheduled(initialDelayString = "${queue.archive.initial-delay-ms:60000}",
+               fixedDelayString = "${queue.archive.interval-ms:60000}")
+    public void archiveCompletedTasks() {
+        if (!enabled) {
+            return;
+        }
+        
+        int moved = 0;
+        try {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                Integer batchMoved = transactionTemplate.execute(status -> moveBatch());
+                if (batchMoved == null || batchMoved == 0) {
+                    break;
+                }
+                
+                moved += batchMoved;
+                movedCounter.increment(batchMoved);
+                
+                if (batchMoved < batchSize) {
+                    break;
+                }
+                // Leave room for foreground traffic between batches
+                Thread.sleep(batchPauseMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Queue task archiving stopped after {} rows: {}", moved, e.getMessage(), e);
+        }
+        
+        if (moved > 0) {
+            log.info("Archived {} completed queue tasks", moved);
+        }
+    }
+    
+    /**
+     * Move one batch, in the caller's transaction
+     */
+    int moveBatch() {
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ARCHIVE_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            log.debug("Another node is archiving queue tasks, skipping this run");
+            return 0;
+        }
+        
+        List<String> taskIds = new ArrayList<>();
+        Set<LocalDate> months = new TreeSet<>();
+        jdbcTemplate.query(LOCK_BATCH_SQL, rs -> {
+            taskIds.add(rs.getString("task_id"));
+            months.add(rs.getTimestamp("completed_at").toLocalDateTime().toLocalDate().withDayOfMonth(1));
+        }, completedGraceSeconds, batchSize);
+        if (taskIds.isEmpty()) {
+            return 0;
+        }
+        
+        for (LocalDate month : months) {
+            ensureMonthlyPartition(month);
+        }
+        
+        return jdbcTemplate.update(MOVE_BATCH_SQL, (Object) taskIds.toArray(new String[0]));
+    }
+    
+    private void ensureMonthlyPartition(LocalDate monthStart) {
+        String partition = "queue_tasks_archive_" + monthStart.format(PARTITION_SUFFIX);
+        jdbcTemplate.execute(String.format(
+                "CREATE TABLE IF NOT EXISTS %s PARTITION OF queue_tasks_archive FOR VALUES FROM ('%s') TO ('%s')",
+                partition, monthStart, monthStart.plusMonths(1)));
+    }
+}
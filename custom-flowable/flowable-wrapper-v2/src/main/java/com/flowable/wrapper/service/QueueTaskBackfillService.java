@@ -0,0 +1,144 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.entity.QueueTask;
+import com.flowable.wrapper.repository.QueueTaskRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.flowable.engine.HistoryService;
+import org.flowable.engine.RuntimeService;
+import org.flowable.engine.history.HistoricProcessInstance;
+import org.flowable.engine.runtime.ProcessInstance;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * One-off backfill of queue_tasks.business_key for rows projected before the column existed.
+ * Walks the rows once in task id order, one transaction and two engine queries per batch.
+ * A finished walk is recorded in completed_migrations, so later startups skip it; rows it could not
+ * resolve (no business key, or the process instance is gone) are not scanned again.
+ */
+@Service
+@Slf4j
+public class QueueTaskBackfillService {
+    
+    private static final String MIGRATION_NAME = "queue_tasks.business_key";
+    
+    private final QueueTaskRepository queueTaskRepository;
+    private final RuntimeService runtimeService;
+    private final HistoryService historyService;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Value("${queue.backfill.business-key.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${queue.backfill.business-key.batch-size:500}")
+    private int batchSize;
+    
+    public QueueTaskBackfillService(QueueTaskRepository queueTaskRepository,
+                                    RuntimeService runtimeService,
+                                    HistoryService historyService,
+                                    PlatformTransactionManager transactionManager,
+                                    JdbcTemplate jdbcTemplate) {
+        this.queueTaskRepository = queueTaskRepository;
+        this.runtimeService = runtimeService;
+        this.historyService = historyService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillBusinessKeys() {
+        if (!enabled || isCompleted()) {
+            return;
+        }
+        
+        String lastTaskId = "";
+        int updated = 0;
+        int scanned = 0;
+        
+        try {
+            while (true) {
+                String fromTaskId = lastTaskId;
+                BatchResult result = transactionTemplate.execute(status -> backfillBatch(fromTaskId));
+                if (result == null || result.scanned() == 0) {
+                    break;
+                }
+                
+                updated += result.updated();
+                scanned += result.scanned();
+                lastTaskId = result.lastTaskId();
+            }
+        } catch (Exception e) {
+            log.error("Business key backfill stopped after {} rows: {}", scanned, e.getMessage(), e);
+            return;
+        }
+        
+        jdbcTemplate.update("INSERT INTO completed_migrations (name) VALUES (?) ON CONFLICT (name) DO NOTHING", MIGRATION_NAME);
+        if (scanned > 0) {
+            log.info("Business key backfill scanned {} queue tasks and updated {}", scanned, updated);
+        }
+    }
+    
+    private boolean isCompleted() {
+        return !jdbcTemplate.queryForList("SELECT 1 FROM completed_migrations WHERE name = ?", Integer.class, MIGRATION_NAME)
+                .isEmpty();
+    }
+    
+    private BatchResult backfillBatch(String fromTaskId) {
+        List<QueueTask> batch = queueTaskRepository.findByBusinessKeyIsNullAndTaskIdGreaterThanOrderByTaskIdAsc(
+                fromTaskId, PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return new BatchResult(0, 0, fromTaskId);
+        }
+        
+        Set<String> processInstanceIds = batch.stream()
+                .map(QueueTask::getProcessInstanceId)
+                .collect(Collectors.toSet());
+        
+        Map<String, String> businessKeys = new HashMap<>();
+        for (ProcessInstance processInstance : runtimeService.createProcessInstanceQuery()
+                .processInstanceIds(processInstanceIds)
+                .list()) {
+            businessKeys.put(processInstance.getId(), processInstance.getBusinessKey());
+        }
+        
+        // Finished instances are only available in history
+        Set<String> remaining = new HashSet<>(processInstanceIds);
+        remaining.removeAll(businessKeys.keySet());
+        if (!remaining.isEmpty()) {
+            for (HistoricProcessInstance historicInstance : historyService.createHistoricProcessInstanceQuery()
+                    .processInstanceIds(remaining)
+                    .list()) {
+                businessKeys.put(historicInstance.getId(), historicInstance.getBusinessKey());
+            }
+        }
+        
+        // Managed entities are flushed on commit; rows without a business key stay untouched
+        int updated = 0;
+        for (QueueTask queueTask : batch) {
+            String businessKey = businessKeys.get(queueTask.getProcessInstanceId());
+            if (businessKey != null) {
+                queueTask.setBusinessKey(businessKey);
+                updated++;
+            }
+        }
+        
+        return new BatchResult(batch.size(), updated, batch.get(batch.size() - 1).getTaskId());
+    }
+    
+    private record BatchResult(int scanned, int updated, String lastTaskId) {
+    }
+}
@@ -0,0 +1,203 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.entity.QueueTask;
+import com.flowable.wrapper.entity.QueueTaskId;
+import com.flowable.wrapper.enums.TaskStatus;
+import com.flowable.wrapper.repository.QueueTaskRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.flowable.task.api.Task;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Projects Flowable task lifecycle changes into the queue_tasks table.
+ * Has no dependency on the engine services so it can be used from engine event listeners.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class QueueTaskProjectionService {
+    
+    private final WorkflowRoutingCache workflowRoutingCache;
+    private final QueueTaskRepository queueTaskRepository;
+    
+    /**
+     * Insert the queue entry for a newly created task; returns null if the task has no queue
+     */
+    public QueueTask projectTask(Task task, String processDefinitionKey, String businessKey) {
+        QueueTask queueTask = buildQueueTask(task, processDefinitionKey, businessKey);
+        if (queueTask == null) {
+            return null;
+        }
+        
+        // New entities are persisted without a pre-select; inserts of one command are batched at flush
+        try {
+            queueTaskRepository.save(queueTask);
+            log.info("Successfully inserted task {} into queue '{}' for process instance {}",
+                task.getId(), queueTask.getQueueName(), task.getProcessInstanceId());
+        } catch (Exception e) {
+            log.error("Failed to insert queue task: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to insert queue task", e);
+        }
+        
+        return queueTask;
+    }
+    
+    /**
+     * Insert queue entries for all tasks of a process instance that are not yet in a queue,
+     * with one lookup for existing rows and one batched insert
+     */
+    public int projectTasks(List<Task> tasks, String processDefinitionKey, String businessKey) {
+        if (tasks.isEmpty()) {
+            return 0;
+        }
+        
+        // Not limited to the tasks' current queues: a row projected before the routing changed still counts
+        Set<String> existingTaskIds = queueTaskRepository.findByTaskIdIn(
+                tasks.stream().map(Task::getId).collect(Collectors.toList())).stream()
+                .map(QueueTask::getTaskId)
+                .collect(Collectors.toSet());
+        
+        List<QueueTask> newRows = new ArrayList<>();
+        for (Task task : tasks) {
+            if (existingTaskIds.contains(task.getId())) {
+                continue;
+            }
+            QueueTask queueTask = buildQueueTask(task, processDefinitionKey, businessKey);
+            if (queueTask != null) {
+                newRows.add(queueTask);
+            }
+        }
+        
+        if (!newRows.isEmpty()) {
+            queueTaskRepository.saveAll(newRows);
+            // Flush here so the JDBC batch is sent (and any failure surfaces) inside this call
+            queueTaskRepository.flush();
+        }
+        
+        log.info("Inserted {} queue tasks ({} already present) for process definition {}",
+            newRows.size(), existingTaskIds.size(), processDefinitionKey);
+        
+        return newRows.size();
+    }
+    
+    /**
+     * Sync the assignee of a queue entry with the Flowable task
+     */
+    public void markAssigned(Task task, String processDefinitionKey) {
+        String taskId = task.getId();
+        String assignee = task.getAssignee();
+        findProjectedTask(task, processDefinitionKey).ifPresent(queueTask -> {
+            queueTask.setAssignee(assignee);
+            queueTask.setStatus(assignee != null ? TaskStatus.CLAIMED : TaskStatus.OPEN);
+            queueTask.setClaimedAt(assignee != null ? Instant.now() : null);
+            
+            queueTaskRepository.save(queueTask);
+            
+            log.debug("Task {} assignee set to {} in queue", taskId, assignee);
+        });
+    }
+    
+    /**
+     * Mark a queue entry as completed
+     */
+    public void markCompleted(Task task, String processDefinitionKey) {
+        String taskId = task.getId();
+        findProjectedTask(task, processDefinitionKey).ifPresent(queueTask -> {
+            queueTask.setStatus(TaskStatus.COMPLETED);
+            queueTask.setCompletedAt(Instant.now());
+            
+            queueTaskRepository.save(queueTask);
+            
+            log.info("Task {} marked as completed in queue", taskId);
+        });
+    }
+    
+    /**
+     * Remove the queue entry of a task deleted without being completed, e.g. by an interrupting boundary event;
+     * the entry of a completed task is kept
+     */
+    public void removeOpenTask(Task task, String processDefinitionKey) {
+        findProjectedTask(task, processDefinitionKey)
+                .filter(queueTask -> !queueTask.isCompleted())
+                .ifPresent(queueTask -> {
+                    queueTaskRepository.delete(queueTask);
+                    
+                    log.info("Removed open queue task {} of deleted task {}", queueTask.getTaskDefinitionKey(), task.getId());
+                });
+    }
+    
+    /**
+     * Remove all open and claimed queue entries of a process instance
+     */
+    public void removeOpenTasks(String processInstanceId) {
+        long removed = queueTaskRepository.deleteByProcessInstanceIdAndStatusIn(
+                processInstanceId, Arrays.asList(TaskStatus.OPEN, TaskStatus.CLAIMED));
+        
+        log.info("Removed {} open queue tasks for ended process instance {}", removed, processInstanceId);
+    }
+    
+    /**
+     * Load the queue entry of a task from the partition of the queue it is routed to, the same way it was
+     * projected; a row already in the persistence context (claim-next, completion) is not read again
+     */
+    private Optional<QueueTask> findProjectedTask(Task task, String processDefinitionKey) {
+        String queueName = workflowRoutingCache.findQueue(processDefinitionKey, task.getTaskDefinitionKey());
+        if (queueName == null) {
+            return Optional.empty(); // Tasks without a queue mapping are never projected
+        }
+        
+        Optional<QueueTask> queueTask = queueTaskRepository.findById(new QueueTaskId(task.getId(), queueName));
+        
+        // The routing may have changed since the row was projected
+        return queueTask.isPresent() ? queueTask : queueTaskRepository.findByTaskId(task.getId());
+    }
+    
+    /**
+     * Build the queue entry of a task, or null if the task has no queue mapping
+     */
+    private QueueTask buildQueueTask(Task task, String processDefinitionKey, String businessKey) {
+        // Find the queue for this task
+        String queueName = workflowRoutingCache.findQueue(processDefinitionKey, task.getTaskDefinitionKey());
+        
+        if (queueName == null) {
+            log.warn("No queue mapping found for task {} in process {}", 
+                task.getTaskDefinitionKey(), processDefinitionKey);
+            return null;
+        }
+        
+        Map<String, Object> taskData = new HashMap<>();
+        taskData.put("description", task.getDescription());
+        taskData.put("dueDate", task.getDueDate());
+        taskData.put("createTime", task.getCreateTime());
+        taskData.put("owner", task.getOwner());
+        taskData.put("taskDefinitionKey", task.getTaskDefinitionKey());
+        taskData.put("formKey", task.getFormKey());
+        
+        return QueueTask.builder()
+                .taskId(task.getId())
+                .processInstanceId(task.getProcessInstanceId())
+                .processDefinitionKey(processDefinitionKey)
+                .taskDefinitionKey(task.getTaskDefinitionKey())
+                .taskName(task.getName())
+                .queueName(queueName)
+                .businessKey(businessKey)
+                .assignee(task.getAssignee())
+                .status(TaskStatus.OPEN)
+                .priority(task.getPriority() > 0 ? task.getPriority() : 50)
+                .taskData(taskData)
+                .build();
+    }
+}
@@ -1,25 +1,28 @@
 package com.flowable.wrapper.service;
 
+import com.flowable.wrapper.dto.response.QueueTaskPageResponse;
 import com.flowable.wrapper.dto.response.QueueTaskResponse;
 import com.flowable.wrapper.entity.QueueTask;
-import com.flowable.wrapper.entity.WorkflowMetadata;
+import com.flowable.wrapper.entity.QueueTaskArchive;
+import com.flowable.wrapper.entity.QueueTaskId;
 import com.flowable.wrapper.enums.TaskStatus;
 import com.flowable.wrapper.exception.ResourceNotFoundException;
-import com.flowable.wrapper.model.TaskQueueMapping;
+import com.flowable.wrapper.exception.WorkflowException;
+import com.flowable.wrapper.model.QueueTaskCursor;
+import com.flowable.wrapper.repository.QueueTaskArchiveRepository;
 import com.flowable.wrapper.repository.QueueTaskRepository;
-import com.flowable.wrapper.repository.WorkflowMetadataRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.flowable.engine.RuntimeService;
 import org.flowable.engine.runtime.ProcessInstance;
 import org.flowable.task.api.Task;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,28 +31,28 @@ import java.util.stream.Collectors;
 @Transactional
 public class QueueTaskService {
     
-    private final WorkflowMetadataRepository workflowMetadataRepository;
     private final QueueTaskRepository queueTaskRepository;
+    private final QueueTaskArchiveRepository queueTaskArchiveRepository;
+    private final QueueTaskProjectionService queueTaskProjectionService;
     private final org.flowable.engine.TaskService taskService;
     private final RuntimeService runtimeService;
     
+    @Value("${queue.pagination.default-page-size:50}")
+    private int defaultPageSize;
+    
+    @Value("${queue.pagination.max-page-size:200}")
+    private int maxPageSize;
+    
+    @Value("${queue.pagination.count-cap:10000}")
+    private int countCap;
+    
     /**
-     * Populate queue tasks for a newly started process instance
+     * Populate queue tasks for all active tasks of a process instance.
+     * Regular projection happens in QueueTaskEventListener; this re-syncs an instance on demand.
      */
     public void populateQueueTasksForProcessInstance(String processInstanceId, String processDefinitionKey) {
         log.info("Populating queue tasks for process instance: {}", processInstanceId);
         
-        // Find workflow metadata
-        Optional<WorkflowMetadata> metadataOpt = workflowMetadataRepository
-                .findByProcessDefinitionKeyAndActiveTrue(processDefinitionKey);
-                
-        if (metadataOpt.isEmpty()) {
-            log.warn("No workflow metadata found for process: {}", processDefinitionKey);
-            return;
-        }
-        
-        WorkflowMetadata metadata = metadataOpt.get();
-        
         // Get all active tasks for this process instance
         List<Task> tasks = taskService.createTaskQuery()
                 .processInstanceId(processInstanceId)
@@ -58,214 +61,301 @@ public class QueueTaskService {
                 
         log.info("Found {} active tasks for process instance {}", tasks.size(), processInstanceId);
         
-        // Process each task
-        for (Task task : tasks) {
-            try {
-                populateQueueTask(task, metadata, processDefinitionKey);
-            } catch (Exception e) {
-                log.error("Failed to populate queue task for task {}: {}", task.getId(), e.getMessage(), e);
-                // Continue with other tasks even if one fails
-            }
-        }
-    }
-    
-    private void populateQueueTask(Task task, WorkflowMetadata metadata, String processDefinitionKey) {
-        // Find the queue for this task
-        String queueName = findQueueForTask(task, metadata);
+        ProcessInstance processInstance = runtimeService.createProcessInstanceQuery()
+                .processInstanceId(processInstanceId)
+                .singleResult();
+        String businessKey = processInstance != null ? processInstance.getBusinessKey() : null;
         
-        if (queueName == null) {
-            log.warn("No queue mapping found for task {} in process {}", 
-                task.getTaskDefinitionKey(), processDefinitionKey);
-            return;
-        }
+        long started = System.nanoTime();
+        int inserted = queueTaskProjectionService.projectTasks(tasks, processDefinitionKey, businessKey);
         
-        // Insert into queue_tasks table
-        insertQueueTask(task, queueName, processDefinitionKey);
+        log.info("Populated {} queue tasks for process instance {} in {} ms",
+            inserted, processInstanceId, (System.nanoTime() - started) / 1_000_000);
     }
     
-    private String findQueueForTask(Task task, WorkflowMetadata metadata) {
-        // Look for task in the task queue mappings
-        if (metadata.getTaskQueueMappings() != null) {
-            for (TaskQueueMapping mapping : metadata.getTaskQueueMappings()) {
-                if (mapping.getTaskId().equals(task.getTaskDefinitionKey())) {
-                    log.debug("Found queue '{}' for task '{}'", mapping.getQueue(), task.getTaskDefinitionKey());
-                    return mapping.getQueue();
-                }
+    /**
+     * Get one page of open tasks by queue name, ordered by priority, age and task ID
+     */
+    @Transactional(readOnly = true)
+    public QueueTaskPageResponse getTasksByQueue(String queueName, boolean unassignedOnly, String cursor,
+                                                 Integer pageSize, boolean includeCount) throws WorkflowException {
+        int size = resolvePageSize(pageSize);
+        QueueTaskCursor after = cursor != null && !cursor.isBlank() ? QueueTaskCursor.decode(cursor) : null;
+        // Fetch one extra row to find out whether another page follows
+        int limit = size + 1;
+        
+        List<QueueTask> tasks;
+        Long total = null;
+        if (unassignedOnly) {
+            tasks = after == null
+                ? queueTaskRepository.findUnassignedQueuePage(queueName, limit)
+                : queueTaskRepository.findUnassignedQueuePageAfter(
+                        queueName, after.getPriority(), after.getCreatedAt(), after.getTaskId(), limit);
+            if (includeCount) {
+                total = queueTaskRepository.countUnassignedQueueTasksCapped(queueName, countCap + 1);
+            }
+        } else {
+            tasks = after == null
+                ? queueTaskRepository.findOpenQueuePage(queueName, limit)
+                : queueTaskRepository.findOpenQueuePageAfter(
+                        queueName, after.getPriority(), after.getCreatedAt(), after.getTaskId(), limit);
+            if (includeCount) {
+                total = queueTaskRepository.countOpenQueueTasksCapped(queueName, countCap + 1);
             }
         }
-
-        // If not found in mappings, return null
-        return null;
+        
+        return toPage(tasks, size, total);
     }
     
-    private void insertQueueTask(Task task, String queueName, String processDefinitionKey) {
-        Map<String, Object> taskData = new HashMap<>();
-        taskData.put("description", task.getDescription());
-        taskData.put("dueDate", task.getDueDate());
-        taskData.put("createTime", task.getCreateTime());
-        taskData.put("owner", task.getOwner());
-        taskData.put("taskDefinitionKey", task.getTaskDefinitionKey());
-        taskData.put("formKey", task.getFormKey());
+    /**
+     * Get one page of open and claimed tasks by assignee, ordered by priority, age and task ID
+     */
+    @Transactional(readOnly = true)
+    public QueueTaskPageResponse getTasksByAssignee(String userId, String cursor, Integer pageSize,
+                                                    boolean includeCount) throws WorkflowException {
+        int size = resolvePageSize(pageSize);
+        QueueTaskCursor after = cursor != null && !cursor.isBlank() ? QueueTaskCursor.decode(cursor) : null;
+        int limit = size + 1;
         
-        QueueTask queueTask = QueueTask.builder()
-                .taskId(task.getId())
-                .processInstanceId(task.getProcessInstanceId())
-                .processDefinitionKey(processDefinitionKey)
-                .taskDefinitionKey(task.getTaskDefinitionKey())
-                .taskName(task.getName())
-                .queueName(queueName)
-                .assignee(task.getAssignee())
-                .status(TaskStatus.OPEN)
-                .priority(task.getPriority() > 0 ? task.getPriority() : 50)
-                .taskData(taskData)
-                .build();
-                
-        try {
-            queueTaskRepository.save(queueTask);
-            log.info("Successfully inserted task {} into queue '{}' for process instance {}", 
-                task.getId(), queueName, task.getProcessInstanceId());
-        } catch (Exception e) {
-            log.error("Failed to insert queue task: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to insert queue task", e);
-        }
+        List<QueueTask> tasks = after == null
+            ? queueTaskRepository.findAssigneePage(userId, limit)
+            : queueTaskRepository.findAssigneePageAfter(
+                    userId, after.getPriority(), after.getCreatedAt(), after.getTaskId(), limit);
+        
+        Long total = includeCount ? queueTaskRepository.countAssigneeTasksCapped(userId, countCap + 1) : null;
+        
+        return toPage(tasks, size, total);
     }
     
     /**
-     * Get tasks by queue name
+     * Get a single queue task by ID. The queue is not known yet, so every queue partition is probed.
      */
-    public List<QueueTaskResponse> getTasksByQueue(String queueName, boolean unassignedOnly) {
-        List<QueueTask> tasks;
-        if (unassignedOnly) {
-            tasks = queueTaskRepository.findByQueueNameAndStatusAndAssigneeIsNullOrderByPriorityDescCreatedAtAsc(queueName, TaskStatus.OPEN);
-        } else {
-            tasks = queueTaskRepository.findByQueueNameAndStatusOrderByPriorityDescCreatedAtAsc(queueName, TaskStatus.OPEN);
+    public QueueTaskResponse getQueueTask(String taskId) {
+        Optional<QueueTask> queueTask = queueTaskRepository.findByTaskId(taskId);
+        if (queueTask.isPresent()) {
+            return mapToResponse(queueTask.get());
         }
         
-        return tasks.stream()
+        // Completed tasks are moved to the archive after a grace period
+        return queueTaskArchiveRepository.findById(taskId)
                 .map(this::mapToResponse)
-                .collect(Collectors.toList());
+                .orElseThrow(() -> new ResourceNotFoundException("Task", taskId));
     }
     
     /**
-     * Get tasks by queue name with pagination
+     * Claim a task in its queue
      */
-    public Page<QueueTaskResponse> getTasksByQueue(String queueName, boolean unassignedOnly, Pageable pageable) {
-        Page<QueueTask> tasks;
-        if (unassignedOnly) {
-            tasks = queueTaskRepository.findByQueueNameAndStatusAndAssigneeIsNull(queueName, TaskStatus.OPEN, pageable);
-        } else {
-            tasks = queueTaskRepository.findByQueueNameAndStatus(queueName, TaskStatus.OPEN, pageable);
-        }
+    public QueueTaskResponse claimTask(String taskId, String queueName, String userId) {
+        QueueTask queueTask = queueTaskRepository.findById(new QueueTaskId(taskId, queueName))
+                .orElseThrow(() -> new ResourceNotFoundException("Task", taskId));
+                
+        markClaimed(queueTask, userId);
+        
+        log.info("Task {} claimed by user {} in queue", taskId, userId);
         
-        return tasks.map(this::mapToResponse);
+        return mapToResponse(queueTask);
     }
     
     /**
-     * Get tasks by assignee
+     * Unclaim a task in its queue
      */
-    public List<QueueTaskResponse> getTasksByAssignee(String userId) {
-        List<QueueTask> tasks = queueTaskRepository.findByAssigneeAndStatusInOrderByPriorityDescCreatedAtAsc(
-                userId, Arrays.asList(TaskStatus.OPEN, TaskStatus.CLAIMED));
+    public QueueTaskResponse unclaimTask(String taskId, String queueName) {
+        QueueTask queueTask = queueTaskRepository.findById(new QueueTaskId(taskId, queueName))
+                .orElseThrow(() -> new ResourceNotFoundException("Task", taskId));
+                
+        markUnclaimed(queueTask);
         
-        return tasks.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        log.info("Task {} unclaimed in queue", taskId);
+        
+        return mapToResponse(queueTask);
     }
     
     /**
-     * Get a single queue task by ID
+     * Load the live queue row of a task, without archive fallback or business-key resolution.
+     * Probes every queue partition; use the overload taking the queue name when it is known.
      */
-    public QueueTaskResponse getQueueTask(String taskId) {
-        QueueTask queueTask = queueTaskRepository.findById(taskId)
+    public QueueTask findQueueTask(String taskId) {
+        return queueTaskRepository.findByTaskId(taskId)
                 .orElseThrow(() -> new ResourceNotFoundException("Task", taskId));
-        
-        return mapToResponse(queueTask);
     }
     
     /**
-     * Claim a task
+     * Load the live queue row of a task from its queue's partition only, or from the persistence context
      */
-    public QueueTaskResponse claimTask(String taskId, String userId) {
-        QueueTask queueTask = queueTaskRepository.findById(taskId)
+    public QueueTask findQueueTask(String taskId, String queueName) {
+        return queueTaskRepository.findById(new QueueTaskId(taskId, queueName))
                 .orElseThrow(() -> new ResourceNotFoundException("Task", taskId));
-                
+    }
+    
+    /**
+     * Load the queue rows of several tasks with one query, keyed by task ID.
+     * Their queues are not known, so the query probes every queue partition.
+     */
+    public Map<String, QueueTask> findQueueTasks(Collection<String> taskIds) {
+        return queueTaskRepository.findByTaskIdIn(taskIds).stream()
+                .collect(Collectors.toMap(QueueTask::getTaskId, Function.identity()));
+    }
+    
+    /**
+     * Record a claim on a queue row
+     */
+    public void markClaimed(QueueTask queueTask, String userId) {
         queueTask.setAssignee(userId);
         queueTask.setStatus(TaskStatus.CLAIMED);
         queueTask.setClaimedAt(Instant.now());
         
         queueTaskRepository.save(queueTask);
-        
-        log.info("Task {} claimed by user {} in queue", taskId, userId);
-        
-        return mapToResponse(queueTask);
     }
     
     /**
-     * Unclaim a task
+     * Put a queue row back into its queue
      */
-    public QueueTaskResponse unclaimTask(String taskId) {
-        QueueTask queueTask = queueTaskRepository.findById(taskId)
-                .orElseThrow(() -> new ResourceNotFoundException("Task", taskId));
-                
+    public void markUnclaimed(QueueTask queueTask) {
         queueTask.setAssignee(null);
         queueTask.setStatus(TaskStatus.OPEN);
         queueTask.setClaimedAt(null);
         
         queueTaskRepository.save(queueTask);
+    }
+    
+    /**
+     * Get tasks by process instance ID
+     */
+    public List<QueueTaskResponse> getTasksByProcessInstance(String processInstanceId) {
+        List<QueueTask> tasks = queueTaskRepository.findByProcessInstanceIdAndStatusOrderByCreatedAtAsc(
+                processInstanceId, TaskStatus.OPEN);
         
-        log.info("Task {} unclaimed in queue", taskId);
-        
-        return mapToResponse(queueTask);
+        return mapToResponses(tasks);
     }
     
     /**
-     * Complete a task
+     * Get next available (unassigned) task from queue
      */
-    public void completeTask(String taskId) {
-        QueueTask queueTask = queueTaskRepository.findById(taskId)
-                .orElseThrow(() -> new ResourceNotFoundException("Task", taskId));
-                
-        queueTask.setStatus(TaskStatus.COMPLETED);
-        queueTask.setCompletedAt(Instant.now());
+    public QueueTaskResponse getNextTaskFromQueue(String queueName) {
+        // Fetch only the first unassigned task (highest priority, oldest)
+        return queueTaskRepository.findUnassignedQueuePage(queueName, 1).stream()
+                .findFirst()
+                .map(this::mapToResponse)
+                .orElse(null);
+    }
+    
+    /**
+     * Lock up to {@code count} unassigned tasks from a queue for the current transaction.
+     * Rows locked by concurrent transactions are skipped, so parallel workers never pick the same task.
+     * The rows stay in the persistence context, so claiming them reads nothing again.
+     */
+    public List<QueueTask> lockNextUnassignedTasks(String queueName, int count) {
+        List<QueueTask> tasks = queueTaskRepository.lockNextUnassignedTasks(queueName, count);
         
-        queueTaskRepository.save(queueTask);
+        log.debug("Locked {} unassigned tasks from queue {}", tasks.size(), queueName);
         
-        log.info("Task {} marked as completed in queue", taskId);
+        return tasks;
+    }
+    
+    private int resolvePageSize(Integer pageSize) throws WorkflowException {
+        if (pageSize == null) {
+            return Math.min(defaultPageSize, maxPageSize);
+        }
+        if (pageSize < 1) {
+            throw new WorkflowException("INVALID_PAGE_SIZE", "Page size must be at least 1");
+        }
+        // Hard cap regardless of what the client asks for
+        return Math.min(pageSize, maxPageSize);
+    }
+    
+    private QueueTaskPageResponse toPage(List<QueueTask> rows, int size, Long cappedTotal) {
+        boolean hasMore = rows.size() > size;
+        List<QueueTask> pageRows = hasMore ? rows.subList(0, size) : rows;
+        
+        QueueTaskPageResponse.QueueTaskPageResponseBuilder page = QueueTaskPageResponse.builder()
+                .items(mapToResponses(pageRows))
+                .hasMore(hasMore)
+                .pageSize(size)
+                .nextCursor(hasMore ? QueueTaskCursor.after(pageRows.get(pageRows.size() - 1)).encode() : null);
+        
+        if (cappedTotal != null) {
+            boolean capped = cappedTotal > countCap;
+            page.approximateTotal(capped ? countCap : cappedTotal)
+                .totalCapped(capped);
+        }
+        
+        return page.build();
     }
     
     /**
-     * Get tasks by process instance ID
+     * Map a list of QueueTask entities, resolving business keys missing on legacy rows with one batched query
      */
-    public List<QueueTaskResponse> getTasksByProcessInstance(String processInstanceId) {
-        List<QueueTask> tasks = queueTaskRepository.findByProcessInstanceIdAndStatusOrderByCreatedAtAsc(
-                processInstanceId, TaskStatus.OPEN);
+    public List<QueueTaskResponse> mapToResponses(List<QueueTask> tasks) {
+        Map<String, String> businessKeys = resolveMissingBusinessKeys(tasks);
         
         return tasks.stream()
-                .map(this::mapToResponse)
+                .map(task -> mapToResponse(task, businessKeys))
                 .collect(Collectors.toList());
     }
     
     /**
-     * Get next available (unassigned) task from queue
+     * Look up business keys for rows projected before business_key was stored
      */
-    public QueueTaskResponse getNextTaskFromQueue(String queueName) {
-        // Get unassigned tasks ordered by priority (desc) and creation time (asc)
-        List<QueueTask> tasks = queueTaskRepository.findByQueueNameAndStatusAndAssigneeIsNullOrderByPriorityDescCreatedAtAsc(
-                queueName, TaskStatus.OPEN);
+    private Map<String, String> resolveMissingBusinessKeys(List<QueueTask> tasks) {
+        Set<String> processInstanceIds = tasks.stream()
+                .filter(task -> task.getBusinessKey() == null && task.getProcessInstanceId() != null)
+                .map(QueueTask::getProcessInstanceId)
+                .collect(Collectors.toSet());
+        
+        if (processInstanceIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
         
-        if (tasks.isEmpty()) {
-            return null;
+        Map<String, String> businessKeys = new HashMap<>();
+        try {
+            for (ProcessInstance processInstance : runtimeService.createProcessInstanceQuery()
+                    .processInstanceIds(processInstanceIds)
+                    .list()) {
+                if (processInstance.getBusinessKey() != null) {
+                    businessKeys.put(processInstance.getId(), processInstance.getBusinessKey());
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Could not fetch business keys for process instances: {}", processInstanceIds);
         }
         
-        // Return the first task (highest priority, oldest)
-        return mapToResponse(tasks.get(0));
+        return businessKeys;
     }
     
     /**
      * Map QueueTask entity to response DTO
      */
     private QueueTaskResponse mapToResponse(QueueTask queueTask) {
-        QueueTaskResponse response = QueueTaskResponse.builder()
+        return mapToResponse(queueTask, resolveMissingBusinessKeys(List.of(queueTask)));
+    }
+    
+    /**
+     * Map an archived task to the same response DTO as a live one
+     */
+    private QueueTaskResponse mapToResponse(QueueTaskArchive archivedTask) {
+        return QueueTaskResponse.builder()
+                .taskId(archivedTask.getTaskId())
+                .processInstanceId(archivedTask.getProcessInstanceId())
+                .processDefinitionKey(archivedTask.getProcessDefinitionKey())
+                .taskDefinitionKey(archivedTask.getTaskDefinitionKey())
+                .taskName(archivedTask.getTaskName())
+                .queueName(archivedTask.getQueueName())
+                .assignee(archivedTask.getAssignee())
+                .status(archivedTask.getStatus().getValue())
+                .priority(archivedTask.getPriority())
+                .createdAt(archivedTask.getCreatedAt())
+                .claimedAt(archivedTask.getClaimedAt())
+                .completedAt(archivedTask.getCompletedAt())
+                .taskData(archivedTask.getTaskData())
+                .businessKey(archivedTask.getBusinessKey())
+                .build();
+    }
+    
+    private QueueTaskResponse mapToResponse(QueueTask queueTask, Map<String, String> resolvedBusinessKeys) {
+        String businessKey = queueTask.getBusinessKey() != null ? 
+            queueTask.getBusinessKey() : resolvedBusinessKeys.get(queueTask.getProcessInstanceId());
+        
+        return QueueTaskResponse.builder()
                 .taskId(queueTask.getTaskId())
                 .processInstanceId(queueTask.getProcessInstanceId())
                 .processDefinitionKey(queueTask.getProcessDefinitionKey())
@@ -279,22 +369,7 @@ public class QueueTaskService {
                 .claimedAt(queueTask.getClaimedAt())
                 .completedAt(queueTask.getCompletedAt())
                 .taskData(queueTask.getTaskData())
+                .businessKey(businessKey)
                 .build();
-                
-        // Get business key from Flowable API if process instance exists
-        if (queueTask.getProcessInstanceId() != null) {
-            try {
-                ProcessInstance processInstance = runtimeService.createProcessInstanceQuery()
-                        .processInstanceId(queueTask.getProcessInstanceId())
-                        .singleResult();
-                if (processInstance != null) {
-                    response.setBusinessKey(processInstance.getBusinessKey());
-                }
-            } catch (Exception e) {
-                log.debug("Could not fetch business key for process instance: {}", queueTask.getProcessInstanceId());
-            }
-        }
-        
-        return response;
     }
 }
\ No newline at end of file
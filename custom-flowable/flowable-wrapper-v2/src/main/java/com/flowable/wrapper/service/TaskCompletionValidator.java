@@ -0,0 +1,42 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.entity.QueueTask;
+import com.flowable.wrapper.model.CompiledWorkflow;
+import com.flowable.wrapper.model.TaskValidationRules;
+import lombok.RequiredArgsConstructor;
+import org.flowable.engine.RuntimeService;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks completion payloads against the taskValidation rules of their workflow before the engine is called,
+ * so invalid submissions are rejected without completing the task and looping back through the validation script
+ */
+@Service
+@RequiredArgsConstructor
+public class TaskCompletionValidator {
+    
+    private final WorkflowRoutingCache workflowRoutingCache;
+    private final RuntimeService runtimeService;
+    
+    /**
+     * Validation errors of a completion payload, empty if it is valid or the task has no rules
+     */
+    public List<String> validate(QueueTask queueTask, Map<String, Object> variables) {
+        TaskValidationRules rules = workflowRoutingCache.getWorkflow(queueTask.getProcessDefinitionKey())
+                .map(CompiledWorkflow::getTaskValidation)
+                .orElse(TaskValidationRules.NONE);
+        if (!rules.hasRules(queueTask.getTaskDefinitionKey())) {
+            return List.of();
+        }
+        
+        // Submitted values win over stored ones, as they would once the task completes
+        Map<String, Object> processVariables = new HashMap<>();
+        return rules.validate(queueTask.getTaskDefinitionKey(), variables, name -> variables.containsKey(name)
+                ? variables.get(name)
+                : processVariables.computeIfAbsent(name, key -> runtimeService.getVariable(queueTask.getProcessInstanceId(), key)));
+    }
+}
@@ -1,19 +1,23 @@
 package com.flowable.wrapper.service;
 
+import com.flowable.wrapper.command.CompleteTaskAndCaptureCmd;
+import com.flowable.wrapper.command.GetTaskDetailsCmd;
 import com.flowable.wrapper.dto.request.CompleteTaskRequest;
+import com.flowable.wrapper.dto.response.QueueTaskPageResponse;
 import com.flowable.wrapper.dto.response.QueueTaskResponse;
 import com.flowable.wrapper.dto.response.TaskCompletionResponse;
 import com.flowable.wrapper.dto.response.TaskDetailResponse;
+import com.flowable.wrapper.entity.QueueTask;
+import com.flowable.wrapper.exception.ResourceNotFoundException;
 import com.flowable.wrapper.exception.WorkflowException;
+import com.flowable.wrapper.model.TaskDetailInclude;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.flowable.engine.RuntimeService;
-import org.flowable.engine.FormService;
-import org.flowable.engine.runtime.ProcessInstance;
-import org.flowable.engine.form.FormProperty;
-import org.flowable.engine.form.TaskFormData;
-import org.flowable.task.api.Task;
+import org.flowable.common.engine.api.FlowableOptimisticLockingException;
+import org.flowable.engine.ManagementService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
@@ -24,26 +28,36 @@ import java.util.Map;
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
+@Transactional(rollbackFor = WorkflowException.class)
 public class TaskService {
     
     private final org.flowable.engine.TaskService flowableTaskService;
-    private final RuntimeService runtimeService;
-    private final FormService formService;
+    private final ManagementService managementService;
     private final QueueTaskService queueTaskService;
+    private final TaskCompletionValidator taskCompletionValidator;
+    private final CaseMatchStore caseMatchStore;
+    private final ProcessInstanceSerializer processInstanceSerializer;
+    private final FormDescriptorCache formDescriptorCache;
+    
+    @Value("${tasks.claim-next.max-count:50}")
+    private int maxClaimNextCount;
     
     /**
-     * Get tasks by queue name
+     * Get one page of tasks by queue name
      */
-    public List<QueueTaskResponse> getTasksByQueue(String queueName, boolean unassignedOnly) {
-        return queueTaskService.getTasksByQueue(queueName, unassignedOnly);
+    @Transactional(readOnly = true)
+    public QueueTaskPageResponse getTasksByQueue(String queueName, boolean unassignedOnly, String cursor,
+                                                 Integer pageSize, boolean includeCount) throws WorkflowException {
+        return queueTaskService.getTasksByQueue(queueName, unassignedOnly, cursor, pageSize, includeCount);
     }
     
     /**
-     * Get tasks by assignee
+     * Get one page of tasks by assignee
      */
-    public List<QueueTaskResponse> getTasksByAssignee(String userId) {
-        return queueTaskService.getTasksByAssignee(userId);
+    @Transactional(readOnly = true)
+    public QueueTaskPageResponse getTasksByAssignee(String userId, String cursor, Integer pageSize,
+                                                    boolean includeCount) throws WorkflowException {
+        return queueTaskService.getTasksByAssignee(userId, cursor, pageSize, includeCount);
     }
     
     /**
@@ -67,26 +81,72 @@ public class TaskService {
         }
         
         // Update queue_tasks table
-        return queueTaskService.claimTask(taskId, userId);
+        return queueTaskService.claimTask(taskId, queueTask.getQueueName(), userId);
     }
     
     /**
-     * Complete a task
+     * Claim the next available tasks from a queue in a single transaction.
+     * Candidate rows are locked with SKIP LOCKED, so concurrent callers receive disjoint tasks.
+     * A claim failing midway rolls back the tasks already claimed in the call.
      */
+    @Transactional(rollbackFor = WorkflowException.class)
+    public List<QueueTaskResponse> claimNextTasks(String queueName, String userId, int count) throws WorkflowException {
+        if (count < 1) {
+            throw new WorkflowException("INVALID_COUNT", "Count must be at least 1");
+        }
+        if (count > maxClaimNextCount) {
+            throw new WorkflowException("INVALID_COUNT", "Count must be at most " + maxClaimNextCount);
+        }
+        
+        List<QueueTask> queueTasks = queueTaskService.lockNextUnassignedTasks(queueName, count);
+        
+        for (QueueTask queueTask : queueTasks) {
+            // Claim in Flowable
+            try {
+                flowableTaskService.claim(queueTask.getTaskId(), userId);
+            } catch (Exception e) {
+                throw new WorkflowException("CLAIM_FAILED", 
+                    "Failed to claim task " + queueTask.getTaskId() + ": " + e.getMessage(), e);
+            }
+            
+            // Update queue_tasks table; the locked row is still loaded, so nothing is read again
+            queueTaskService.markClaimed(queueTask, userId);
+        }
+        
+        log.info("User {} claimed {} tasks from queue {}", userId, queueTasks.size(), queueName);
+        
+        return queueTaskService.mapToResponses(queueTasks);
+    }
+    
+    /**
+     * Complete a task. The next tasks and validation state are captured inside the completion command,
+     * so no queries are needed after it to build the response. Completions of the same process instance
+     * are serialized; without a caller transaction each attempt gets its own and conflicts are retried.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, rollbackFor = WorkflowException.class)
     public TaskCompletionResponse completeTask(String taskId, CompleteTaskRequest request) throws WorkflowException {
-        // Get task from queue_tasks
-        QueueTaskResponse queueTask = queueTaskService.getQueueTask(taskId);
+        QueueTask unlocked = queueTaskService.findQueueTask(taskId);
+        
+        return processInstanceSerializer.execute(unlocked.getProcessInstanceId(),
+            () -> completeTaskLocked(taskId, unlocked.getQueueName(), request));
+    }
+    
+    private TaskCompletionResponse completeTaskLocked(String taskId, String queueName, CompleteTaskRequest request) throws WorkflowException {
+        // Loads the row into the persistence context, so the completion listener updates it without another select;
+        // the queue is known by now, so only its partition is read
+        QueueTask queueTask = queueTaskService.findQueueTask(taskId, queueName);
         String taskDefinitionKey = queueTask.getTaskDefinitionKey(); // Capture the original task definition key
+        String assignee = queueTask.getAssignee();
 
         // Verify task is assigned
-        if (queueTask.getAssignee() == null) {
+        if (assignee == null) {
             throw new WorkflowException("TASK_NOT_ASSIGNED",
                 "Task must be claimed before completion");
         }
 
         // Verify user is authorized (if userId provided)
         if (request != null && request.getUserId() != null &&
-            !request.getUserId().equals(queueTask.getAssignee())) {
+            !request.getUserId().equals(assignee)) {
             throw new WorkflowException("UNAUTHORIZED",
                 "User " + request.getUserId() + " is not authorized to complete this task");
         }
@@ -95,89 +155,90 @@ public class TaskService {
         Map<String, Object> variables = request != null && request.getVariables() != null ?
             request.getVariables() : new HashMap<>();
 
-        // Complete in Flowable
+        // Reject payloads breaking the workflow's taskValidation rules before anything is written;
+        // the task stays open and is resubmitted under the same id
+        List<String> validationErrors = taskCompletionValidator.validate(queueTask, variables);
+        if (!validationErrors.isEmpty()) {
+            log.info("Completion of task {} rejected: {}", taskId, validationErrors);
+            return TaskCompletionResponse.builder()
+                    .status("VALIDATION_FAILED")
+                    .message("Please correct the errors and resubmit")
+                    .validationErrors(validationErrors)
+                    .taskId(taskId)
+                    .taskName(queueTask.getTaskName())
+                    .retryTaskId(taskId)
+                    .processInstanceId(processInstanceId)
+                    .processActive(true)
+                    .build();
+        }
+
+        // Complete in Flowable; queue_tasks is updated by QueueTaskEventListener during completion
+        CompleteTaskAndCaptureCmd.Result result;
         try {
-            flowableTaskService.complete(taskId, variables);
+            result = managementService.executeCommand(
+                    new CompleteTaskAndCaptureCmd(taskId, taskDefinitionKey, processInstanceId, variables));
+        } catch (FlowableOptimisticLockingException e) {
+            // Left to the serializer, which retries the whole transaction
+            throw e;
         } catch (Exception e) {
             throw new WorkflowException("COMPLETE_FAILED",
                 "Failed to complete task: " + e.getMessage(), e);
         }
 
-        // Update queue_tasks table for the completed task
         Instant completedAt = Instant.now();
-        queueTaskService.completeTask(taskId);
-
-        log.info("Task {} completed by user {}", taskId, queueTask.getAssignee());
-
-        // Check if process is still active
-        ProcessInstance processInstance = runtimeService.createProcessInstanceQuery()
-                .processInstanceId(processInstanceId)
-                .singleResult();
-
-        if (processInstance != null) {
-            // Process is still active, populate next tasks in queue
-            queueTaskService.populateQueueTasksForProcessInstance(
-                processInstanceId,
-                queueTask.getProcessDefinitionKey()
-            );
 
-            // Get the newly created active tasks
-            List<QueueTaskResponse> nextTasks = queueTaskService.getTasksByProcessInstance(processInstanceId);
+        log.info("Task {} completed by user {}", taskId, assignee);
 
-            // Check for validation failure (loopback)
-            for (QueueTaskResponse nextTask : nextTasks) {
-                if (nextTask.getTaskDefinitionKey().equals(taskDefinitionKey)) {
-                    // Validation failed, the same task has reappeared
-                    log.warn("Validation failed for task definition key: {}. Task {} has looped back.", taskDefinitionKey, taskId);
+        if (result.getRetryTask() != null) {
+            // Validation failed, the same task has reappeared
+            log.warn("Validation failed for task definition key: {}. Task {} has looped back.", taskDefinitionKey, taskId);
 
-                    Map<String, Object> processVariables = runtimeService.getVariables(processInstanceId);
-                    Object validationError = processVariables.get(taskDefinitionKey + "ValidationError");
-                    Object attemptCount = processVariables.get(taskDefinitionKey + "AttemptCount");
-
-                    return TaskCompletionResponse.builder()
-                            .status("VALIDATION_FAILED")
-                            .message("Please correct the errors and resubmit")
-                            .validationErrors(validationError)
-                            .attemptNumber(attemptCount instanceof Integer ? (Integer) attemptCount : 1)
-                            .retryTaskId(nextTask.getTaskId())
-                            .processInstanceId(processInstanceId)
-                            .completedAt(completedAt)
-                            .completedBy(queueTask.getAssignee())
-                            .processActive(true)
-                            .build();
-                }
-            }
+            Object attemptCount = result.getAttemptCount();
+            return TaskCompletionResponse.builder()
+                    .status("VALIDATION_FAILED")
+                    .message("Please correct the errors and resubmit")
+                    .validationErrors(result.getValidationError())
+                    .attemptNumber(attemptCount instanceof Integer ? (Integer) attemptCount : 1)
+                    .retryTaskId(result.getRetryTask().getTaskId())
+                    .processInstanceId(processInstanceId)
+                    .completedAt(completedAt)
+                    .completedBy(assignee)
+                    .processActive(true)
+                    .build();
+        }
 
-            // If no validation failure, return standard success response with next task info
-            if (!nextTasks.isEmpty()) {
-                QueueTaskResponse nextTask = nextTasks.get(0);
-                return TaskCompletionResponse.builder()
-                        .status("COMPLETED")
-                        .message("Task completed successfully")
-                        .taskId(taskId)
-                        .taskName(queueTask.getTaskName())
-                        .processInstanceId(processInstanceId)
-                        .completedAt(completedAt)
-                        .completedBy(queueTask.getAssignee())
-                        .processActive(true)
-                        .nextTaskId(nextTask.getTaskId())
-                        .nextTaskName(nextTask.getTaskName())
-                        .nextTaskQueue(nextTask.getQueueName())
-                        .build();
-            }
+        if (!result.isProcessActive()) {
+            return TaskCompletionResponse.builder()
+                    .status("COMPLETED")
+                    .message("Task completed successfully and process has finished")
+                    .taskId(taskId)
+                    .taskName(queueTask.getTaskName())
+                    .processInstanceId(processInstanceId)
+                    .completedAt(completedAt)
+                    .completedBy(assignee)
+                    .processActive(false)
+                    .build();
         }
 
-        // Process is complete
-        return TaskCompletionResponse.builder()
+        // Process continues; report the first task this completion created, if any
+        TaskCompletionResponse.TaskCompletionResponseBuilder response = TaskCompletionResponse.builder()
                 .status("COMPLETED")
-                .message("Task completed successfully and process has finished")
+                .message("Task completed successfully")
                 .taskId(taskId)
                 .taskName(queueTask.getTaskName())
                 .processInstanceId(processInstanceId)
                 .completedAt(completedAt)
-                .completedBy(queueTask.getAssignee())
-                .processActive(false)
-                .build();
+                .completedBy(assignee)
+                .processActive(true);
+
+        if (!result.getCreatedQueueTasks().isEmpty()) {
+            QueueTask nextTask = result.getCreatedQueueTasks().get(0);
+            response.nextTaskId(nextTask.getTaskId())
+                    .nextTaskName(nextTask.getTaskName())
+                    .nextTaskQueue(nextTask.getQueueName());
+        }
+
+        return response.build();
     }
     
     /**
@@ -196,7 +257,7 @@ public class TaskService {
         }
         
         // Update queue_tasks table
-        return queueTaskService.unclaimTask(taskId);
+        return queueTaskService.unclaimTask(taskId, queueTask.getQueueName());
     }
     
     /**
@@ -207,22 +268,19 @@ public class TaskService {
     }
     
     /**
-     * Get detailed task information including form data
+     * Get detailed task information. The queue row is read first; the engine task and the included
+     * sections (form, task variables, process variables) are then loaded by one engine command.
      */
-    public TaskDetailResponse getTaskDetails(String taskId) throws WorkflowException {
-        // Get task from queue_tasks
+    @Transactional(readOnly = true)
+    public TaskDetailResponse getTaskDetails(String taskId, TaskDetailInclude include) throws WorkflowException {
         QueueTaskResponse queueTask = queueTaskService.getQueueTask(taskId);
         
-        // Get the Flowable task
-        Task flowableTask = flowableTaskService.createTaskQuery()
-                .taskId(taskId)
-                .singleResult();
-                
-        if (flowableTask == null) {
-            throw new com.flowable.wrapper.exception.ResourceNotFoundException("Task", taskId);
+        GetTaskDetailsCmd.Result details = managementService.executeCommand(
+                new GetTaskDetailsCmd(taskId, queueTask.getProcessInstanceId(), include, formDescriptorCache));
+        if (details == null) {
+            throw new ResourceNotFoundException("Task", taskId);
         }
         
-        // Build response
         TaskDetailResponse response = TaskDetailResponse.builder()
                 .taskId(queueTask.getTaskId())
                 .processInstanceId(queueTask.getProcessInstanceId())
@@ -237,51 +295,41 @@ public class TaskService {
                 .claimedAt(queueTask.getClaimedAt())
                 .taskData(queueTask.getTaskData())
                 .businessKey(queueTask.getBusinessKey())
-                .formKey(flowableTask.getFormKey())
-                .description(flowableTask.getDescription())
+                .formKey(details.getFormKey())
+                .description(details.getDescription())
+                .dueDate(details.getDueDate() != null ? details.getDueDate().toInstant() : null)
                 .build();
-                
-        // Set due date if available
-        if (flowableTask.getDueDate() != null) {
-            response.setDueDate(flowableTask.getDueDate().toInstant());
-        }
         
-        // Get task variables (form data)
-        Map<String, Object> taskVariables = flowableTaskService.getVariables(taskId);
-        response.setFormData(taskVariables);
+        if (include.isTaskVariables()) {
+            Map<String, Object> taskVariables = new HashMap<>(details.getTaskVariables());
+            overlayStoredMatches(queueTask, taskVariables);
+            response.setFormData(taskVariables);
+        }
         
-        // Get form properties from BPMN definition
-        try {
-            TaskFormData taskFormData = formService.getTaskFormData(taskId);
-            if (taskFormData != null) {
-                List<FormProperty> formProperties = taskFormData.getFormProperties();
-                Map<String, Object> formPropertiesMap = new HashMap<>();
-                for (FormProperty property : formProperties) {
-                    Map<String, Object> propertyData = new HashMap<>();
-                    propertyData.put("id", property.getId());
-                    propertyData.put("name", property.getName());
-                    propertyData.put("type", property.getType() != null ? property.getType().getName() : "string");
-                    propertyData.put("required", property.isRequired());
-                    propertyData.put("readable", property.isReadable());
-                    propertyData.put("writable", property.isWritable());
-                    if (property.getValue() != null) {
-                        propertyData.put("value", property.getValue());
-                    }
-                    formPropertiesMap.put(property.getId(), propertyData);
-                }
-                response.setFormProperties(formPropertiesMap);
-            } else {
-                response.setFormProperties(new HashMap<>());
-            }
-        } catch (Exception e) {
-            log.warn("Could not retrieve form properties for task {}: {}", taskId, e.getMessage());
-            response.setFormProperties(new HashMap<>());
+        if (include.isForm()) {
+            response.setFormProperties(details.getFormProperties());
         }
         
-        // Get process variables
-        Map<String, Object> processVariables = runtimeService.getVariables(queueTask.getProcessInstanceId());
-        response.setProcessVariables(processVariables);
+        if (details.getProcessVariables() != null) {
+            Map<String, Object> processVariables = new HashMap<>(details.getProcessVariables());
+            overlayStoredMatches(queueTask, processVariables);
+            response.setProcessVariables(processVariables);
+        }
         
         return response;
     }
+    
+    /**
+     * Merged decisions of match store workflows live in case_match_entries, the variable only holds the initial matches
+     */
+    private void overlayStoredMatches(QueueTaskResponse queueTask, Map<String, Object> variables) {
+        if (!variables.containsKey("matches") || !caseMatchStore.isEnabled(queueTask.getProcessDefinitionKey())) {
+            return;
+        }
+        
+        List<Map<String, Object>> matches = caseMatchStore.getMatches(queueTask.getProcessInstanceId());
+        if (!matches.isEmpty()) {
+            variables.put("matches", matches);
+        }
+    }
 }
\ No newline at end of file
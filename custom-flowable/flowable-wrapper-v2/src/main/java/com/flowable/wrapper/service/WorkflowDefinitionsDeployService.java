@@ -0,0 +1,245 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.dto.request.DeployWorkflowRequest;
+import com.flowable.wrapper.dto.response.DeployAllResponse;
+import com.flowable.wrapper.dto.response.WorkflowMetadataResponse;
+import com.flowable.wrapper.entity.WorkflowMetadata;
+import com.flowable.wrapper.exception.ResourceNotFoundException;
+import com.flowable.wrapper.exception.WorkflowException;
+import com.flowable.wrapper.repository.WorkflowMetadataRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.flowable.bpmn.converter.BpmnXMLConverter;
+import org.flowable.bpmn.model.BpmnModel;
+import org.flowable.common.engine.impl.util.io.StringStreamSource;
+import org.flowable.validation.ProcessValidator;
+import org.flowable.validation.ProcessValidatorFactory;
+import org.flowable.validation.ValidationError;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Deploys every BPMN file of the definitions directory. Files are read, hashed, parsed and validated
+ * in parallel; files whose hash matches the current deployment of their workflow are skipped, and the
+ * changed ones are deployed one by one through WorkflowMetadataService, each in its own transaction,
+ * which also rebuilds their task queue mappings.
+ */
+@Service
+@Slf4j
+public class WorkflowDefinitionsDeployService {
+    
+    private static final String DEPLOYED = "DEPLOYED";
+    private static final String UNCHANGED = "UNCHANGED";
+    private static final String FAILED = "FAILED";
+    
+    private final WorkflowMetadataService workflowMetadataService;
+    private final WorkflowMetadataRepository workflowMetadataRepository;
+    private final ProcessValidator processValidator = new ProcessValidatorFactory().createDefaultProcessValidator();
+    
+    @Value("${workflow.definitions.path:/app/definitions}")
+    private String definitionsPath;
+    
+    @Value("${workflow.definitions.parse-parallelism:0}")
+    private int parseParallelism;
+    
+    public WorkflowDefinitionsDeployService(WorkflowMetadataService workflowMetadataService,
+                                            WorkflowMetadataRepository workflowMetadataRepository) {
+        this.workflowMetadataService = workflowMetadataService;
+        this.workflowMetadataRepository = workflowMetadataRepository;
+    }
+    
+    /**
+     * Deploy all changed BPMN files of the definitions directory.
+     * Problems with single files are reported in their result and do not stop the others.
+     */
+    public DeployAllResponse deployAll() throws WorkflowException {
+        long started = System.nanoTime();
+        Path directory = Paths.get(definitionsPath).toAbsolutePath().normalize();
+        if (!Files.isDirectory(directory)) {
+            throw new ResourceNotFoundException("Definitions directory", directory.toString());
+        }
+        
+        List<Path> files = listBpmnFiles(directory);
+        log.info("Deploying {} BPMN files from {}", files.size(), directory);
+        
+        List<ParsedDefinition> parsed = parseAll(files);
+        
+        List<DeployAllResponse.FileResult> results = new ArrayList<>();
+        Set<String> seenKeys = new HashSet<>();
+        for (ParsedDefinition definition : parsed) {
+            if (definition.errorCode() != null) {
+                results.add(failure(definition, definition.errorCode(), definition.message(), null));
+            } else if (!seenKeys.add(definition.processDefinitionKey())) {
+                results.add(failure(definition, "DUPLICATE_PROCESS_KEY",
+                    "Another file in the directory defines process " + definition.processDefinitionKey(), null));
+            } else {
+                results.add(deploy(definition));
+            }
+        }
+        
+        long deployed = results.stream().filter(result -> DEPLOYED.equals(result.getStatus())).count();
+        long unchanged = results.stream().filter(result -> UNCHANGED.equals(result.getStatus())).count();
+        long totalMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        log.info("Deploy-all finished in {} ms: {} deployed, {} unchanged, {} failed",
+            totalMillis, deployed, unchanged, results.size() - deployed - unchanged);
+        
+        return DeployAllResponse.builder()
+                .directory(directory.toString())
+                .files(results.size())
+                .deployed((int) deployed)
+                .unchanged((int) unchanged)
+                .failed((int) (results.size() - deployed - unchanged))
+                .totalMillis(totalMillis)
+                .results(results)
+                .build();
+    }
+    
+    private List<Path> listBpmnFiles(Path directory) throws WorkflowException {
+        try (Stream<Path> entries = Files.list(directory)) {
+            return entries
+                    .filter(Files::isRegularFile)
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.endsWith(".bpmn20.xml") || name.endsWith(".bpmn");
+                    })
+                    .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new WorkflowException("FILE_DEPLOYMENT_FAILED",
+                "Failed to list definitions directory: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Parse and validate all files in parallel, returning results in file order
+     */
+    private List<ParsedDefinition> parseAll(List<Path> files) throws WorkflowException {
+        int threads = parseParallelism > 0 ? parseParallelism : Runtime.getRuntime().availableProcessors();
+        
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, files.size())))) {
+            List<Future<ParsedDefinition>> futures = new ArrayList<>();
+            for (Path file : files) {
+                futures.add(executor.submit(() -> parse(file)));
+            }
+            
+            List<ParsedDefinition> parsed = new ArrayList<>();
+            for (Future<ParsedDefinition> future : futures) {
+                parsed.add(future.get());
+            }
+            return parsed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WorkflowException("FILE_DEPLOYMENT_FAILED", "Interrupted while parsing BPMN files", e);
+        } catch (ExecutionException e) {
+            throw new WorkflowException("FILE_DEPLOYMENT_FAILED",
+                "Failed to parse BPMN files: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+    
+    private ParsedDefinition parse(Path file) {
+        long started = System.nanoTime();
+        String filename = file.getFileName().toString();
+        
+        try {
+            String bpmnXml = Files.readString(file, StandardCharsets.UTF_8);
+            String contentHash = WorkflowMetadataService.contentHash(bpmnXml);
+            
+            BpmnModel model = new BpmnXMLConverter().convertToBpmnModel(new StringStreamSource(bpmnXml), true, false);
+            if (model.getMainProcess() == null) {
+                return ParsedDefinition.failed(filename, started, "INVALID_BPMN", "No process found in file");
+            }
+            
+            List<ValidationError> errors = processValidator.validate(model).stream()
+                    .filter(error -> !error.isWarning())
+                    .toList();
+            if (!errors.isEmpty()) {
+                String message = errors.stream().map(ValidationError::toString).collect(Collectors.joining("; "));
+                return ParsedDefinition.failed(filename, started, "INVALID_BPMN", message);
+            }
+            
+            return new ParsedDefinition(filename, model.getMainProcess().getId(), bpmnXml, contentHash,
+                elapsedMillis(started), null, null);
+        } catch (IOException e) {
+            return ParsedDefinition.failed(filename, started, "FILE_DEPLOYMENT_FAILED", "Failed to read file: " + e.getMessage());
+        } catch (RuntimeException e) {
+            return ParsedDefinition.failed(filename, started, "INVALID_BPMN", e.getMessage());
+        }
+    }
+    
+    private DeployAllResponse.FileResult deploy(ParsedDefinition definition) {
+        long started = System.nanoTime();
+        String key = definition.processDefinitionKey();
+        
+        WorkflowMetadata metadata = workflowMetadataRepository.findByProcessDefinitionKeyAndActiveTrue(key).orElse(null);
+        if (metadata == null) {
+            return failure(definition, "RESOURCE_NOT_FOUND", "No active workflow metadata registered for process " + key, null);
+        }
+        if (WorkflowMetadataService.isUnchanged(metadata, definition.contentHash())) {
+            return result(definition, UNCHANGED, metadata.getDeploymentId(), null);
+        }
+        
+        DeployWorkflowRequest request = new DeployWorkflowRequest();
+        request.setProcessDefinitionKey(key);
+        request.setBpmnXml(definition.bpmnXml());
+        request.setDeploymentName(metadata.getProcessName() + " - " + definition.filename());
+        
+        try {
+            WorkflowMetadataResponse response = workflowMetadataService.deployWorkflow(request);
+            return result(definition, DEPLOYED, response.getDeploymentId(), elapsedMillis(started));
+        } catch (WorkflowException e) {
+            return failure(definition, e.getErrorCode(), e.getMessage(), elapsedMillis(started));
+        } catch (RuntimeException e) {
+            log.error("Failed to deploy {}: {}", definition.filename(), e.getMessage(), e);
+            return failure(definition, "DEPLOYMENT_FAILED", e.getMessage(), elapsedMillis(started));
+        }
+    }
+    
+    private DeployAllResponse.FileResult result(ParsedDefinition definition, String status,
+                                                String deploymentId, Long deployMillis) {
+        return DeployAllResponse.FileResult.builder()
+                .filename(definition.filename())
+                .processDefinitionKey(definition.processDefinitionKey())
+                .status(status)
+                .deploymentId(deploymentId)
+                .parseMillis(definition.parseMillis())
+                .deployMillis(deployMillis)
+                .build();
+    }
+    
+    private DeployAllResponse.FileResult failure(ParsedDefinition definition, String errorCode,
+                                                 String message, Long deployMillis) {
+        DeployAllResponse.FileResult result = result(definition, FAILED, null, deployMillis);
+        result.setErrorCode(errorCode);
+        result.setMessage(message);
+        return result;
+    }
+    
+    private static long elapsedMillis(long startedNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
+    
+    private record ParsedDefinition(String filename, String processDefinitionKey, String bpmnXml, String contentHash,
+                                    long parseMillis, String errorCode, String message) {
+        
+        static ParsedDefinition failed(String filename, long startedNanos, String errorCode, String message) {
+            return new ParsedDefinition(filename, null, null, null, elapsedMillis(startedNanos), errorCode, message);
+        }
+    }
+}
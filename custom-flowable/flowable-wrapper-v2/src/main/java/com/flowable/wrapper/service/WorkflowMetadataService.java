@@ -7,6 +7,8 @@ import com.flowable.wrapper.entity.WorkflowMetadata;
 import com.flowable.wrapper.exception.ResourceNotFoundException;
 import com.flowable.wrapper.exception.WorkflowException;
 import com.flowable.wrapper.model.TaskQueueMapping;
+import com.flowable.wrapper.model.TaskValidationRules;
+import com.flowable.wrapper.model.WorkflowHistoryPolicy;
 import com.flowable.wrapper.repository.WorkflowMetadataRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,6 +18,7 @@ import org.flowable.bpmn.model.UserTask;
 import org.flowable.engine.RepositoryService;
 import org.flowable.engine.repository.Deployment;
 import org.flowable.engine.repository.ProcessDefinition;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,8 +27,11 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 
@@ -37,6 +43,12 @@ public class WorkflowMetadataService {
     
     private final WorkflowMetadataRepository workflowMetadataRepository;
     private final RepositoryService repositoryService;
+    private final WorkflowRoutingCache workflowRoutingCache;
+    private final QueuePartitionService queuePartitionService;
+    private final FormDescriptorCache formDescriptorCache;
+    
+    @Value("${workflow.definitions.path:/app/definitions}")
+    private String definitionsPath;
     
     /**
      * Register workflow metadata with candidate group to queue mappings
@@ -57,6 +69,22 @@ public class WorkflowMetadataService {
                 "At least one candidate group to queue mapping is required");
         }
         
+        // Validate the history policy now, it is applied to the process definition at deploy time
+        try {
+            WorkflowHistoryPolicy.from(request.getMetadata());
+        } catch (IllegalArgumentException e) {
+            throw new WorkflowException("INVALID_HISTORY_CONFIG", 
+                "Invalid history configuration: " + e.getMessage());
+        }
+        
+        // Completion payload rules are compiled into the routing cache, reject malformed ones here
+        try {
+            TaskValidationRules.from(request.getMetadata());
+        } catch (IllegalArgumentException e) {
+            throw new WorkflowException("INVALID_TASK_VALIDATION", 
+                "Invalid task validation rules: " + e.getMessage());
+        }
+        
         // Create and save workflow metadata
         WorkflowMetadata metadata = WorkflowMetadata.builder()
                 .processDefinitionKey(request.getProcessDefinitionKey())
@@ -67,6 +95,8 @@ public class WorkflowMetadataService {
                 .build();
         
         metadata = workflowMetadataRepository.save(metadata);
+        workflowRoutingCache.refreshAfterCommit(metadata);
+        queuePartitionService.provisionAfterCommit(metadata);
         log.info("Workflow metadata registered successfully with id: {}", metadata.getId());
         
         return toResponse(metadata);
@@ -82,6 +112,14 @@ public class WorkflowMetadataService {
         WorkflowMetadata metadata = workflowMetadataRepository.findByProcessDefinitionKeyAndActiveTrue(request.getProcessDefinitionKey())
                 .orElseThrow(() -> new ResourceNotFoundException("Workflow metadata", request.getProcessDefinitionKey()));
         
+        // A byte-identical redeploy would only add ACT_RE_* rows and flush the engine's definition cache
+        String contentHash = contentHash(request.getBpmnXml());
+        if (isUnchanged(metadata, contentHash)) {
+            log.info("BPMN of process {} is unchanged, keeping deployment {}", 
+                request.getProcessDefinitionKey(), metadata.getDeploymentId());
+            return toResponse(metadata);
+        }
+        
         try {
             // Deploy to Flowable
             String deploymentName = request.getDeploymentName() != null ? 
@@ -101,17 +139,22 @@ public class WorkflowMetadataService {
                     .singleResult();
             
             if (processDefinition != null) {
-                // Build task queue mappings from deployed process
+                // Build task queue mappings and form descriptors from the deployed model
+                BpmnModel bpmnModel = repositoryService.getBpmnModel(processDefinition.getId());
                 List<TaskQueueMapping> taskMappings = buildTaskQueueMappings(
-                    processDefinition.getId(), 
+                    bpmnModel, 
                     metadata.getCandidateGroupMappings()
                 );
+                formDescriptorCache.register(processDefinition.getId(), bpmnModel);
                 
                 // Update metadata with deployment info
                 metadata.setTaskQueueMappings(taskMappings);
                 metadata.setDeployed(true);
                 metadata.setDeploymentId(deployment.getId());
+                metadata.setContentHash(contentHash);
                 workflowMetadataRepository.save(metadata);
+                workflowRoutingCache.refreshAfterCommit(metadata);
+                queuePartitionService.provisionAfterCommit(metadata);
                 
                 log.info("Built {} task queue mappings for process {}", 
                     taskMappings.size(), processDefinition.getKey());
@@ -127,16 +170,32 @@ public class WorkflowMetadataService {
     }
     
     /**
-     * Build task queue mappings by querying Flowable for task definitions
+     * Whether the given BPMN content is what is currently deployed for the workflow
+     */
+    public static boolean isUnchanged(WorkflowMetadata metadata, String contentHash) {
+        return Boolean.TRUE.equals(metadata.getDeployed()) && contentHash.equals(metadata.getContentHash());
+    }
+    
+    /**
+     * SHA-256 of the BPMN XML, as stored in WorkflowMetadata.contentHash
+     */
+    public static String contentHash(String bpmnXml) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bpmnXml.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+    
+    /**
+     * Build task queue mappings from the user tasks of the deployed model
      */
-    private List<TaskQueueMapping> buildTaskQueueMappings(String processDefinitionId, 
+    private List<TaskQueueMapping> buildTaskQueueMappings(BpmnModel bpmnModel, 
                                                           Map<String, String> candidateGroupMappings) {
         List<TaskQueueMapping> mappings = new ArrayList<>();
         
         try {
-            // Get BPMN model from Flowable
-            BpmnModel bpmnModel = repositoryService.getBpmnModel(processDefinitionId);
-            
             // Find all user tasks
             Collection<FlowElement> flowElements = bpmnModel.getMainProcess().getFlowElements();
             for (FlowElement element : flowElements) {
@@ -219,10 +278,10 @@ public class WorkflowMetadataService {
                 .orElseThrow(() -> new ResourceNotFoundException("Workflow metadata", processDefinitionKey));
         
         try {
-            // Read BPMN file from mounted directory
-            // TODO remove the hardcoded path
-            Path filePath = Paths.get("/app/definitions", filename);
-            if (!Files.exists(filePath)) {
+            // Read BPMN file from the definitions directory
+            Path definitionsDir = Paths.get(definitionsPath).toAbsolutePath().normalize();
+            Path filePath = definitionsDir.resolve(filename).normalize();
+            if (!filePath.startsWith(definitionsDir) || !Files.isRegularFile(filePath)) {
                 throw new ResourceNotFoundException("BPMN file", filename);
             }
             
@@ -273,6 +332,7 @@ public class WorkflowMetadataService {
                 .updatedAt(metadata.getUpdatedAt())
                 .deployed(metadata.getDeployed())
                 .deploymentId(metadata.getDeploymentId())
+                .contentHash(metadata.getContentHash())
                 .build();
     }
     
@@ -293,6 +353,7 @@ public class WorkflowMetadataService {
                 .updatedAt(metadata.getUpdatedAt())
                 .deployed(true)
                 .deploymentId(deploymentId)
+                .contentHash(metadata.getContentHash())
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,136 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.entity.WorkflowMetadata;
+import com.flowable.wrapper.model.CompiledWorkflow;
+import com.flowable.wrapper.repository.WorkflowMetadataRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory routing table built from WorkflowMetadata.
+ * Resolving the queue of a task is two hash lookups; the database is only hit on a cache miss.
+ * The table is replaced atomically (copy-on-write) whenever a workflow is registered or deployed.
+ */
+@Service
+@Slf4j
+public class WorkflowRoutingCache {
+    
+    private final WorkflowMetadataRepository workflowMetadataRepository;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    
+    private volatile Map<String, CompiledWorkflow> workflows = Map.of();
+    
+    public WorkflowRoutingCache(WorkflowMetadataRepository workflowMetadataRepository, MeterRegistry meterRegistry) {
+        this.workflowMetadataRepository = workflowMetadataRepository;
+        this.hitCounter = Counter.builder("workflow.routing.cache.requests")
+                .tag("result", "hit")
+                .description("Workflow routing lookups served from memory")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("workflow.routing.cache.requests")
+                .tag("result", "miss")
+                .description("Workflow routing lookups that required a database read")
+                .register(meterRegistry);
+        Gauge.builder("workflow.routing.cache.size", this, cache -> cache.workflows.size())
+                .description("Number of compiled workflows in the routing cache")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Load all active workflows once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        Map<String, CompiledWorkflow> compiled = new HashMap<>();
+        for (WorkflowMetadata metadata : workflowMetadataRepository.findAll()) {
+            if (Boolean.TRUE.equals(metadata.getActive())) {
+                compiled.put(metadata.getProcessDefinitionKey(), CompiledWorkflow.from(metadata));
+            }
+        }
+        
+        synchronized (this) {
+            workflows = Map.copyOf(compiled);
+        }
+        log.info("Routing cache loaded with {} workflows", compiled.size());
+    }
+    
+    /**
+     * Get the compiled workflow for a process definition key
+     */
+    public Optional<CompiledWorkflow> getWorkflow(String processDefinitionKey) {
+        CompiledWorkflow workflow = workflows.get(processDefinitionKey);
+        if (workflow != null) {
+            hitCounter.increment();
+            return Optional.of(workflow);
+        }
+        
+        missCounter.increment();
+        Optional<CompiledWorkflow> loaded = workflowMetadataRepository
+                .findByProcessDefinitionKeyAndActiveTrue(processDefinitionKey)
+                .map(CompiledWorkflow::from);
+        loaded.ifPresent(this::put);
+        
+        return loaded;
+    }
+    
+    /**
+     * Resolve the queue of a task, or null if the workflow or task has no mapping
+     */
+    public String findQueue(String processDefinitionKey, String taskDefinitionKey) {
+        return getWorkflow(processDefinitionKey)
+                .map(workflow -> workflow.findQueue(taskDefinitionKey))
+                .orElse(null);
+    }
+    
+    /**
+     * Replace the compiled entry of a workflow once the current transaction commits,
+     * so readers never observe metadata that is later rolled back
+     */
+    public void refreshAfterCommit(WorkflowMetadata metadata) {
+        CompiledWorkflow compiled = CompiledWorkflow.from(metadata);
+        boolean active = Boolean.TRUE.equals(metadata.getActive());
+        
+        Runnable refresh = () -> {
+            if (active) {
+                put(compiled);
+            } else {
+                remove(compiled.getProcessDefinitionKey());
+            }
+        };
+        
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh.run();
+                }
+            });
+        } else {
+            refresh.run();
+        }
+    }
+    
+    private synchronized void put(CompiledWorkflow workflow) {
+        Map<String, CompiledWorkflow> updated = new HashMap<>(workflows);
+        updated.put(workflow.getProcessDefinitionKey(), workflow);
+        workflows = Map.copyOf(updated);
+        log.debug("Routing cache updated for workflow {}", workflow.getProcessDefinitionKey());
+    }
+    
+    private synchronized void remove(String processDefinitionKey) {
+        Map<String, CompiledWorkflow> updated = new HashMap<>(workflows);
+        updated.remove(processDefinitionKey);
+        workflows = Map.copyOf(updated);
+    }
+}
@@ -21,6 +21,8 @@ CREATE TABLE IF NOT EXISTS workflow_metadata (
     -- Deployment tracking
     deployed BOOLEAN NOT NULL DEFAULT false,
     deployment_id VARCHAR(255),
+    -- SHA-256 of the deployed BPMN XML, used to skip redeploying unchanged definitions
+    content_hash VARCHAR(64),
     
     -- Audit fields
     active BOOLEAN NOT NULL DEFAULT true,
@@ -30,29 +32,181 @@ CREATE TABLE IF NOT EXISTS workflow_metadata (
 );
 
 -- Index for faster lookups
-CREATE INDEX idx_workflow_metadata_process_key ON workflow_metadata(process_definition_key);
-CREATE INDEX idx_workflow_metadata_active ON workflow_metadata(active);
+CREATE INDEX IF NOT EXISTS idx_workflow_metadata_process_key ON workflow_metadata(process_definition_key);
+CREATE INDEX IF NOT EXISTS idx_workflow_metadata_active ON workflow_metadata(active);
+
+-- Added after the initial release
+ALTER TABLE workflow_metadata ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+
+-- Completed Migrations
+-- One-off data migrations run by the application, recorded once they have finished so later startups skip them
+CREATE TABLE IF NOT EXISTS completed_migrations (
+    name VARCHAR(100) PRIMARY KEY,
+    completed_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- Queue Tasks Table
+-- Populated by event listeners when tasks are created.
+-- List-partitioned by queue_name: QueuePartitionService creates one partition per queue when a workflow is
+-- registered or deployed, and queue_tasks_default catches rows of queues that have no partition yet.
+
+-- Migrate a pre-partitioning table: move it aside (renaming its indexes so the names are free again);
+-- its rows are copied into the partitioned table below
+DO $$
+DECLARE
+    legacy_index RECORD;
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass('queue_tasks') AND relkind = 'r') THEN
+        ALTER TABLE queue_tasks ADD COLUMN IF NOT EXISTS business_key VARCHAR(255);
+        ALTER TABLE queue_tasks RENAME TO queue_tasks_unpartitioned;
+        FOR legacy_index IN
+            SELECT c.relname FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+            WHERE i.indrelid = to_regclass('queue_tasks_unpartitioned')
+        LOOP
+            EXECUTE format('ALTER INDEX %I RENAME TO %I', legacy_index.relname, left(legacy_index.relname, 50) || '_unpart');
+        END LOOP;
+    END IF;
+END $$;
 
--- Queue Tasks Table (simplified for now)
--- Will be populated by event listeners when tasks are created
 CREATE TABLE IF NOT EXISTS queue_tasks (
-    task_id VARCHAR(255) PRIMARY KEY,
+    task_id VARCHAR(255) NOT NULL,
     process_instance_id VARCHAR(255) NOT NULL,
     process_definition_key VARCHAR(255) NOT NULL,
     task_definition_key VARCHAR(255) NOT NULL,
     task_name VARCHAR(255) NOT NULL,
     queue_name VARCHAR(255) NOT NULL,
+    business_key VARCHAR(255),
     assignee VARCHAR(255),
     status VARCHAR(50) NOT NULL DEFAULT 'OPEN',
     priority INTEGER DEFAULT 50,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     claimed_at TIMESTAMP,
     completed_at TIMESTAMP,
-    task_data JSONB
+    task_data JSONB,
+    -- The partition key has to be part of the primary key, so a row is identified by its task and queue
+    -- (as in QueueTask); a task is projected only into the queue its task definition is routed to
+    PRIMARY KEY (task_id, queue_name)
+) PARTITION BY LIST (queue_name);
+
+CREATE TABLE IF NOT EXISTS queue_tasks_default PARTITION OF queue_tasks DEFAULT;
+
+-- Rows of a migrated table go to the default partition; QueuePartitionService moves them on startup
+DO $$
+BEGIN
+    IF to_regclass('queue_tasks_unpartitioned') IS NOT NULL THEN
+        INSERT INTO queue_tasks (task_id, process_instance_id, process_definition_key, task_definition_key,
+                                 task_name, queue_name, business_key, assignee, status, priority, created_at,
+                                 claimed_at, completed_at, task_data)
+        SELECT task_id, process_instance_id, process_definition_key, task_definition_key,
+               task_name, queue_name, business_key, assignee, status, priority, created_at,
+               claimed_at, completed_at, task_data
+        FROM queue_tasks_unpartitioned;
+        DROP TABLE queue_tasks_unpartitioned;
+    END IF;
+END $$;
+
+-- Indexes for queue queries, one per access pattern in QueueTaskRepository.
+-- Defined on the partitioned table, so PostgreSQL creates them on every partition.
+-- Listings order by (-priority, created_at, task_id), i.e. priority DESC, oldest first, so the
+-- key columns below let the planner walk the index in order and seek to a page cursor without a sort.
+-- Verify with QueueTaskRepositoryQueryPlanTest after changing any of these or the repository queries.
+
+-- Open tasks of a queue (queue listing, open count)
+CREATE INDEX IF NOT EXISTS idx_queue_tasks_open_by_queue
+    ON queue_tasks(queue_name, (-priority), created_at, task_id)
+    WHERE status = 'OPEN';
+
+-- Unassigned open tasks of a queue (claim-next, next task, unassigned listing and count)
+CREATE INDEX IF NOT EXISTS idx_queue_tasks_unassigned_by_queue
+    ON queue_tasks(queue_name, (-priority), created_at, task_id)
+    WHERE status = 'OPEN' AND assignee IS NULL;
+
+-- Open and claimed tasks of a user (my-tasks listing and count)
+CREATE INDEX IF NOT EXISTS idx_queue_tasks_active_by_assignee
+    ON queue_tasks(assignee, (-priority), created_at, task_id)
+    WHERE status IN ('OPEN', 'CLAIMED');
+
+-- Tasks of a process instance by status (loopback detection, cancellation cleanup)
+CREATE INDEX IF NOT EXISTS idx_queue_tasks_process_instance_status
+    ON queue_tasks(process_instance_id, status, created_at);
+
+-- Rows still waiting for the business key backfill (only scanned until the backfill is recorded in completed_migrations)
+CREATE INDEX IF NOT EXISTS idx_queue_tasks_missing_business_key
+    ON queue_tasks(task_id)
+    WHERE business_key IS NULL;
+
+-- Single-column indexes superseded by the composite indexes above
+DROP INDEX IF EXISTS idx_queue_tasks_queue_name;
+DROP INDEX IF EXISTS idx_queue_tasks_status;
+DROP INDEX IF EXISTS idx_queue_tasks_assignee;
+DROP INDEX IF EXISTS idx_queue_tasks_process_instance;
+-- Completed rows waiting to be moved to the archive by QueueTaskArchiveService
+CREATE INDEX IF NOT EXISTS idx_queue_tasks_completed
+    ON queue_tasks(completed_at)
+    WHERE status = 'COMPLETED';
+
+-- Queue Tasks Archive Table
+-- Completed queue tasks moved out of queue_tasks so the hot table only holds open work.
+-- Range-partitioned by month on completed_at; monthly partitions are created on demand by the mover.
+CREATE TABLE IF NOT EXISTS queue_tasks_archive (
+    task_id VARCHAR(255) NOT NULL,
+    process_instance_id VARCHAR(255) NOT NULL,
+    process_definition_key VARCHAR(255) NOT NULL,
+    task_definition_key VARCHAR(255) NOT NULL,
+    task_name VARCHAR(255) NOT NULL,
+    queue_name VARCHAR(255) NOT NULL,
+    business_key VARCHAR(255),
+    assignee VARCHAR(255),
+    status VARCHAR(50) NOT NULL,
+    priority INTEGER,
+    created_at TIMESTAMP NOT NULL,
+    claimed_at TIMESTAMP,
+    completed_at TIMESTAMP NOT NULL,
+    task_data JSONB,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (task_id, completed_at)
+) PARTITION BY RANGE (completed_at);
+
+-- Indexes for archive lookups (created on every partition)
+CREATE INDEX IF NOT EXISTS idx_queue_tasks_archive_task_id ON queue_tasks_archive(task_id);
+CREATE INDEX IF NOT EXISTS idx_queue_tasks_archive_process_instance ON queue_tasks_archive(process_instance_id);
+
+-- Async Commands Table
+-- Start / complete requests submitted with "Prefer: respond-async", executed by AsyncCommandService workers.
+-- idempotency_key deduplicates resubmissions; next_attempt_at doubles as retry time and worker lease expiry.
+CREATE TABLE IF NOT EXISTS async_commands (
+    id VARCHAR(36) PRIMARY KEY,
+    idempotency_key VARCHAR(255) NOT NULL UNIQUE,
+    command_type VARCHAR(50) NOT NULL,
+    target_id VARCHAR(255),
+    payload JSONB,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    result JSONB,
+    error_code VARCHAR(100),
+    error_message TEXT,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    next_attempt_at TIMESTAMPTZ NOT NULL DEFAULT now()
 );
 
--- Indexes for queue queries
-CREATE INDEX idx_queue_tasks_queue_name ON queue_tasks(queue_name);
-CREATE INDEX idx_queue_tasks_status ON queue_tasks(status);
-CREATE INDEX idx_queue_tasks_assignee ON queue_tasks(assignee);
-CREATE INDEX idx_queue_tasks_process_instance ON queue_tasks(process_instance_id);
\ No newline at end of file
+-- Work that is due: pending commands and running commands whose worker lease expired
+CREATE INDEX IF NOT EXISTS idx_async_commands_due
+    ON async_commands(next_attempt_at)
+    WHERE status IN ('PENDING', 'RUNNING');
+
+-- Finished commands waiting to be purged after the retention period
+CREATE INDEX IF NOT EXISTS idx_async_commands_finished
+    ON async_commands(updated_at)
+    WHERE status IN ('SUCCEEDED', 'FAILED');
+
+-- Case Match Entries
+-- One row per entry of a case's "matches" list for workflows in case-data.match-store-processes.
+-- Decision merges update only the rows that change instead of rewriting the whole variable.
+CREATE TABLE IF NOT EXISTS case_match_entries (
+    process_instance_id VARCHAR(64) NOT NULL,
+    match_index INTEGER NOT NULL,
+    data JSONB NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    PRIMARY KEY (process_instance_id, match_index)
+);
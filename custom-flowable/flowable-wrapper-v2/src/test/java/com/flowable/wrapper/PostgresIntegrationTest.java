@@ -0,0 +1,90 @@
+package com.flowable.wrapper;
+
+import com.flowable.wrapper.dto.request.DeployWorkflowRequest;
+import com.flowable.wrapper.dto.request.RegisterWorkflowMetadataRequest;
+import com.flowable.wrapper.repository.WorkflowMetadataRepository;
+import com.flowable.wrapper.service.WorkflowMetadataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Base class of the tests that need the real schema: partitioned tables, SKIP LOCKED claims, advisory locks.
+ * All subclasses share one Postgres container and one application context; the scheduled jobs are switched
+ * off so tests drive them directly, and a SqlRecorder captures the statements a test asks for.
+ * Skipped when no Docker daemon is available.
+ */
+@SpringBootTest(classes = { FlowableWrapperApplication.class, SqlRecorder.class }, properties = {
+    "async-commands.enabled=false",
+    "queue.archive.enabled=false",
+    "queue.backfill.business-key.enabled=false",
+    "process-instances.history-cleanup.enabled=false",
+    "workflow.definitions.warmup-enabled=false"
+})
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresIntegrationTest {
+    
+    protected static final String SIMPLE_APPROVAL = "simpleApproval";
+    
+    @Autowired
+    protected SqlRecorder sqlRecorder;
+    
+    @Autowired
+    protected WorkflowMetadataService workflowMetadataService;
+    
+    @Autowired
+    protected WorkflowMetadataRepository workflowMetadataRepository;
+    
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        PostgreSQLContainer<?> postgres = SharedPostgres.start();
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+    
+    /**
+     * Register and deploy the simple approval workflow (managers -> manager-queue, finance -> finance-queue),
+     * once per application context
+     */
+    protected void deploySimpleApproval() throws Exception {
+        if (!workflowMetadataRepository.existsByProcessDefinitionKey(SIMPLE_APPROVAL)) {
+            workflowMetadataService.registerWorkflowMetadata(RegisterWorkflowMetadataRequest.builder()
+                    .processDefinitionKey(SIMPLE_APPROVAL)
+                    .processName("Simple Approval Process")
+                    .candidateGroupMappings(Map.of("managers", "manager-queue", "finance", "finance-queue"))
+                    .build());
+        }
+        
+        String bpmnXml = new ClassPathResource("bpmn/simple-approval.bpmn20.xml")
+                .getContentAsString(StandardCharsets.UTF_8);
+        workflowMetadataService.deployWorkflow(DeployWorkflowRequest.builder()
+                .processDefinitionKey(SIMPLE_APPROVAL)
+                .bpmnXml(bpmnXml)
+                .build());
+    }
+    
+    /**
+     * Started on first use and stopped with the JVM, so the cached application context keeps its connection
+     */
+    private static final class SharedPostgres {
+        
+        private static final PostgreSQLContainer<?> CONTAINER = new PostgreSQLContainer<>("postgres:16-alpine")
+                .withDatabaseName("flowable_wrapper")
+                .withUrlParam("reWriteBatchedInserts", "true");
+        
+        static PostgreSQLContainer<?> start() {
+            if (!CONTAINER.isRunning()) {
+                CONTAINER.start();
+            }
+            return CONTAINER;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.flowable.wrapper;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Records the JDBC statements run on the current thread, as sent to the driver: the SQL Hibernate and the
+ * engine generate, with the bound parameters. Wraps the application DataSource, so JPA, JdbcTemplate and
+ * Flowable statements are all seen.
+ */
+public class SqlRecorder implements BeanPostProcessor, QueryExecutionListener {
+    
+    private final ThreadLocal<List<Statement>> recording = new ThreadLocal<>();
+    
+    /**
+     * One execution: a single statement, or a JDBC batch of batchSize parameter sets
+     */
+    public record Statement(String sql, List<Object> parameters, int batchSize) {
+        
+        public boolean isSelect() {
+            return sql.stripLeading().regionMatches(true, 0, "select", 0, 6);
+        }
+    }
+    
+    @FunctionalInterface
+    public interface Work {
+        void run() throws Exception;
+    }
+    
+    /**
+     * Run the work and return the statements it executed on this thread
+     */
+    public List<Statement> record(Work work) throws Exception {
+        List<Statement> statements = new ArrayList<>();
+        recording.set(statements);
+        try {
+            work.run();
+        } finally {
+            recording.remove();
+        }
+        
+        return statements;
+    }
+    
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+            return ProxyDataSourceBuilder.create(dataSource).name(beanName).listener(this).build();
+        }
+        
+        return bean;
+    }
+    
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+    
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        List<Statement> statements = recording.get();
+        if (statements == null) {
+            return;
+        }
+        
+        for (QueryInfo query : queryInfoList) {
+            List<List<ParameterSetOperation>> parameterSets = query.getParametersList();
+            List<Object> parameters = parameterSets.isEmpty() ? List.of() : parameters(parameterSets.get(0));
+            statements.add(new Statement(query.getQuery(), parameters, Math.max(parameterSets.size(), 1)));
+        }
+    }
+    
+    private static List<Object> parameters(List<ParameterSetOperation> operations) {
+        List<ParameterSetOperation> ordered = new ArrayList<>(operations);
+        ordered.sort(Comparator.comparingInt(operation -> (Integer) operation.getArgs()[0]));
+        
+        List<Object> parameters = new ArrayList<>(ordered.size());
+        for (ParameterSetOperation operation : ordered) {
+            boolean isNull = "setNull".equals(operation.getMethod().getName());
+            parameters.add(isNull ? null : operation.getArgs()[1]);
+        }
+        
+        return parameters;
+    }
+}
@@ -0,0 +1,122 @@
+package com.flowable.wrapper.listener;
+
+import com.flowable.wrapper.PostgresIntegrationTest;
+import com.flowable.wrapper.dto.request.DeployWorkflowRequest;
+import com.flowable.wrapper.dto.request.RegisterWorkflowMetadataRequest;
+import com.flowable.wrapper.enums.TaskStatus;
+import org.flowable.engine.ManagementService;
+import org.flowable.engine.RuntimeService;
+import org.flowable.engine.TaskService;
+import org.flowable.job.api.Job;
+import org.flowable.task.api.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tasks removed without being completed must leave their queue, or their entries stay open forever
+ */
+class QueueTaskEventListenerTest extends PostgresIntegrationTest {
+    
+    private static final String ESCALATED_REVIEW = "escalatedReview";
+    
+    @Autowired
+    private RuntimeService runtimeService;
+    
+    @Autowired
+    private TaskService flowableTaskService;
+    
+    @Autowired
+    private ManagementService managementService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        if (!workflowMetadataRepository.existsByProcessDefinitionKey(ESCALATED_REVIEW)) {
+            workflowMetadataService.registerWorkflowMetadata(RegisterWorkflowMetadataRequest.builder()
+                    .processDefinitionKey(ESCALATED_REVIEW)
+                    .processName("Escalated Review Process")
+                    .candidateGroupMappings(Map.of(
+                        "reviewers", "review-queue",
+                        "supervisors", "supervisor-queue",
+                        "requesters", "requester-queue"))
+                    .build());
+            workflowMetadataService.deployWorkflow(DeployWorkflowRequest.builder()
+                    .processDefinitionKey(ESCALATED_REVIEW)
+                    .bpmnXml(new ClassPathResource("bpmn/escalated-review.bpmn20.xml")
+                            .getContentAsString(StandardCharsets.UTF_8))
+                    .build());
+        }
+    }
+    
+    @Test
+    void taskInterruptedByABoundaryTimerLeavesItsQueue() {
+        String processInstanceId = startProcess();
+        flowableTaskService.claim(task(processInstanceId, "review").getId(), "reviewer");
+        
+        Job timer = managementService.createTimerJobQuery().processInstanceId(processInstanceId).singleResult();
+        managementService.executeJob(managementService.moveTimerToExecutableJob(timer.getId()).getId());
+        
+        // The claimed review is gone, the escalation is queued and the untouched branch keeps its entry
+        assertThat(queueRows(processInstanceId)).containsExactlyInAnyOrder(
+            new QueueRow("escalation", TaskStatus.OPEN),
+            new QueueRow("withdrawal", TaskStatus.OPEN));
+    }
+    
+    @Test
+    void terminateEndEventRemovesTheOpenTasksOfTheProcess() {
+        String processInstanceId = startProcess();
+        
+        flowableTaskService.complete(task(processInstanceId, "withdrawal").getId());
+        
+        assertThat(runtimeService.createProcessInstanceQuery().processInstanceId(processInstanceId).count()).isZero();
+        // Only the completed task keeps its entry
+        assertThat(queueRows(processInstanceId))
+                .containsExactly(new QueueRow("withdrawal", TaskStatus.COMPLETED));
+    }
+    
+    @Test
+    void completedTaskKeepsItsEntry() {
+        String processInstanceId = startProcess();
+        Task review = task(processInstanceId, "review");
+        flowableTaskService.claim(review.getId(), "reviewer");
+        
+        flowableTaskService.complete(review.getId());
+        
+        assertThat(queueRows(processInstanceId)).containsExactlyInAnyOrder(
+            new QueueRow("review", TaskStatus.COMPLETED),
+            new QueueRow("withdrawal", TaskStatus.OPEN));
+    }
+    
+    private record QueueRow(String taskDefinitionKey, TaskStatus status) {
+    }
+    
+    private List<QueueRow> queueRows(String processInstanceId) {
+        return jdbcTemplate.query(
+            "SELECT task_definition_key, status FROM queue_tasks WHERE process_instance_id = ?",
+            (rs, rowNum) -> new QueueRow(rs.getString(1), TaskStatus.valueOf(rs.getString(2))),
+            processInstanceId);
+    }
+    
+    private String startProcess() {
+        return runtimeService.startProcessInstanceByKey(ESCALATED_REVIEW, "REVIEW-" + UUID.randomUUID()).getId();
+    }
+    
+    private Task task(String processInstanceId, String taskDefinitionKey) {
+        return flowableTaskService.createTaskQuery()
+                .processInstanceId(processInstanceId)
+                .taskDefinitionKey(taskDefinitionKey)
+                .singleResult();
+    }
+}
@@ -0,0 +1,49 @@
+package com.flowable.wrapper.model;
+
+import com.flowable.wrapper.entity.WorkflowMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledWorkflowTest {
+    
+    @Test
+    void compilesQueuesAndHistoryPolicy() {
+        CompiledWorkflow workflow = CompiledWorkflow.from(metadata(Map.of(
+            "history", Map.of("level", "activity", "retentionDays", 30))));
+        
+        assertThat(workflow.findQueue("review")).isEqualTo("review-queue");
+        assertThat(workflow.getHistory().getLevel()).isEqualTo("activity");
+        assertThat(workflow.getHistory().getRetentionDays()).isEqualTo(30);
+    }
+    
+    @Test
+    void malformedHistoryConfigFallsBackToDefaultPolicy() {
+        CompiledWorkflow workflow = CompiledWorkflow.from(metadata(Map.of("history", Map.of("level", "verbose"))));
+        
+        assertThat(workflow.getHistory()).isEqualTo(WorkflowHistoryPolicy.DEFAULT);
+        assertThat(workflow.findQueue("review")).isEqualTo("review-queue");
+    }
+    
+    @Test
+    void malformedTaskValidationFallsBackToNoRules() {
+        CompiledWorkflow workflow = CompiledWorkflow.from(metadata(Map.of("taskValidation", List.of("review"))));
+        
+        assertThat(workflow.getTaskValidation()).isEqualTo(TaskValidationRules.NONE);
+        assertThat(workflow.getHistory()).isEqualTo(WorkflowHistoryPolicy.DEFAULT);
+    }
+    
+    private static WorkflowMetadata metadata(Map<String, Object> metadata) {
+        return WorkflowMetadata.builder()
+                .processDefinitionKey("legacyFlow")
+                .processName("Legacy Flow")
+                .candidateGroupMappings(Map.of("reviewers", "review-queue"))
+                .taskQueueMappings(List.of(TaskQueueMapping.builder().taskId("review").queue("review-queue").build()))
+                .deployed(true)
+                .metadata(metadata)
+                .build();
+    }
+}
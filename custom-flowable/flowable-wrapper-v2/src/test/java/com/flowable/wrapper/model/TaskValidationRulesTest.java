@@ -0,0 +1,92 @@
+package com.flowable.wrapper.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskValidationRulesTest {
+    
+    private static final String TASK = "l1_maker_review_task";
+    
+    private static final List<Map<String, String>> MATCHES = List.of(Map.of("id", "m1"), Map.of("id", "m2"));
+    
+    private final TaskValidationRules rules = TaskValidationRules.from(Map.of(
+        "taskValidation", Map.of(TASK, List.of(
+            Map.of("variable", "l1MakerDecisions", "required", true, "sizeEquals", "matches",
+                "items", List.of(Map.of("variable", "decision", "required", true,
+                    "allowedValues", List.of("true_match", "false_positive")))),
+            Map.of("variable", "comment", "required", true, "message", "Please add a comment.")))));
+    
+    private final Function<String, Object> processVariables = name -> "matches".equals(name) ? MATCHES : null;
+    
+    @Test
+    void acceptsCompletePayload() {
+        List<String> errors = rules.validate(TASK, Map.of(
+            "l1MakerDecisions", List.of(Map.of("decision", "true_match"), Map.of("decision", "false_positive")),
+            "comment", "Reviewed"), processVariables);
+        
+        assertThat(errors).isEmpty();
+    }
+    
+    @Test
+    void reportsMissingVariablesWithDefaultAndCustomMessages() {
+        List<String> errors = rules.validate(TASK, Map.of("comment", " "), processVariables);
+        
+        assertThat(errors).containsExactly("'l1MakerDecisions' is required.", "Please add a comment.");
+    }
+    
+    @Test
+    void reportsListSizeDifferentFromProcessVariable() {
+        List<String> errors = rules.validate(TASK, Map.of(
+            "l1MakerDecisions", List.of(Map.of("decision", "true_match")),
+            "comment", "Reviewed"), processVariables);
+        
+        assertThat(errors).containsExactly(
+            "Input is incomplete. 'l1MakerDecisions' must contain an entry for each of the 2 matches.");
+    }
+    
+    @Test
+    void checksEveryListEntry() {
+        List<String> errors = rules.validate(TASK, Map.of(
+            "l1MakerDecisions", List.of(Map.of("decision", "maybe"), Map.of()),
+            "comment", "Reviewed"), processVariables);
+        
+        assertThat(errors).containsExactly(
+            "Invalid value 'maybe' for 'l1MakerDecisions[0].decision'. Allowed values are: true_match, false_positive.",
+            "'l1MakerDecisions[1].decision' is required.");
+    }
+    
+    @Test
+    void resolvesProcessVariablesOnlyWhenNeeded() {
+        List<String> requested = new ArrayList<>();
+        rules.validate(TASK, Map.of("comment", "Reviewed"), name -> {
+            requested.add(name);
+            return null;
+        });
+        
+        assertThat(requested).isEmpty();
+    }
+    
+    @Test
+    void tasksWithoutRulesAreNotChecked() {
+        assertThat(rules.hasRules("other_task")).isFalse();
+        assertThat(rules.validate("other_task", Map.of(), processVariables)).isEmpty();
+    }
+    
+    @Test
+    void rejectsMalformedRules() {
+        assertThatThrownBy(() -> TaskValidationRules.from(Map.of("taskValidation", Map.of(TASK, List.of(Map.of("required", true))))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("needs a 'variable'");
+        assertThatThrownBy(() -> TaskValidationRules.from(Map.of("taskValidation", Map.of(TASK,
+                List.of(Map.of("variable", "decision", "allowedValues", List.of()))))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("allowedValues");
+    }
+}
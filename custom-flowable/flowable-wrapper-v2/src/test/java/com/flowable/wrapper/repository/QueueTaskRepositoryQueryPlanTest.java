@@ -0,0 +1,211 @@
+package com.flowable.wrapper.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowable.wrapper.PostgresIntegrationTest;
+import com.flowable.wrapper.SqlRecorder;
+import com.flowable.wrapper.entity.QueueTaskId;
+import com.flowable.wrapper.enums.TaskStatus;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every QueueTaskRepository method against a seeded scratch schema, captures the SQL Hibernate sends
+ * for it, and asserts on its EXPLAIN (FORMAT JSON) plan, as a generic prepared-statement plan (the way the
+ * JDBC driver runs it after a few executions): the intended index is used and there is no Sort or Seq Scan.
+ * Run it after changing the repository queries or the indexes in db/schema.sql.
+ */
+@Transactional
+class QueueTaskRepositoryQueryPlanTest extends PostgresIntegrationTest {
+    
+    private static final int ROWS = 100_000;
+    
+    private static final Instant CURSOR_CREATED_AT = Instant.parse("2024-06-01T00:00:00Z");
+    
+    @Autowired
+    private QueueTaskRepository queueTaskRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private final SoftAssertions softly = new SoftAssertions();
+    
+    @BeforeEach
+    void seedScratchSchema() throws Exception {
+        // All of it is rolled back with the test transaction
+        jdbcTemplate.execute("CREATE SCHEMA plan_check");
+        jdbcTemplate.execute("SET LOCAL search_path TO plan_check");
+        jdbcTemplate.execute(new ClassPathResource("db/schema.sql").getContentAsString(StandardCharsets.UTF_8));
+        
+        // The busiest queues get their own partitions (as QueuePartitionService would), the rest use the default one
+        for (int queue = 0; queue < 4; queue++) {
+            jdbcTemplate.execute("CREATE TABLE queue_tasks_q_" + queue + " PARTITION OF queue_tasks FOR VALUES IN ('queue-" + queue + "')");
+        }
+        
+        // 20 queues with skewed sizes, mostly completed history, priorities clustered on the default 50
+        jdbcTemplate.queryForObject("SELECT setseed(0.42)", Object.class);
+        jdbcTemplate.update("""
+                INSERT INTO queue_tasks (task_id, process_instance_id, process_definition_key, task_definition_key,
+                                         task_name, queue_name, business_key, assignee, status, priority, created_at)
+                SELECT 'task-' || lpad(src.g::text, 8, '0'),
+                       'pi-' || (src.g / 3),
+                       'SanctionsL1L2Flow',
+                       'review',
+                       'Review',
+                       'queue-' || (floor(20 * power(random(), 2)))::int,
+                       CASE WHEN src.g % 100 = 0 THEN NULL ELSE 'BK-' || src.g END,
+                       CASE WHEN src.r >= 0.7 AND src.r < 0.85 THEN NULL ELSE 'user-' || (src.g % 200) END,
+                       CASE WHEN src.r < 0.7 THEN 'COMPLETED' WHEN src.r < 0.9 THEN 'OPEN' ELSE 'CLAIMED' END,
+                       (ARRAY[25, 50, 50, 50, 50, 75, 90])[1 + floor(random() * 7)::int],
+                       now() - random() * interval '180 days'
+                FROM (SELECT g, random() AS r FROM generate_series(1, ?) g) src
+                """, ROWS);
+        jdbcTemplate.execute("ANALYZE queue_tasks");
+    }
+    
+    @Test
+    void everyRepositoryQueryUsesItsIndexWithoutSorting() throws Exception {
+        check("findOpenQueuePage", "idx_queue_tasks_open_by_queue",
+            () -> queueTaskRepository.findOpenQueuePage("queue-3", 51));
+        check("findOpenQueuePageAfter", "idx_queue_tasks_open_by_queue",
+            () -> queueTaskRepository.findOpenQueuePageAfter("queue-3", 50, CURSOR_CREATED_AT, "task-00050000", 51));
+        check("findUnassignedQueuePage", "idx_queue_tasks_unassigned_by_queue",
+            () -> queueTaskRepository.findUnassignedQueuePage("queue-3", 51));
+        check("findUnassignedQueuePageAfter", "idx_queue_tasks_unassigned_by_queue",
+            () -> queueTaskRepository.findUnassignedQueuePageAfter("queue-3", 50, CURSOR_CREATED_AT, "task-00050000", 51));
+        check("lockNextUnassignedTasks", "idx_queue_tasks_unassigned_by_queue",
+            () -> queueTaskRepository.lockNextUnassignedTasks("queue-3", 10));
+        check("countOpenQueueTasksCapped", "idx_queue_tasks_open_by_queue",
+            () -> queueTaskRepository.countOpenQueueTasksCapped("queue-3", 10_001));
+        check("countUnassignedQueueTasksCapped", "idx_queue_tasks_unassigned_by_queue",
+            () -> queueTaskRepository.countUnassignedQueueTasksCapped("queue-3", 10_001));
+        check("findAssigneePage", "idx_queue_tasks_active_by_assignee",
+            () -> queueTaskRepository.findAssigneePage("user-42", 51));
+        check("findAssigneePageAfter", "idx_queue_tasks_active_by_assignee",
+            () -> queueTaskRepository.findAssigneePageAfter("user-42", 50, CURSOR_CREATED_AT, "task-00050000", 51));
+        check("countAssigneeTasksCapped", "idx_queue_tasks_active_by_assignee",
+            () -> queueTaskRepository.countAssigneeTasksCapped("user-42", 10_001));
+        check("findByProcessInstanceIdAndStatusOrderByCreatedAtAsc", "idx_queue_tasks_process_instance_status",
+            () -> queueTaskRepository.findByProcessInstanceIdAndStatusOrderByCreatedAtAsc("pi-4242", TaskStatus.OPEN));
+        // No rows match, so only the lookup runs and nothing is deleted
+        check("deleteByProcessInstanceIdAndStatusIn", "idx_queue_tasks_process_instance_status",
+            () -> queueTaskRepository.deleteByProcessInstanceIdAndStatusIn("pi-none", List.of(TaskStatus.OPEN, TaskStatus.CLAIMED)));
+        check("findByBusinessKeyIsNullAndTaskIdGreaterThanOrderByTaskIdAsc", "idx_queue_tasks_missing_business_key",
+            () -> queueTaskRepository.findByBusinessKeyIsNullAndTaskIdGreaterThanOrderByTaskIdAsc("task-00001000", PageRequest.of(0, 500)));
+        check("findById", "queue_tasks_pkey",
+            () -> queueTaskRepository.findById(new QueueTaskId("task-none", "queue-3")));
+        check("findByTaskId", "queue_tasks_pkey",
+            () -> queueTaskRepository.findByTaskId("task-none"));
+        check("findByTaskIdIn", "queue_tasks_pkey",
+            () -> queueTaskRepository.findByTaskIdIn(List.of("task-none", "task-00050000")));
+        
+        softly.assertAll();
+    }
+    
+    @Test
+    void taskLookupWithQueueReadsOnlyItsPartition() throws Exception {
+        // Unknown task IDs, so neither result is served from the persistence context
+        assertThat(indexesRead(() -> queueTaskRepository.findById(new QueueTaskId("task-none", "queue-3"))))
+                .containsExactly("queue_tasks_q_3_pkey");
+        assertThat(indexesRead(() -> queueTaskRepository.findByTaskId("task-none")))
+                .as("every queue partition and the default one")
+                .hasSize(5);
+    }
+    
+    private List<String> indexesRead(SqlRecorder.Work call) throws Exception {
+        List<SqlRecorder.Statement> queries = sqlRecorder.record(call);
+        assertThat(queries).hasSize(1);
+        
+        return explain(queries.get(0)).findValuesAsText("Index Name");
+    }
+    
+    private void check(String method, String expectedIndex, SqlRecorder.Work call) throws Exception {
+        List<SqlRecorder.Statement> queries = sqlRecorder.record(call).stream()
+                .filter(SqlRecorder.Statement::isSelect)
+                .toList();
+        softly.assertThat(queries).as("%s statements", method).isNotEmpty();
+        
+        // Plans name the per-partition indexes, so accept any index attached to the expected one
+        List<String> indexNames = jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_class c
+                WHERE c.oid = to_regclass(?)
+                   OR c.oid IN (SELECT inhrelid FROM pg_inherits WHERE inhparent = to_regclass(?))
+                """, String.class, expectedIndex, expectedIndex);
+        
+        for (SqlRecorder.Statement query : queries) {
+            JsonNode plan = explain(query);
+            softly.assertThat(plan.findValuesAsText("Node Type"))
+                    .as("%s plan nodes of: %s", method, query.sql())
+                    .doesNotContain("Sort", "Seq Scan");
+            softly.assertThat(plan.findValuesAsText("Index Name"))
+                    .as("%s indexes of: %s", method, query.sql())
+                    .containsAnyElementsOf(indexNames);
+        }
+    }
+    
+    private JsonNode explain(SqlRecorder.Statement query) throws Exception {
+        List<Object> parameters = query.parameters();
+        
+        StringBuilder sql = new StringBuilder();
+        int position = 0;
+        for (char c : query.sql().toCharArray()) {
+            sql.append(c == '?' ? "$" + (++position) : String.valueOf(c));
+        }
+        
+        String types = parameters.stream().map(QueueTaskRepositoryQueryPlanTest::sqlType).collect(Collectors.joining(", "));
+        String values = parameters.stream().map(QueueTaskRepositoryQueryPlanTest::literal).collect(Collectors.joining(", "));
+        
+        jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+        jdbcTemplate.execute("PREPARE plan_check" + (types.isEmpty() ? "" : "(" + types + ")") + " AS " + sql);
+        try {
+            String plan = jdbcTemplate.queryForObject(
+                    "EXPLAIN (FORMAT JSON) EXECUTE plan_check" + (values.isEmpty() ? "" : "(" + values + ")"), String.class);
+            return objectMapper.readTree(plan);
+        } finally {
+            jdbcTemplate.execute("DEALLOCATE plan_check");
+        }
+    }
+    
+    private static String sqlType(Object value) {
+        if (value instanceof Integer) {
+            return "integer";
+        }
+        if (value instanceof Long) {
+            return "bigint";
+        }
+        if (value instanceof Timestamp || value instanceof OffsetDateTime || value instanceof Instant) {
+            return "timestamptz";
+        }
+        
+        return "text";
+    }
+    
+    private static String literal(Object value) {
+        if (value == null) {
+            return "NULL";
+        }
+        if (value instanceof Number) {
+            return value.toString();
+        }
+        
+        return "'" + value.toString().replace("'", "''") + "'";
+    }
+}
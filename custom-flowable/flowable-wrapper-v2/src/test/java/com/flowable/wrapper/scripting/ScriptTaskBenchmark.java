@@ -0,0 +1,152 @@
+package com.flowable.wrapper.scripting;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.codehaus.groovy.jsr223.GroovyScriptEngineFactory;
+import org.flowable.bpmn.converter.BpmnXMLConverter;
+import org.flowable.bpmn.model.BpmnModel;
+import org.flowable.bpmn.model.ScriptTask;
+import org.flowable.common.engine.impl.util.io.InputStreamSource;
+import org.flowable.engine.delegate.DelegateExecution;
+import org.flowable.engine.delegate.JavaDelegate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.script.Bindings;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import javax.script.SimpleScriptContext;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-execution cost of the SanctionsL1L2Flow L1 maker validation and merge scripts, run the way the engine
+ * runs them by default (JSR-223 eval of the source), through the compiled-script cache, and as Java delegates.
+ * Run from this module with mvn -Pbenchmark test-compile exec:exec, which reads the definition from ../definitions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScriptTaskBenchmark {
+    
+    private static final String PROCESS_DEFINITION = "SanctionsL1L2Flow.bpmn20.xml";
+    
+    @Param({ "validation", "merge" })
+    private String script;
+    
+    @Param({ "10", "100" })
+    private int matchCount;
+    
+    private String scriptSource;
+    private ScriptEngine jsr223Engine;
+    private ScriptEngine compilingEngine;
+    private JavaDelegate delegate;
+    
+    private Map<String, Object> variables;
+    private DelegateExecution execution;
+    private ScriptContext context;
+    
+    @Setup
+    public void setUp() throws Exception {
+        scriptSource = scriptTask("l1_maker_" + script + "_script").getScript();
+        jsr223Engine = new GroovyScriptEngineFactory().getScriptEngine();
+        compilingEngine = new CompilingGroovyScriptEngineFactory(new SimpleMeterRegistry(), 500).getScriptEngine();
+        delegate = "validation".equals(script)
+            ? new DecisionValidationDelegate("l1Maker")
+            : new DecisionMergeDelegate("l1Maker", "level1Maker", null);
+        
+        variables = new HashMap<>();
+        execution = execution(variables);
+        context = new SimpleScriptContext();
+        context.setWriter(Writer.nullWriter());  // The scripts println on every run
+        Bindings bindings = jsr223Engine.createBindings();
+        bindings.put("execution", execution);
+        context.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+        
+        resetVariables();
+        jsr223Engine.eval(scriptSource, context);
+        Map<String, Object> scriptResult = new HashMap<>(variables);
+        resetVariables();
+        delegate.execute(execution);
+        if (!scriptResult.equals(variables)) {
+            throw new IllegalStateException("Script and delegate disagree: " + scriptResult + " vs " + variables);
+        }
+    }
+    
+    // Repeated runs of either script give the same result, so all runs share one set of variables
+    private void resetVariables() {
+        List<Map<String, Object>> matches = new ArrayList<>();
+        List<Map<String, Object>> decisions = new ArrayList<>();
+        for (int i = 0; i < matchCount; i++) {
+            matches.add(new HashMap<>(Map.of("matchId", "M-" + i, "score", 90)));
+            decisions.add(Map.of("decision", i % 2 == 0 ? "true_match" : "false_positive", "comment", "Reviewed " + i));
+        }
+        
+        variables.clear();
+        variables.put("caseId", "CASE-1");
+        variables.put("matches", matches);
+        variables.put("l1MakerDecisions", decisions);
+    }
+    
+    @Benchmark
+    public Object jsr223Eval() throws ScriptException {
+        return jsr223Engine.eval(scriptSource, context);
+    }
+    
+    @Benchmark
+    public Object compiledScript() throws ScriptException {
+        return compilingEngine.eval(scriptSource, context);
+    }
+    
+    @Benchmark
+    public Map<String, Object> javaDelegate() {
+        delegate.execute(execution);
+        return variables;
+    }
+    
+    private static ScriptTask scriptTask(String id) throws Exception {
+        BpmnModel model;
+        try (InputStream in = Files.newInputStream(Path.of("../definitions", PROCESS_DEFINITION))) {
+            model = new BpmnXMLConverter().convertToBpmnModel(new InputStreamSource(in), false, false);
+        }
+        
+        return (ScriptTask) model.getMainProcess().getFlowElement(id);
+    }
+    
+    /**
+     * Just the variable access the scripts and delegates use, backed by a map
+     */
+    private static DelegateExecution execution(Map<String, Object> variables) {
+        return (DelegateExecution) Proxy.newProxyInstance(DelegateExecution.class.getClassLoader(),
+            new Class<?>[] { DelegateExecution.class }, (proxy, method, args) -> switch (method.getName()) {
+                case "getVariable" -> variables.get((String) args[0]);
+                case "setVariable" -> variables.put((String) args[0], args[1]);
+                case "hasVariable" -> variables.containsKey((String) args[0]);
+                case "getProcessInstanceId" -> "benchmark";
+                case "toString" -> "BenchmarkExecution";
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+}
@@ -0,0 +1,129 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.PostgresIntegrationTest;
+import com.flowable.wrapper.dto.request.StartProcessRequest;
+import com.flowable.wrapper.dto.response.AsyncCommandResponse;
+import com.flowable.wrapper.entity.AsyncCommand;
+import com.flowable.wrapper.enums.AsyncCommandStatus;
+import com.flowable.wrapper.exception.WorkflowException;
+import com.flowable.wrapper.repository.AsyncCommandRepository;
+import org.flowable.engine.RuntimeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsyncCommandServiceTest extends PostgresIntegrationTest {
+    
+    @Autowired
+    private AsyncCommandService asyncCommandService;
+    
+    @Autowired
+    private AsyncCommandRepository asyncCommandRepository;
+    
+    @Autowired
+    private RuntimeService runtimeService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        deploySimpleApproval();
+    }
+    
+    @Test
+    void staleLeaseDoesNotRunReclaimedCommand() throws Exception {
+        String businessKey = "ASYNC-" + UUID.randomUUID();
+        AsyncCommandResponse submitted = asyncCommandService.submitStartProcess(startRequest(businessKey), null);
+        
+        AsyncCommandService.Lease first = claim(submitted.getCommandId());
+        expireLease(submitted.getCommandId());
+        AsyncCommandService.Lease second = claim(submitted.getCommandId());
+        assertThat(second.attempt()).isEqualTo(first.attempt() + 1);
+        
+        assertThat(asyncCommandService.execute(first)).isFalse();
+        assertThat(command(submitted.getCommandId()).getStatus()).isEqualTo(AsyncCommandStatus.RUNNING);
+        assertThat(runtimeService.createProcessInstanceQuery().processInstanceBusinessKey(businessKey).count()).isZero();
+        
+        assertThat(asyncCommandService.execute(second)).isTrue();
+        assertThat(command(submitted.getCommandId()).getStatus()).isEqualTo(AsyncCommandStatus.SUCCEEDED);
+        assertThat(runtimeService.createProcessInstanceQuery().processInstanceBusinessKey(businessKey).count()).isOne();
+    }
+    
+    @Test
+    void commandLockedByItsWorkerIsNotReclaimed() throws Exception {
+        AsyncCommandResponse submitted = asyncCommandService.submitStartProcess(startRequest("ASYNC-" + UUID.randomUUID()), null);
+        claim(submitted.getCommandId());
+        expireLease(submitted.getCommandId());
+        
+        // The lease ran out, but the worker is still running the command and holds its row
+        List<AsyncCommandService.Lease> reclaimed = new TransactionTemplate(transactionManager).execute(status -> {
+            asyncCommandRepository.findByIdForUpdate(submitted.getCommandId()).orElseThrow();
+            return CompletableFuture.supplyAsync(() -> asyncCommandService.claim(100)).join();
+        });
+        
+        assertThat(reclaimed).extracting(AsyncCommandService.Lease::commandId).doesNotContain(submitted.getCommandId());
+        assertThat(claim(submitted.getCommandId()).attempt()).isEqualTo(2);
+    }
+    
+    @Test
+    void resubmissionWithSameKeyReturnsOriginalCommand() throws Exception {
+        String key = UUID.randomUUID().toString();
+        AsyncCommandResponse first = asyncCommandService.submitStartProcess(startRequest("ORDER-1"), key);
+        AsyncCommandResponse second = asyncCommandService.submitStartProcess(startRequest("ORDER-1"), key);
+        
+        assertThat(second.getCommandId()).isEqualTo(first.getCommandId());
+    }
+    
+    @Test
+    void resubmissionWithSameKeyAndDifferentPayloadIsRejected() throws Exception {
+        String key = UUID.randomUUID().toString();
+        asyncCommandService.submitStartProcess(startRequest("ORDER-1"), key);
+        
+        assertThatThrownBy(() -> asyncCommandService.submitStartProcess(startRequest("ORDER-2"), key))
+                .isInstanceOfSatisfying(WorkflowException.class,
+                    e -> assertThat(e.getErrorCode()).isEqualTo("IDEMPOTENCY_KEY_REUSED"));
+    }
+    
+    private StartProcessRequest startRequest(String businessKey) {
+        return StartProcessRequest.builder()
+                .processDefinitionKey(SIMPLE_APPROVAL)
+                .businessKey(businessKey)
+                .variables(Map.of("amount", 1000))
+                .build();
+    }
+    
+    private AsyncCommandService.Lease claim(String commandId) throws Exception {
+        // Claims run on their own thread, like the dispatcher, so they never see a test transaction
+        List<AsyncCommandService.Lease> leases = CompletableFuture.supplyAsync(() -> asyncCommandService.claim(100))
+                .get(30, TimeUnit.SECONDS);
+        
+        return leases.stream()
+                .filter(lease -> lease.commandId().equals(commandId))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Command " + commandId + " was not claimed"));
+    }
+    
+    private void expireLease(String commandId) {
+        jdbcTemplate.update("UPDATE async_commands SET next_attempt_at = now() - interval '1 second' WHERE id = ?", commandId);
+    }
+    
+    private AsyncCommand command(String commandId) {
+        return asyncCommandRepository.findById(commandId).orElseThrow();
+    }
+}
@@ -0,0 +1,298 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.PostgresIntegrationTest;
+import com.flowable.wrapper.SqlRecorder;
+import com.flowable.wrapper.dto.request.BulkTaskRequest;
+import com.flowable.wrapper.dto.request.DeployWorkflowRequest;
+import com.flowable.wrapper.dto.request.RegisterWorkflowMetadataRequest;
+import com.flowable.wrapper.dto.request.StartProcessRequest;
+import com.flowable.wrapper.dto.response.BulkTaskResponse;
+import com.flowable.wrapper.dto.response.BulkTaskResponse.ItemResult;
+import com.flowable.wrapper.dto.response.QueueTaskResponse;
+import com.flowable.wrapper.enums.BulkTaskOperation;
+import com.flowable.wrapper.exception.WorkflowException;
+import org.flowable.engine.RuntimeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class BulkTaskServiceTest extends PostgresIntegrationTest {
+    
+    private static final String SANCTIONS = "sanctionsCaseManagement";
+    
+    private static final String L1_MAKER = "l1_maker_review_task";
+    private static final String L1_CHECKER = "l1_checker_review_task";
+    
+    @Autowired
+    private BulkTaskService bulkTaskService;
+    
+    @Autowired
+    private ProcessInstanceService processInstanceService;
+    
+    @Autowired
+    private TaskService taskService;
+    
+    @Autowired
+    private QueueTaskService queueTaskService;
+    
+    @Autowired
+    private org.flowable.engine.TaskService flowableTaskService;
+    
+    @Autowired
+    private RuntimeService runtimeService;
+    
+    private final List<String> processInstanceIds = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        deploySimpleApproval();
+        deploySanctionsFlow();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (processInstanceIds.isEmpty()) {
+            return;
+        }
+        // Instances past their last task are already gone
+        runtimeService.createProcessInstanceQuery().processInstanceIds(Set.copyOf(processInstanceIds)).list()
+                .forEach(instance -> runtimeService.deleteProcessInstance(instance.getId(), "test finished"));
+    }
+    
+    @Test
+    void itemFailingInTheEngineIsRetriedAloneAndResultsKeepInputOrder() throws Exception {
+        List<String> taskIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            taskIds.add(claimOpenTask(startSimpleApproval(), "managerApproval", "alice"));
+        }
+        // The engine refuses to complete tasks of a suspended instance, which the validation does not check
+        String suspendedTaskId = taskIds.get(1);
+        runtimeService.suspendProcessInstanceById(queueTaskService.getQueueTask(suspendedTaskId).getProcessInstanceId());
+        
+        AtomicReference<BulkTaskResponse> response = new AtomicReference<>();
+        List<SqlRecorder.Statement> statements = sqlRecorder.record(
+                () -> response.set(bulkTaskService.execute(BulkTaskOperation.COMPLETE, request("alice", taskIds))));
+        
+        assertThat(response.get().getRequested()).isEqualTo(3);
+        assertThat(response.get().getSucceeded()).isEqualTo(2);
+        assertThat(response.get().getFailed()).isOne();
+        assertThat(response.get().getResults())
+                .extracting(ItemResult::getTaskId, ItemResult::isSuccess, ItemResult::getErrorCode)
+                .containsExactly(
+                    tuple(taskIds.get(0), true, null),
+                    tuple(suspendedTaskId, false, "COMPLETE_FAILED"),
+                    tuple(taskIds.get(2), true, null));
+        // The chunk read its rows once, rolled back, then every item read its row again in its own transaction
+        assertThat(statements)
+                .filteredOn(statement -> statement.isSelect() && statement.sql().toLowerCase().contains("from queue_tasks"))
+                .hasSize(1 + 3);
+        assertThat(queueTaskService.getQueueTask(taskIds.get(0)).getStatus()).isEqualTo("COMPLETED");
+        assertThat(queueTaskService.getQueueTask(suspendedTaskId).getStatus()).isEqualTo("CLAIMED");
+        assertThat(queueTaskService.getQueueTask(taskIds.get(2)).getStatus()).isEqualTo("COMPLETED");
+    }
+    
+    @Test
+    void requestAboveTheItemLimitIsRejected() {
+        List<String> taskIds = IntStream.range(0, 1_001).mapToObj(i -> UUID.randomUUID().toString()).toList();
+        
+        assertThatThrownBy(() -> bulkTaskService.execute(BulkTaskOperation.COMPLETE, request("alice", taskIds)))
+                .isInstanceOfSatisfying(WorkflowException.class,
+                    e -> assertThat(e.getErrorCode()).isEqualTo("TOO_MANY_ITEMS"));
+    }
+    
+    @Test
+    void completionsFailingValidationAreReportedWithoutTouchingTheEngine() throws Exception {
+        String completed = claimOpenTask(startSimpleApproval(), "managerApproval", "alice");
+        String unassigned = queueTaskService.getTasksByProcessInstance(startSimpleApproval()).get(0).getTaskId();
+        String someoneElses = claimOpenTask(startSimpleApproval(), "managerApproval", "bob");
+        String invalid = claimOpenTask(startSanctionsCase(2), L1_MAKER, "alice");
+        String unknown = UUID.randomUUID().toString();
+        
+        BulkTaskRequest request = request("alice", List.of(completed, unassigned, someoneElses, invalid, unknown));
+        // One decision for two matches
+        request.getItems().get(3).setVariables(Map.of("l1MakerDecisions", decisions(1)));
+        AtomicReference<BulkTaskResponse> response = new AtomicReference<>();
+        List<SqlRecorder.Statement> statements = sqlRecorder.record(
+                () -> response.set(bulkTaskService.execute(BulkTaskOperation.COMPLETE, request)));
+        
+        assertThat(response.get().getSucceeded()).isOne();
+        assertThat(response.get().getResults())
+                .extracting(ItemResult::getTaskId, ItemResult::getErrorCode)
+                .containsExactly(
+                    tuple(completed, null),
+                    tuple(unassigned, "TASK_NOT_ASSIGNED"),
+                    tuple(someoneElses, "UNAUTHORIZED"),
+                    tuple(invalid, "VALIDATION_FAILED"),
+                    tuple(unknown, "RESOURCE_NOT_FOUND"));
+        assertThat(response.get().getResults().get(3).getMessage()).contains("'l1MakerDecisions'");
+        // Validation failures are item results, not chunk failures, so the chunk is not retried
+        assertThat(statements)
+                .filteredOn(statement -> statement.isSelect() && statement.sql().toLowerCase().contains("from queue_tasks"))
+                .hasSize(1);
+        for (String taskId : List.of(unassigned, someoneElses, invalid)) {
+            assertThat(flowableTaskService.createTaskQuery().taskId(taskId).count()).isOne();
+        }
+    }
+    
+    @Test
+    void concurrentBulkCompletesOfMakerAndCheckerOfOneInstanceDoNotConflict() throws Exception {
+        // A few rounds, so the two completions overlap at least once whatever the scheduling
+        for (int round = 0; round < 5; round++) {
+            String processInstanceId = startSanctionsCase(2);
+            String makerTaskId = claimOpenTask(processInstanceId, L1_MAKER, "maker");
+            String checkerTaskId = claimOpenTask(processInstanceId, L1_CHECKER, "checker");
+            
+            CountDownLatch start = new CountDownLatch(1);
+            CompletableFuture<Completion> maker = completeAsync(start, makerTaskId, "l1MakerDecisions", 2);
+            CompletableFuture<Completion> checker = completeAsync(start, checkerTaskId, "l1CheckerDecisions", 2);
+            start.countDown();
+            
+            for (Completion completion : List.of(maker.get(30, TimeUnit.SECONDS), checker.get(30, TimeUnit.SECONDS))) {
+                assertThat(completion.response().getSucceeded()).isOne();
+                // One chunk transaction: a conflict would have rolled it back and read the row again for the retry
+                assertThat(completion.statements())
+                        .filteredOn(statement -> statement.isSelect() && statement.sql().toLowerCase().contains("from queue_tasks"))
+                        .hasSize(1);
+                assertThat(completion.statements())
+                        .filteredOn(statement -> statement.sql().contains("pg_advisory_xact_lock"))
+                        .hasSize(1);
+            }
+            
+            // Both branches reached the join, so the case moved on past level 1
+            assertThat(queueTaskService.getTasksByProcessInstance(processInstanceId))
+                    .extracting(QueueTaskResponse::getTaskDefinitionKey)
+                    .isNotEmpty()
+                    .doesNotContain(L1_MAKER, L1_CHECKER);
+        }
+    }
+    
+    private static BulkTaskRequest request(String userId, List<String> taskIds) {
+        return BulkTaskRequest.builder()
+                .userId(userId)
+                .items(taskIds.stream()
+                        .map(taskId -> BulkTaskRequest.Item.builder().taskId(taskId).build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+    
+    private record Completion(BulkTaskResponse response, List<SqlRecorder.Statement> statements) {
+    }
+    
+    private CompletableFuture<Completion> completeAsync(CountDownLatch start, String taskId, String decisionsVariable,
+                                                        int matchCount) {
+        BulkTaskRequest request = BulkTaskRequest.builder()
+                .items(List.of(BulkTaskRequest.Item.builder()
+                        .taskId(taskId)
+                        .variables(Map.of(decisionsVariable, decisions(matchCount)))
+                        .build()))
+                .build();
+        
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                start.await();
+                AtomicReference<BulkTaskResponse> response = new AtomicReference<>();
+                List<SqlRecorder.Statement> statements = sqlRecorder.record(
+                        () -> response.set(bulkTaskService.execute(BulkTaskOperation.COMPLETE, request)));
+                return new Completion(response.get(), statements);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+    
+    private String startSimpleApproval() throws Exception {
+        String processInstanceId = processInstanceService.startProcess(StartProcessRequest.builder()
+                .processDefinitionKey(SIMPLE_APPROVAL)
+                .businessKey("BULK-" + UUID.randomUUID())
+                .variables(Map.of("amount", 1000))
+                .build()).getProcessInstanceId();
+        processInstanceIds.add(processInstanceId);
+        
+        return processInstanceId;
+    }
+    
+    private String startSanctionsCase(int matchCount) throws Exception {
+        // The merge scripts update the match entries in place, so they must be mutable
+        List<Map<String, Object>> matches = new ArrayList<>();
+        for (int i = 0; i < matchCount; i++) {
+            matches.add(new HashMap<>(Map.of("matchId", "M-" + i, "score", 90)));
+        }
+        
+        String caseId = "CASE-" + UUID.randomUUID();
+        String processInstanceId = processInstanceService.startProcess(StartProcessRequest.builder()
+                .processDefinitionKey(SANCTIONS)
+                .businessKey(caseId)
+                .variables(Map.of("caseId", caseId, "matches", matches))
+                .build()).getProcessInstanceId();
+        processInstanceIds.add(processInstanceId);
+        
+        return processInstanceId;
+    }
+    
+    private String claimOpenTask(String processInstanceId, String taskDefinitionKey, String userId) throws Exception {
+        String taskId = queueTaskService.getTasksByProcessInstance(processInstanceId).stream()
+                .filter(task -> taskDefinitionKey.equals(task.getTaskDefinitionKey()))
+                .findFirst()
+                .orElseThrow()
+                .getTaskId();
+        taskService.claimTask(taskId, userId);
+        
+        return taskId;
+    }
+    
+    private static List<Map<String, Object>> decisions(int matchCount) {
+        List<Map<String, Object>> decisions = new ArrayList<>();
+        for (int i = 0; i < matchCount; i++) {
+            decisions.add(new HashMap<>(Map.of("decision", "true_match", "comment", "Confirmed " + i)));
+        }
+        
+        return decisions;
+    }
+    
+    /**
+     * Register and deploy the sanctions case flow from the definitions directory, once per application context
+     */
+    private void deploySanctionsFlow() throws Exception {
+        if (workflowMetadataRepository.existsByProcessDefinitionKey(SANCTIONS)) {
+            return;
+        }
+        
+        workflowMetadataService.registerWorkflowMetadata(RegisterWorkflowMetadataRequest.builder()
+                .processDefinitionKey(SANCTIONS)
+                .processName("Sanctions Case Management")
+                .candidateGroupMappings(Map.of(
+                    "level1-maker", "level1-maker-queue",
+                    "level1-checker", "level1-checker-queue",
+                    "level1-supervisor", "level1-supervisor-queue",
+                    "level2-maker", "level2-maker-queue",
+                    "level2-checker", "level2-checker-queue",
+                    "level2-supervisor", "level2-supervisor-queue"))
+                .metadata(Map.of("taskValidation", Map.of(L1_MAKER, List.of(
+                    Map.of("variable", "l1MakerDecisions", "required", true, "sizeEquals", "matches")))))
+                .build());
+        workflowMetadataService.deployWorkflow(DeployWorkflowRequest.builder()
+                .processDefinitionKey(SANCTIONS)
+                .bpmnXml(Files.readString(Path.of("../definitions/SanctionsL1L2Flow.bpmn20.xml")))
+                .build());
+    }
+}
@@ -0,0 +1,78 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.exception.WorkflowException;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChunkedTransactionRunnerTest {
+    
+    private final CountingTransactionManager transactionManager = new CountingTransactionManager();
+    
+    private final ChunkedTransactionRunner runner = new ChunkedTransactionRunner(transactionManager);
+    
+    @Test
+    void failedChunkIsRetriedItemByItemAndResultsKeepInputOrder() {
+        List<Integer> items = IntStream.range(0, 7).boxed().toList();
+        List<List<Integer>> handled = new ArrayList<>();
+        
+        List<String> results = runner.run(items, 3, chunk -> {
+            handled.add(List.copyOf(chunk));
+            if (chunk.contains(4)) {
+                throw new WorkflowException("ENGINE_FAILURE", "item 4 is broken");
+            }
+            return chunk.stream().map(item -> "ok-" + item).toList();
+        }, (item, e) -> "failed-" + item + ": " + e.getMessage());
+        
+        assertThat(results).containsExactly("ok-0", "ok-1", "ok-2", "ok-3", "failed-4: item 4 is broken", "ok-5", "ok-6");
+        assertThat(handled).containsExactly(
+            List.of(0, 1, 2), List.of(3, 4, 5), List.of(3), List.of(4), List.of(5), List.of(6));
+        // The failed chunk and the failed item roll back, the other chunks and items commit
+        assertThat(transactionManager.commits).hasValue(4);
+        assertThat(transactionManager.rollbacks).hasValue(2);
+    }
+    
+    @Test
+    void noItemsRunNoTransaction() {
+        List<String> results = runner.run(List.<Integer>of(), 3, chunk -> List.of("unexpected"), (item, e) -> "failed");
+        
+        assertThat(results).isEmpty();
+        assertThat(transactionManager.commits).hasValue(0);
+    }
+    
+    /**
+     * Transaction manager without a resource, counting how transactions end
+     */
+    private static class CountingTransactionManager extends AbstractPlatformTransactionManager {
+        
+        final AtomicInteger commits = new AtomicInteger();
+        final AtomicInteger rollbacks = new AtomicInteger();
+        
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+        
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+        
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            commits.incrementAndGet();
+        }
+        
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rollbacks.incrementAndGet();
+        }
+    }
+}
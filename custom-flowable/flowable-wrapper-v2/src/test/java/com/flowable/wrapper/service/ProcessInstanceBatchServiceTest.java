@@ -0,0 +1,185 @@
+package com.flowable.wrapper.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowable.wrapper.dto.request.StartProcessRequest;
+import com.flowable.wrapper.dto.response.ProcessInstanceResponse;
+import com.flowable.wrapper.dto.response.ProcessStartBatchResult;
+import com.flowable.wrapper.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProcessInstanceBatchServiceTest {
+    
+    private static final String KNOWN = "simpleApproval";
+    private static final String UNKNOWN = "noSuchWorkflow";
+    
+    private final ProcessInstanceService processInstanceService = mock(ProcessInstanceService.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ChunkedTransactionRunner chunkedTransactionRunner = new ChunkedTransactionRunner(new NoOpTransactionManager());
+    
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        // Later requests finish first, so results come back out of order unless the service restores it
+        when(processInstanceService.startVerifiedProcess(any())).thenAnswer(invocation -> {
+            StartProcessRequest request = invocation.getArgument(0);
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(Math.max(0, 20 - index(request.getBusinessKey())));
+            } finally {
+                running.decrementAndGet();
+            }
+            return ProcessInstanceResponse.builder().processInstanceId("pi-" + request.getBusinessKey()).build();
+        });
+        doThrow(new ResourceNotFoundException("Workflow", UNKNOWN)).when(processInstanceService).verifyStartable(UNKNOWN);
+    }
+    
+    @Test
+    void jsonArrayAndNdjsonInputStartTheSameRequests() throws Exception {
+        ProcessInstanceBatchService service = service(1, 2);
+        List<String> requests = requests(KNOWN, 5);
+        
+        List<ProcessStartBatchResult> fromArray = run(service, "[" + String.join(",", requests) + "]");
+        List<ProcessStartBatchResult> fromLines = run(service, String.join("\n", requests) + "\n");
+        
+        assertThat(fromArray)
+                .extracting(ProcessStartBatchResult::getIndex, ProcessStartBatchResult::isSuccess,
+                    ProcessStartBatchResult::getProcessInstanceId)
+                .containsExactly(
+                    tuple(0, true, "pi-K-0"), tuple(1, true, "pi-K-1"), tuple(2, true, "pi-K-2"),
+                    tuple(3, true, "pi-K-3"), tuple(4, true, "pi-K-4"));
+        assertThat(fromLines).isEqualTo(fromArray);
+    }
+    
+    @Test
+    void malformedRecordStopsTheBatchAfterReportingTheRequestsBeforeIt() throws Exception {
+        List<String> requests = requests(KNOWN, 4);
+        String input = String.join("\n", requests.subList(0, 3)) + "\n{\"processDefinitionKey\": [\n" + requests.get(3);
+        
+        List<ProcessStartBatchResult> results = run(service(2, 2), input);
+        
+        assertThat(results)
+                .extracting(ProcessStartBatchResult::getIndex, ProcessStartBatchResult::isSuccess,
+                    ProcessStartBatchResult::getErrorCode)
+                .containsExactly(
+                    tuple(0, true, null), tuple(1, true, null), tuple(2, true, null),
+                    tuple(3, false, "INVALID_REQUEST"));
+        assertThat(results.get(3).getMessage()).startsWith("Could not read request: ");
+        // Nothing after the malformed record is started
+        verify(processInstanceService, times(3)).startVerifiedProcess(any());
+    }
+    
+    @Test
+    void unknownDefinitionKeyIsCheckedOnceAndRejectsEachOfItsRequests() throws Exception {
+        List<String> requests = new ArrayList<>(requests(UNKNOWN, 3));
+        requests.addAll(1, requests(KNOWN, 2));
+        
+        List<ProcessStartBatchResult> results = run(service(2, 2), String.join("\n", requests));
+        
+        assertThat(results)
+                .extracting(ProcessStartBatchResult::getProcessDefinitionKey, ProcessStartBatchResult::getErrorCode)
+                .containsExactly(
+                    tuple(UNKNOWN, "RESOURCE_NOT_FOUND"), tuple(KNOWN, null), tuple(KNOWN, null),
+                    tuple(UNKNOWN, "RESOURCE_NOT_FOUND"), tuple(UNKNOWN, "RESOURCE_NOT_FOUND"));
+        verify(processInstanceService, times(1)).verifyStartable(UNKNOWN);
+        verify(processInstanceService, times(1)).verifyStartable(KNOWN);
+        verify(processInstanceService, times(2)).startVerifiedProcess(any());
+        verify(processInstanceService, never()).startVerifiedProcess(
+            argThat(request -> UNKNOWN.equals(request.getProcessDefinitionKey())));
+    }
+    
+    @Test
+    void resultsKeepInputOrderWhenChunksRunInParallel() throws Exception {
+        List<ProcessStartBatchResult> results = run(service(4, 1), String.join("\n", requests(KNOWN, 20)));
+        
+        assertThat(results).extracting(ProcessStartBatchResult::getIndex)
+                .containsExactlyElementsOf(IntStream.range(0, 20).boxed().toList());
+        assertThat(results).allSatisfy(result -> assertThat(result.getProcessInstanceId())
+                .isEqualTo("pi-" + result.getBusinessKey()));
+        assertThat(maxRunning.get()).isGreaterThan(1);
+    }
+    
+    private ProcessInstanceBatchService service(int parallelism, int chunkSize) {
+        ProcessInstanceBatchService service = new ProcessInstanceBatchService(processInstanceService,
+                chunkedTransactionRunner, objectMapper, mock(DataSource.class), parallelism);
+        ReflectionTestUtils.setField(service, "chunkSize", chunkSize);
+        
+        return service;
+    }
+    
+    private List<ProcessStartBatchResult> run(ProcessInstanceBatchService service, String input) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.startBatch(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+        
+        List<ProcessStartBatchResult> results = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readValue(line, ProcessStartBatchResult.class));
+        }
+        
+        return results;
+    }
+    
+    /**
+     * One JSON request per element, with business keys K-0, K-1, ... (U-0, ... for the unknown key)
+     */
+    private static List<String> requests(String processDefinitionKey, int count) {
+        String prefix = KNOWN.equals(processDefinitionKey) ? "K-" : "U-";
+        return IntStream.range(0, count)
+                .mapToObj(i -> "{\"processDefinitionKey\":\"" + processDefinitionKey + "\",\"businessKey\":\"" + prefix + i + "\"}")
+                .collect(Collectors.toList());
+    }
+    
+    private static int index(String businessKey) {
+        return Integer.parseInt(businessKey.substring(businessKey.indexOf('-') + 1));
+    }
+    
+    /**
+     * Transaction manager without a resource
+     */
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+        
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+        
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+        
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
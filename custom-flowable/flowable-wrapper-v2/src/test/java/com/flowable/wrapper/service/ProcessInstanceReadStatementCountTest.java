@@ -0,0 +1,105 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.PostgresIntegrationTest;
+import com.flowable.wrapper.SqlRecorder;
+import com.flowable.wrapper.dto.request.StartProcessRequest;
+import com.flowable.wrapper.dto.response.ProcessInstanceResponse;
+import org.flowable.task.api.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the JDBC statements of one process instance read, so a second lookup creeping into the path
+ * fails the build
+ */
+class ProcessInstanceReadStatementCountTest extends PostgresIntegrationTest {
+    
+    @Autowired
+    private ProcessInstanceService processInstanceService;
+    
+    @Autowired
+    private org.flowable.engine.TaskService flowableTaskService;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        deploySimpleApproval();
+    }
+    
+    @Test
+    void finishedInstanceIsReadWithOneQuery() throws Exception {
+        String processInstanceId = startProcess();
+        finish(processInstanceId);
+        
+        AtomicReference<ProcessInstanceResponse> response = new AtomicReference<>();
+        List<SqlRecorder.Statement> statements = sqlRecorder.record(
+                () -> response.set(processInstanceService.getProcessInstance(processInstanceId)));
+        
+        assertThat(response.get().getActive()).isFalse();
+        assertThat(response.get().getEndTime()).isNotNull();
+        assertThat(response.get().getVariables()).containsEntry("amount", 1000).containsEntry("approved", true);
+        // The finished historic row with its variables, no probe before it and no runtime lookup
+        assertThat(statements).hasSize(1);
+        assertThat(sql(statements.get(0))).contains("act_hi_procinst").contains("act_hi_varinst");
+    }
+    
+    @Test
+    void finishedInstanceWithoutVariablesIsReadWithOneQuery() throws Exception {
+        String processInstanceId = startProcess();
+        finish(processInstanceId);
+        
+        AtomicReference<ProcessInstanceResponse> response = new AtomicReference<>();
+        List<SqlRecorder.Statement> statements = sqlRecorder.record(
+                () -> response.set(processInstanceService.getProcessInstance(processInstanceId, Set.of())));
+        
+        assertThat(response.get().getActive()).isFalse();
+        assertThat(response.get().getVariables()).isNull();
+        assertThat(statements).hasSize(1);
+        assertThat(sql(statements.get(0))).contains("act_hi_procinst").doesNotContain("act_hi_varinst");
+    }
+    
+    @Test
+    void activeInstanceIsReadWithTheHistoryProbeAndOneRuntimeQuery() throws Exception {
+        String processInstanceId = startProcess();
+        
+        AtomicReference<ProcessInstanceResponse> response = new AtomicReference<>();
+        List<SqlRecorder.Statement> statements = sqlRecorder.record(
+                () -> response.set(processInstanceService.getProcessInstance(processInstanceId)));
+        
+        assertThat(response.get().getActive()).isTrue();
+        assertThat(response.get().getVariables()).containsEntry("amount", 1000);
+        assertThat(statements).hasSize(2);
+        assertThat(sql(statements.get(0))).contains("act_hi_procinst");
+        assertThat(sql(statements.get(1))).contains("act_ru_execution").doesNotContain("act_hi_");
+    }
+    
+    private String startProcess() throws Exception {
+        return processInstanceService.startProcess(StartProcessRequest.builder()
+                .processDefinitionKey(SIMPLE_APPROVAL)
+                .businessKey("READ-" + UUID.randomUUID())
+                .variables(Map.of("amount", 1000))
+                .build()).getProcessInstanceId();
+    }
+    
+    /**
+     * Complete the manager and finance approvals, which ends the instance
+     */
+    private void finish(String processInstanceId) {
+        for (int i = 0; i < 2; i++) {
+            Task task = flowableTaskService.createTaskQuery().processInstanceId(processInstanceId).singleResult();
+            flowableTaskService.complete(task.getId(), Map.of("approved", true));
+        }
+    }
+    
+    private static String sql(SqlRecorder.Statement statement) {
+        return statement.sql().toLowerCase();
+    }
+}
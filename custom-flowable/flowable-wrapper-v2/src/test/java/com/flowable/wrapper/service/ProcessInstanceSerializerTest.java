@@ -0,0 +1,287 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.exception.WorkflowException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flowable.common.engine.api.FlowableOptimisticLockingException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ProcessInstanceSerializerTest {
+    
+    private static final String PROCESS_INSTANCE_ID = "pi-1";
+    
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final CountingTransactionManager transactionManager = new CountingTransactionManager();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    
+    private ProcessInstanceSerializer serializer;
+    
+    @BeforeEach
+    void setUp() {
+        serializer = new ProcessInstanceSerializer(jdbcTemplate, transactionManager, meterRegistry, 4);
+        ReflectionTestUtils.setField(serializer, "maxAttempts", 3);
+        ReflectionTestUtils.setField(serializer, "retryBackoffMs", 1L);
+        ReflectionTestUtils.setField(serializer, "lockTimeoutMs", 5_000L);
+    }
+    
+    @Test
+    void conflictIsRetriedInAFreshTransaction() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        
+        String result = serializer.execute(PROCESS_INSTANCE_ID, () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new FlowableOptimisticLockingException("stale execution");
+            }
+            return "done";
+        });
+        
+        assertThat(result).isEqualTo("done");
+        assertThat(attempts).hasValue(3);
+        assertThat(transactionManager.rollbacks).hasValue(2);
+        assertThat(transactionManager.commits).hasValue(1);
+        assertThat(meterRegistry.counter("tasks.completion.conflicts").count()).isEqualTo(2);
+        assertThat(meterRegistry.counter("tasks.completion.retries").count()).isEqualTo(2);
+        // Every attempt takes the advisory lock of the instance inside its own transaction
+        verify(jdbcTemplate, times(3)).queryForObject(
+            eq("SELECT 1 FROM pg_advisory_xact_lock(?, hashtext(?))"), eq(Integer.class), eq(7_310_451), eq(PROCESS_INSTANCE_ID));
+    }
+    
+    @Test
+    void conflictsBeyondMaxAttemptsFailWithConcurrentModification() {
+        AtomicInteger attempts = new AtomicInteger();
+        
+        assertThatThrownBy(() -> serializer.execute(PROCESS_INSTANCE_ID, () -> {
+            attempts.incrementAndGet();
+            throw new RuntimeException("wrapped", new FlowableOptimisticLockingException("stale execution"));
+        }))
+                .isInstanceOfSatisfying(WorkflowException.class,
+                    e -> assertThat(e.getErrorCode()).isEqualTo("CONCURRENT_MODIFICATION"));
+        
+        assertThat(attempts).hasValue(3);
+        assertThat(transactionManager.rollbacks).hasValue(3);
+        assertThat(meterRegistry.counter("tasks.completion.retries").count()).isEqualTo(2);
+    }
+    
+    @Test
+    void otherFailuresAreNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        
+        assertThatThrownBy(() -> serializer.execute(PROCESS_INSTANCE_ID, () -> {
+            attempts.incrementAndGet();
+            throw new WorkflowException("TASK_NOT_ASSIGNED", "Task must be claimed before completion");
+        }))
+                .isInstanceOfSatisfying(WorkflowException.class,
+                    e -> assertThat(e.getErrorCode()).isEqualTo("TASK_NOT_ASSIGNED"));
+        assertThatThrownBy(() -> serializer.execute(PROCESS_INSTANCE_ID, () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("broken");
+        }))
+                .isInstanceOf(IllegalStateException.class);
+        
+        assertThat(attempts).hasValue(2);
+        // The checked failure still rolls its transaction back
+        assertThat(transactionManager.rollbacks).hasValue(2);
+        assertThat(meterRegistry.counter("tasks.completion.conflicts").count()).isZero();
+    }
+    
+    @Test
+    void conflictInsideCallerTransactionIsLeftToTheCaller() {
+        AtomicInteger attempts = new AtomicInteger();
+        
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            try {
+                serializer.execute(PROCESS_INSTANCE_ID, () -> {
+                    attempts.incrementAndGet();
+                    throw new FlowableOptimisticLockingException("stale execution");
+                });
+            } catch (WorkflowException e) {
+                throw new IllegalStateException(e);
+            }
+        }))
+                .isInstanceOf(FlowableOptimisticLockingException.class);
+        
+        assertThat(attempts).hasValue(1);
+        assertThat(meterRegistry.counter("tasks.completion.conflicts").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("tasks.completion.retries").count()).isZero();
+    }
+    
+    @Test
+    void callsForTheSameInstanceRunOneAtATime() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        
+        List<CompletableFuture<Void>> calls = IntStream.range(0, 8)
+                .mapToObj(i -> CompletableFuture.runAsync(() -> {
+                    try {
+                        start.await();
+                        serializer.execute(PROCESS_INSTANCE_ID, () -> {
+                            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                            sleep(5);
+                            running.decrementAndGet();
+                            return null;
+                        });
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }))
+                .toList();
+        start.countDown();
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        
+        assertThat(maxRunning).hasValue(1);
+        assertThat(transactionManager.commits).hasValue(8);
+    }
+    
+    @Test
+    void waitingLongerThanTheLockTimeoutFailsWithProcessInstanceBusy() throws Exception {
+        ReflectionTestUtils.setField(serializer, "lockTimeoutMs", 50L);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> {
+            try {
+                serializer.execute(PROCESS_INSTANCE_ID, () -> {
+                    holding.countDown();
+                    await(release);
+                    return null;
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        holding.await(10, TimeUnit.SECONDS);
+        
+        try {
+            assertThatThrownBy(() -> serializer.execute(PROCESS_INSTANCE_ID, () -> "never"))
+                    .isInstanceOfSatisfying(WorkflowException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo("PROCESS_INSTANCE_BUSY"));
+        } finally {
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+        }
+    }
+    
+    @Test
+    void lockAllTakesTheAdvisoryLocksInProcessInstanceOrder() throws Exception {
+        new TransactionTemplate(transactionManager).execute(status -> {
+            try {
+                serializer.lockAll(List.of("pi-c", "pi-a", "pi-b", "pi-a"));
+            } catch (WorkflowException e) {
+                throw new IllegalStateException(e);
+            }
+            return null;
+        });
+        
+        InOrder inOrder = inOrder(jdbcTemplate);
+        for (String processInstanceId : List.of("pi-a", "pi-b", "pi-c")) {
+            inOrder.verify(jdbcTemplate).queryForObject(
+                eq("SELECT 1 FROM pg_advisory_xact_lock(?, hashtext(?))"), eq(Integer.class), eq(7_310_451), eq(processInstanceId));
+        }
+        inOrder.verifyNoMoreInteractions();
+        // Every stripe is released with the transaction
+        assertThat(serializer.execute("pi-a", () -> "free")).isEqualTo("free");
+    }
+    
+    @Test
+    void overlappingLockAllCallsDoNotDeadlock() throws Exception {
+        List<String> processInstanceIds = IntStream.range(0, 16).mapToObj(i -> "pi-" + i).toList();
+        CountDownLatch start = new CountDownLatch(1);
+        
+        List<CompletableFuture<Void>> calls = IntStream.range(0, 8)
+                .mapToObj(i -> CompletableFuture.runAsync(() -> {
+                    List<String> shuffled = new ArrayList<>(processInstanceIds);
+                    Collections.shuffle(shuffled);
+                    await(start);
+                    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                        try {
+                            serializer.lockAll(shuffled.subList(0, 10));
+                            // Instances already locked by this transaction are not waited for again
+                            serializer.execute(shuffled.get(0), () -> null);
+                        } catch (WorkflowException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        sleep(2);
+                    });
+                }))
+                .toList();
+        start.countDown();
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        
+        assertThat(transactionManager.commits).hasValue(8);
+    }
+    
+    @Test
+    void lockAllRequiresATransaction() {
+        assertThatThrownBy(() -> serializer.lockAll(List.of(PROCESS_INSTANCE_ID)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Transaction manager without a resource, counting how transactions end
+     */
+    private static class CountingTransactionManager extends AbstractPlatformTransactionManager {
+        
+        final AtomicInteger commits = new AtomicInteger();
+        final AtomicInteger rollbacks = new AtomicInteger();
+        
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+        
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+        
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            commits.incrementAndGet();
+        }
+        
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rollbacks.incrementAndGet();
+        }
+    }
+}
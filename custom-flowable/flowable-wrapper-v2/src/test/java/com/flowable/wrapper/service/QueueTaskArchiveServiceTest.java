@@ -0,0 +1,54 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueueTaskArchiveServiceTest extends PostgresIntegrationTest {
+    
+    @Autowired
+    private QueueTaskArchiveService queueTaskArchiveService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Test
+    void movesBatchIntoPartitionsOfItsMonths() {
+        // Months no other test uses, so their archive partitions do not exist yet
+        String lastOfMonth = insertCompletedTask(LocalDateTime.of(2019, 1, 31, 23, 59));
+        String firstOfMonth = insertCompletedTask(LocalDateTime.of(2019, 2, 1, 0, 0));
+        
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> queueTaskArchiveService.moveBatch());
+        
+        assertThat(count("SELECT count(*) FROM queue_tasks WHERE task_id IN (?, ?)", lastOfMonth, firstOfMonth)).isZero();
+        assertThat(count("SELECT count(*) FROM queue_tasks_archive_2019_01 WHERE task_id = ?", lastOfMonth)).isOne();
+        assertThat(count("SELECT count(*) FROM queue_tasks_archive_2019_02 WHERE task_id = ?", firstOfMonth)).isOne();
+    }
+    
+    private String insertCompletedTask(LocalDateTime completedAt) {
+        String taskId = UUID.randomUUID().toString();
+        jdbcTemplate.update("""
+                INSERT INTO queue_tasks (task_id, process_instance_id, process_definition_key, task_definition_key,
+                                         task_name, queue_name, status, created_at, completed_at)
+                VALUES (?, ?, 'archiveTest', 'review', 'Review', 'archive-test-queue', 'COMPLETED', ?, ?)
+                """, taskId, UUID.randomUUID().toString(), Timestamp.valueOf(completedAt.minusDays(1)),
+                Timestamp.valueOf(completedAt));
+        return taskId;
+    }
+    
+    private long count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Long.class, args);
+    }
+}
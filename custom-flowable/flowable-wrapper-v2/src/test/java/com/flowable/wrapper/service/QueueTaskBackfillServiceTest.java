@@ -0,0 +1,77 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.PostgresIntegrationTest;
+import org.flowable.engine.RuntimeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueueTaskBackfillServiceTest extends PostgresIntegrationTest {
+    
+    @Autowired
+    private QueueTaskBackfillService queueTaskBackfillService;
+    
+    @Autowired
+    private RuntimeService runtimeService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @BeforeEach
+    void enableBackfill() {
+        jdbcTemplate.update("DELETE FROM completed_migrations WHERE name = 'queue_tasks.business_key'");
+        ReflectionTestUtils.setField(queueTaskBackfillService, "enabled", true);
+    }
+    
+    @AfterEach
+    void disableBackfill() {
+        ReflectionTestUtils.setField(queueTaskBackfillService, "enabled", false);
+    }
+    
+    @Test
+    void finishedBackfillIsRecordedAndNotRepeated() throws Exception {
+        deploySimpleApproval();
+        String businessKey = "BACKFILL-" + UUID.randomUUID();
+        String processInstanceId = runtimeService.startProcessInstanceByKey(SIMPLE_APPROVAL, businessKey).getId();
+        clearBusinessKeys(processInstanceId);
+        // The process instance of this row does not exist, so it can never be resolved
+        insertTaskWithoutBusinessKey();
+        
+        queueTaskBackfillService.backfillBusinessKeys();
+        
+        assertThat(businessKeys(processInstanceId)).containsOnly(businessKey);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM completed_migrations WHERE name = 'queue_tasks.business_key'", Long.class)).isOne();
+        
+        // Later startups skip the walk, even if a resolvable row turned up again
+        clearBusinessKeys(processInstanceId);
+        queueTaskBackfillService.backfillBusinessKeys();
+        
+        assertThat(businessKeys(processInstanceId)).containsOnlyNulls();
+    }
+    
+    private void clearBusinessKeys(String processInstanceId) {
+        jdbcTemplate.update("UPDATE queue_tasks SET business_key = NULL WHERE process_instance_id = ?", processInstanceId);
+    }
+    
+    private List<String> businessKeys(String processInstanceId) {
+        return jdbcTemplate.queryForList("SELECT business_key FROM queue_tasks WHERE process_instance_id = ?",
+                String.class, processInstanceId);
+    }
+    
+    private void insertTaskWithoutBusinessKey() {
+        jdbcTemplate.update("""
+                INSERT INTO queue_tasks (task_id, process_instance_id, process_definition_key, task_definition_key,
+                                         task_name, queue_name, status)
+                VALUES (?, ?, 'backfillTest', 'review', 'Review', 'backfill-test-queue', 'OPEN')
+                """, UUID.randomUUID().toString(), UUID.randomUUID().toString());
+    }
+}
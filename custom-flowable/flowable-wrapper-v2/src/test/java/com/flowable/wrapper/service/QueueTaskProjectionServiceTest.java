@@ -0,0 +1,155 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.PostgresIntegrationTest;
+import com.flowable.wrapper.SqlRecorder;
+import com.flowable.wrapper.entity.QueueTask;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.flowable.task.api.Task;
+import org.flowable.task.service.impl.persistence.entity.TaskEntityImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bulk projection of queue tasks: new rows are inserted in JDBC batches without a select per row.
+ * Also measures rows/sec against merging every row, which is what save() did before QueueTask was Persistable.
+ */
+@Slf4j
+class QueueTaskProjectionServiceTest extends PostgresIntegrationTest {
+    
+    private static final int ROWS = 2_000;
+    
+    private static final int BATCH_SIZE = 50;  // spring.jpa.properties.hibernate.jdbc.batch_size
+    
+    @Autowired
+    private QueueTaskProjectionService queueTaskProjectionService;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private final List<String> processInstanceIds = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        deploySimpleApproval();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM queue_tasks WHERE process_instance_id = ANY (?)",
+                (Object) processInstanceIds.toArray(new String[0]));
+    }
+    
+    @Test
+    void newRowsAreInsertedInBatchesWithoutPreSelects() throws Exception {
+        List<Task> tasks = tasks(ROWS);
+        
+        int[] inserted = new int[1];
+        List<SqlRecorder.Statement> statements = sqlRecorder.record(
+                () -> inserted[0] = queueTaskProjectionService.projectTasks(tasks, SIMPLE_APPROVAL, "BULK-1"));
+        
+        assertThat(inserted[0]).isEqualTo(ROWS);
+        // One lookup of the rows already present, then only inserts
+        assertThat(statements).filteredOn(SqlRecorder.Statement::isSelect).hasSize(1);
+        List<SqlRecorder.Statement> inserts = statements.stream()
+                .filter(statement -> statement.sql().startsWith("insert into queue_tasks"))
+                .toList();
+        assertThat(inserts).hasSize(ROWS / BATCH_SIZE).allMatch(insert -> insert.batchSize() == BATCH_SIZE);
+        assertThat(statements).hasSize(1 + inserts.size());
+        
+        // A second run finds every row and writes nothing
+        assertThat(queueTaskProjectionService.projectTasks(tasks, SIMPLE_APPROVAL, "BULK-1")).isZero();
+    }
+    
+    @Test
+    void measuresBatchedPersistAgainstPerRowMerge() throws Exception {
+        // Warm both paths up, so the measurement does not include class loading and statement preparation
+        mergeEachRow(tasks(200));
+        queueTaskProjectionService.projectTasks(tasks(200), SIMPLE_APPROVAL, "BULK-1");
+        
+        List<Task> mergedTasks = tasks(ROWS);
+        List<SqlRecorder.Statement> mergeStatements = new ArrayList<>();
+        long mergeNanos = time(() -> mergeStatements.addAll(sqlRecorder.record(() -> mergeEachRow(mergedTasks))));
+        
+        List<Task> persistedTasks = tasks(ROWS);
+        List<SqlRecorder.Statement> persistStatements = new ArrayList<>();
+        long persistNanos = time(() -> persistStatements.addAll(sqlRecorder.record(
+                () -> queueTaskProjectionService.projectTasks(persistedTasks, SIMPLE_APPROVAL, "BULK-1"))));
+        
+        log.info("Projected {} queue tasks: merge per row {} rows/s in {} statements, batched persist {} rows/s in {} statements",
+            ROWS, rowsPerSecond(mergeNanos), mergeStatements.size(), rowsPerSecond(persistNanos), persistStatements.size());
+        
+        // The merge path selects every row before inserting it
+        assertThat(mergeStatements).filteredOn(SqlRecorder.Statement::isSelect).hasSize(ROWS);
+        assertThat(persistStatements.size()).isLessThan(mergeStatements.size() / 10);
+    }
+    
+    private void mergeEachRow(List<Task> tasks) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (Task task : tasks) {
+                entityManager.merge(QueueTask.builder()
+                        .taskId(task.getId())
+                        .processInstanceId(task.getProcessInstanceId())
+                        .processDefinitionKey(SIMPLE_APPROVAL)
+                        .taskDefinitionKey(task.getTaskDefinitionKey())
+                        .taskName(task.getName())
+                        .queueName("default")
+                        .businessKey("BULK-1")
+                        .taskData(new HashMap<>(Map.of("taskDefinitionKey", task.getTaskDefinitionKey())))
+                        .build());
+            }
+        });
+    }
+    
+    /**
+     * Open tasks of a new process instance, like the multi-instance reviewer step of a large case
+     */
+    private List<Task> tasks(int count) {
+        String processInstanceId = UUID.randomUUID().toString();
+        processInstanceIds.add(processInstanceId);
+        
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TaskEntityImpl task = new TaskEntityImpl();
+            task.setId(UUID.randomUUID().toString());
+            task.setProcessInstanceId(processInstanceId);
+            task.setTaskDefinitionKey("managerApproval");
+            task.setName("Manager Approval");
+            task.setCreateTime(new Date());
+            tasks.add(task);
+        }
+        
+        return tasks;
+    }
+    
+    private static long time(SqlRecorder.Work work) throws Exception {
+        long started = System.nanoTime();
+        work.run();
+        
+        return System.nanoTime() - started;
+    }
+    
+    private static long rowsPerSecond(long nanos) {
+        return ROWS * 1_000_000_000L / Math.max(nanos, 1);
+    }
+}
@@ -0,0 +1,119 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.PostgresIntegrationTest;
+import com.flowable.wrapper.SqlRecorder;
+import com.flowable.wrapper.dto.request.CompleteTaskRequest;
+import com.flowable.wrapper.dto.request.StartProcessRequest;
+import com.flowable.wrapper.dto.response.QueueTaskResponse;
+import com.flowable.wrapper.dto.response.TaskCompletionResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the JDBC statements of one task completion, so extra queries creeping into the path fail the build
+ */
+class TaskCompletionStatementCountTest extends PostgresIntegrationTest {
+    
+    // The queue row read before and under the process instance lock, the lock itself, then the engine's own
+    // reads of the task, executions, variables and activity instances and its flush; measured on Flowable 7.1
+    private static final int COMPLETION_BUDGET = 27;
+    
+    // Ending the process adds the engine's clean-up of executions, jobs, identity links and history
+    private static final int LAST_COMPLETION_BUDGET = 43;
+    
+    @Autowired
+    private ProcessInstanceService processInstanceService;
+    
+    @Autowired
+    private TaskService taskService;
+    
+    @Autowired
+    private QueueTaskService queueTaskService;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        deploySimpleApproval();
+    }
+    
+    @Test
+    void completionStaysWithinStatementBudget() throws Exception {
+        String processInstanceId = startProcess();
+        String taskId = claimOpenTask(processInstanceId);
+        
+        AtomicReference<TaskCompletionResponse> response = new AtomicReference<>();
+        List<SqlRecorder.Statement> statements = sqlRecorder.record(() -> response.set(complete(taskId)));
+        
+        // The next task is reported from the completion itself, not looked up afterwards
+        QueueTaskResponse nextTask = openTask(processInstanceId);
+        assertThat(response.get().isProcessActive()).isTrue();
+        assertThat(response.get().getNextTaskId()).isEqualTo(nextTask.getTaskId());
+        assertThat(response.get().getNextTaskName()).isEqualTo("Finance Approval");
+        
+        assertThat(statements).hasSizeLessThanOrEqualTo(COMPLETION_BUDGET);
+        assertNoFollowUpQueries(statements);
+    }
+    
+    @Test
+    void lastCompletionStaysWithinStatementBudget() throws Exception {
+        String processInstanceId = startProcess();
+        complete(claimOpenTask(processInstanceId));
+        String taskId = claimOpenTask(processInstanceId);
+        
+        AtomicReference<TaskCompletionResponse> response = new AtomicReference<>();
+        List<SqlRecorder.Statement> statements = sqlRecorder.record(() -> response.set(complete(taskId)));
+        
+        assertThat(response.get().isProcessActive()).isFalse();
+        assertThat(response.get().getNextTaskId()).isNull();
+        
+        assertThat(statements).hasSizeLessThanOrEqualTo(LAST_COMPLETION_BUDGET);
+        assertNoFollowUpQueries(statements);
+    }
+    
+    private void assertNoFollowUpQueries(List<SqlRecorder.Statement> statements) {
+        List<String> selects = statements.stream()
+                .filter(SqlRecorder.Statement::isSelect)
+                .map(statement -> statement.sql().toLowerCase())
+                .toList();
+        
+        // Once to find the process instance to lock, once under the lock
+        assertThat(selects).filteredOn(sql -> sql.contains("from queue_tasks")).hasSize(2);
+        assertThat(selects).noneMatch(sql -> sql.contains("from queue_tasks") && sql.contains("process_instance_id="));
+        // No process instance query, and no re-read of the process instance's tasks
+        assertThat(selects).noneMatch(sql -> sql.contains("parent_id_ is null"));
+        assertThat(selects).noneMatch(sql -> sql.contains("from act_ru_task") && sql.contains("proc_inst_id_"));
+        assertThat(selects).noneMatch(sql -> sql.contains("from workflow_metadata"));
+    }
+    
+    private String startProcess() throws Exception {
+        return processInstanceService.startProcess(StartProcessRequest.builder()
+                .processDefinitionKey(SIMPLE_APPROVAL)
+                .businessKey("COUNT-" + UUID.randomUUID())
+                .variables(Map.of("amount", 1000))
+                .build()).getProcessInstanceId();
+    }
+    
+    private String claimOpenTask(String processInstanceId) throws Exception {
+        String taskId = openTask(processInstanceId).getTaskId();
+        taskService.claimTask(taskId, "approver.one");
+        
+        return taskId;
+    }
+    
+    private QueueTaskResponse openTask(String processInstanceId) {
+        return queueTaskService.getTasksByProcessInstance(processInstanceId).get(0);
+    }
+    
+    private TaskCompletionResponse complete(String taskId) throws Exception {
+        return taskService.completeTask(taskId, CompleteTaskRequest.builder()
+                .variables(Map.of("approved", true))
+                .build());
+    }
+}
@@ -0,0 +1,165 @@
+package com.flowable.wrapper.service;
+
+import com.flowable.wrapper.PostgresIntegrationTest;
+import com.flowable.wrapper.SqlRecorder;
+import com.flowable.wrapper.dto.request.StartProcessRequest;
+import com.flowable.wrapper.dto.response.QueueTaskResponse;
+import com.flowable.wrapper.exception.WorkflowException;
+import org.flowable.engine.RuntimeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskServiceTest extends PostgresIntegrationTest {
+    
+    // Every simpleApproval task lands in the default queue
+    private static final String QUEUE = "default";
+    
+    // Above the default priority of tasks left behind by other tests, so these are claimed first
+    private static final int TOP_PRIORITY = 1_000;
+    
+    @Autowired
+    private TaskService taskService;
+    
+    @Autowired
+    private ProcessInstanceService processInstanceService;
+    
+    @Autowired
+    private QueueTaskService queueTaskService;
+    
+    @Autowired
+    private org.flowable.engine.TaskService flowableTaskService;
+    
+    @Autowired
+    private RuntimeService runtimeService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private final List<String> processInstanceIds = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        deploySimpleApproval();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        processInstanceIds.forEach(id -> runtimeService.deleteProcessInstance(id, "test finished"));
+    }
+    
+    @Test
+    void concurrentClaimNextCallsReceiveDisjointTasks() throws Exception {
+        List<String> taskIds = startTasks(4);
+        
+        // The first caller keeps its rows locked while the second one claims
+        List<List<String>> claims = new TransactionTemplate(transactionManager).execute(status -> {
+            List<String> first = claimNext("alice");
+            List<String> second = CompletableFuture.supplyAsync(() -> claimNext("bob")).join();
+            return List.of(first, second);
+        });
+        
+        assertThat(claims.get(0)).hasSize(2).doesNotContainAnyElementsOf(claims.get(1));
+        assertThat(claims.get(1)).hasSize(2);
+        assertThat(concat(claims)).containsExactlyInAnyOrderElementsOf(taskIds);
+        claims.get(0).forEach(taskId -> assertThat(flowableAssignee(taskId)).isEqualTo("alice"));
+        claims.get(1).forEach(taskId -> assertThat(flowableAssignee(taskId)).isEqualTo("bob"));
+    }
+    
+    @Test
+    void claimFailingMidwayRollsBackEarlierClaims() throws Exception {
+        List<String> taskIds = startTasks(2);
+        String first = taskIds.get(0);
+        String second = taskIds.get(1);
+        // Claimed in the engine behind the queue's back, so claiming it again fails
+        jdbcTemplate.update("UPDATE ACT_RU_TASK SET ASSIGNEE_ = 'mallory' WHERE ID_ = ?", second);
+        
+        assertThatThrownBy(() -> taskService.claimNextTasks(QUEUE, "carol", 2))
+                .isInstanceOfSatisfying(WorkflowException.class,
+                    e -> assertThat(e.getErrorCode()).isEqualTo("CLAIM_FAILED"));
+        
+        assertThat(flowableAssignee(first)).isNull();
+        QueueTaskResponse queueTask = queueTaskService.getQueueTask(first);
+        assertThat(queueTask.getAssignee()).isNull();
+        assertThat(queueTask.getStatus()).isEqualTo("OPEN");
+    }
+    
+    @Test
+    void claimNextRejectsACountAboveTheMaximum() throws Exception {
+        List<String> taskIds = startTasks(1);
+        
+        assertThatThrownBy(() -> taskService.claimNextTasks(QUEUE, "erin", 51))
+                .isInstanceOfSatisfying(WorkflowException.class,
+                    e -> assertThat(e.getErrorCode()).isEqualTo("INVALID_COUNT"));
+        
+        // Nothing is claimed rather than a silently smaller batch
+        assertThat(flowableAssignee(taskIds.get(0))).isNull();
+    }
+    
+    @Test
+    void claimNextReadsTheQueueOnlyToLockIt() throws Exception {
+        List<String> taskIds = startTasks(2);
+        
+        List<SqlRecorder.Statement> statements = sqlRecorder.record(() -> assertThat(claimNext("dave")).isEqualTo(taskIds));
+        
+        // The locked rows are claimed as loaded, neither the claim listener nor the queue update reads them again
+        assertThat(statements)
+                .filteredOn(statement -> statement.isSelect() && statement.sql().toLowerCase().contains("from queue_tasks"))
+                .hasSize(1);
+    }
+    
+    /**
+     * Start one instance per task and move its task to the front of the queue, in the returned order
+     */
+    private List<String> startTasks(int count) throws Exception {
+        List<String> taskIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String processInstanceId = processInstanceService.startProcess(StartProcessRequest.builder()
+                    .processDefinitionKey(SIMPLE_APPROVAL)
+                    .businessKey("CLAIM-" + UUID.randomUUID())
+                    .variables(Map.of("amount", 1000))
+                    .build()).getProcessInstanceId();
+            processInstanceIds.add(processInstanceId);
+            
+            String taskId = queueTaskService.getTasksByProcessInstance(processInstanceId).get(0).getTaskId();
+            jdbcTemplate.update("UPDATE queue_tasks SET priority = ? WHERE task_id = ?", TOP_PRIORITY - i, taskId);
+            taskIds.add(taskId);
+        }
+        
+        return taskIds;
+    }
+    
+    private List<String> claimNext(String userId) {
+        try {
+            return taskService.claimNextTasks(QUEUE, userId, 2).stream()
+                    .map(QueueTaskResponse::getTaskId)
+                    .toList();
+        } catch (WorkflowException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private String flowableAssignee(String taskId) {
+        return flowableTaskService.createTaskQuery().taskId(taskId).singleResult().getAssignee();
+    }
+    
+    private static List<String> concat(List<List<String>> lists) {
+        return lists.stream().flatMap(List::stream).toList();
+    }
+}
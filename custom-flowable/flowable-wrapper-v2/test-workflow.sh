@@ -122,11 +122,11 @@ check_queue() {
     echo -e "\n${BLUE}Checking $QUEUE${NC}"
     
     RESPONSE=$(curl -s "$API_BASE/tasks/queue/$QUEUE")
-    COUNT=$(echo "$RESPONSE" | jq length)
+    COUNT=$(echo "$RESPONSE" | jq '.items | length')
     
     if [ "$COUNT" -gt 0 ]; then
         echo -e "${GREEN}Found $COUNT task(s) in $QUEUE${NC}"
-        echo "$RESPONSE" | jq '.[] | {taskId, taskName, businessKey, status}'
+        echo "$RESPONSE" | jq '.items[] | {taskId, taskName, businessKey, status}'
     else
         echo "No tasks in $QUEUE"
     fi
@@ -138,7 +138,7 @@ show_all_queues() {
     echo "===================="
     
     for queue in manager-queue director-queue finance-queue procurement-queue; do
-        COUNT=$(curl -s "$API_BASE/tasks/queue/$queue" | jq length)
+        COUNT=$(curl -s "$API_BASE/tasks/queue/$queue" | jq '.items | length')
         echo "$queue: $COUNT task(s)"
     done
 }